@@ -1,12 +1,21 @@
 plugins {
-    id("org.springframework.boot") version "3.1.0"
-    id("io.spring.dependency-management") version "1.1.0"
-    kotlin("jvm") version "1.8.22"
+    id("org.springframework.boot") version "3.2.5"
+    id("io.spring.dependency-management") version "1.1.4"
+    kotlin("jvm") version "1.9.23"
+    id("me.champeau.jmh") version "0.7.2"
+    // Spring AOT processing (processAot) and GraalVM native images (nativeCompile)
+    id("org.graalvm.buildtools.native") version "0.9.28"
 }
 
 group = "com.homework"
 version = "1.0.0-SNAPSHOT"
-java.sourceCompatibility = JavaVersion.VERSION_17
+
+// JDK 21 for virtual threads (spring.threads.virtual.enabled, see application-virtual-threads.properties)
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
 
 repositories {
     mavenCentral()
@@ -15,20 +24,93 @@ repositories {
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("org.hibernate.orm:hibernate-micrometer") // hibernate.* metrics from Hibernate statistics
+    implementation("net.ttddyy:datasource-proxy:1.10") // Slow query log
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    implementation("org.flywaydb:flyway-core")
+    implementation("org.flywaydb:flyway-mysql")
     implementation("org.projectlombok:lombok")
-    runtimeOnly("mysql:mysql-connector-java")
-    implementation ("mysql:mysql-connector-java:8.0.33")
+    // 9.x replaced its synchronized blocks with locks, so blocking JDBC I/O no longer pins virtual threads
+    runtimeOnly("com.mysql:mysql-connector-j:9.0.0")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testRuntimeOnly("com.h2database:h2")
 
     // Testing
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.mockito:mockito-core:5.5.0") // For mocking dependencies
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")// JUnit 5 for testing
+    testImplementation("net.jqwik:jqwik:1.7.4") // Property-based tests
+
+    // Benchmarks (src/jmh)
+    jmh("com.h2database:h2")
 }
 
 
-tasks.withType<Test> {
-    useJUnitPlatform()
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark", "mysql")
+    }
+}
+
+// Throughput benchmarks, kept out of the regular test run
+tasks.register<Test>("benchmarkTest") {
+    description = "Runs the tests tagged as benchmarks."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    systemProperties(System.getProperties().filterKeys { it.toString().startsWith("benchmark.") }
+        .mapKeys { it.key.toString() })
+    testLogging.showStandardStreams = true
+}
+
+// Tests that need a MySQL or MariaDB server, given with -Dmysql.url, -Dmysql.user and -Dmysql.password
+tasks.register<Test>("mysqlTest") {
+    description = "Runs the tests tagged as needing a MySQL server."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("mysql")
+    }
+    systemProperties(System.getProperties().filterKeys { it.toString().startsWith("mysql.") }
+        .mapKeys { it.key.toString() })
+}
+
+// ./gradlew jmh; results go to build/results/jmh/results.json for comparing builds
+jmh {
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    jvmArgs.add("-Xmx4g")
+    // e.g. ./gradlew jmh -Pjmh.includes=PointsBenchmark
+    (findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
+
+// ./gradlew nativeCompile builds build/native/nativeCompile/Rewards-API with GraalVM for the toolchain JDK.
+// AOT processing fixes which conditional beans exist, so features toggled by properties (rewards.hot-tier.enabled,
+// rewards.balances.enabled, the replicas profile) must be set at build time, e.g. -Paot.profiles=replicas
+graalvmNative {
+    metadataRepository {
+        enabled.set(true) // Reachability metadata for libraries without their own, such as Caffeine
+    }
+    binaries.named("main") {
+        buildArgs.add("-H:+ReportExceptionStackTraces")
+    }
+}
+
+(findProperty("aot.profiles") as String?)?.let { profiles ->
+    tasks.named<org.springframework.boot.gradle.tasks.aot.ProcessAot>("processAot") {
+        args("--spring.profiles.active=$profiles")
+    }
 }
@@ -0,0 +1,104 @@
+#!/usr/bin/env bash
+# Compares startup time and resident memory of the JVM build, the JVM build with the lazy profile
+# and with AOT-generated code, and the GraalVM native image.
+#
+#   ./gradlew bootJar nativeCompile
+#   scripts/compare-startup.sh [runs]
+#
+# Each variant is started `runs` times (default 5) against the database configured by APP_ARGS, e.g.
+#   APP_ARGS="--spring.datasource.url=jdbc:mysql://db:3306/rewards --spring.datasource.password=secret"
+# and the median is reported of:
+#   ready    time from launch until /actuator/health answers UP
+#   first    time of the first /api/rewards request for CUSTOMER_ID between START_DATE and END_DATE,
+#            where lazily created beans are paid for
+#   rss      resident set size after that request
+# Variants whose build output is missing are skipped. JVM_CMD replaces "java -jar <jar>", e.g. to add
+# heap options.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+APP_ARGS=${APP_ARGS:-}
+CUSTOMER_ID=${CUSTOMER_ID:-1}
+START_DATE=${START_DATE:-2000-01-01T00:00:00}
+END_DATE=${END_DATE:-$(date +%Y-%m-%dT%H:%M:%S)}
+JAR=${JAR:-build/libs/Rewards-API-1.0.0-SNAPSHOT.jar}
+NATIVE=${NATIVE:-build/native/nativeCompile/Rewards-API}
+JVM_CMD=${JVM_CMD:-java -jar $JAR}
+REWARDS_URL="http://localhost:$PORT/api/rewards?customerId=$CUSTOMER_ID&startDate=$START_DATE&endDate=$END_DATE"
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# run <command...>: one start, printing "ready_ms first_ms rss_mb", or nothing if it did not come up
+run() {
+    local started pid ready first rss
+    started=$(now_ms)
+    # shellcheck disable=SC2086
+    "$@" --server.port="$PORT" $APP_ARGS > "$LOG" 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/actuator/health" | grep -q '"UP"'; do
+        if ! kill -0 "$pid" 2>/dev/null || (( $(now_ms) - started > TIMEOUT_SECONDS * 1000 )); then
+            kill "$pid" 2>/dev/null || true
+            wait "$pid" 2>/dev/null || true
+            echo "  did not start, last log lines:" >&2
+            tail -5 "$LOG" >&2
+            return
+        fi
+        sleep 0.05
+    done
+    ready=$(( $(now_ms) - started ))
+
+    started=$(now_ms)
+    curl -sf -o /dev/null "$REWARDS_URL" || echo "  first request failed" >&2
+    first=$(( $(now_ms) - started ))
+    rss=$(( $(ps -o rss= -p "$pid") / 1024 ))
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$ready $first $rss"
+}
+
+# variant <name> <command...>
+variant() {
+    local name=$1 results
+    shift
+    results=$(for _ in $(seq "$RUNS"); do run "$@"; done)
+    if [[ -z "$results" ]]; then
+        printf "%-14s %10s\n" "$name" "failed"
+        return
+    fi
+    printf "%-14s %10s %10s %10s\n" "$name" \
+        "$(awk '{ print $1 }' <<< "$results" | median) ms" \
+        "$(awk '{ print $2 }' <<< "$results" | median) ms" \
+        "$(awk '{ print $3 }' <<< "$results" | median) MB"
+}
+
+printf "%-14s %10s %10s %10s\n" "variant" "ready" "first" "rss"
+if [[ "$JVM_CMD" != "java -jar $JAR" || -f "$JAR" ]]; then
+    # shellcheck disable=SC2086
+    variant jvm $JVM_CMD
+    # shellcheck disable=SC2086
+    variant jvm-lazy $JVM_CMD --spring.profiles.include=lazy
+    # Needs a jar built with the native plugin applied, which adds the processAot output
+    # shellcheck disable=SC2086
+    variant jvm-aot-lazy ${JVM_CMD/java /java -Dspring.aot.enabled=true } --spring.profiles.include=lazy
+else
+    echo "No $JAR; run ./gradlew bootJar" >&2
+fi
+if [[ -x "$NATIVE" ]]; then
+    variant native "$NATIVE"
+    variant native-lazy "$NATIVE" --spring.profiles.include=lazy
+else
+    echo "No $NATIVE; run ./gradlew nativeCompile with GraalVM 21" >&2
+fi
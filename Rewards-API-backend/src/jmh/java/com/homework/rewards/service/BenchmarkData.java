@@ -0,0 +1,46 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.entity.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic transactions spread over one year, with amounts in all three point tiers.
+ */
+final class BenchmarkData {
+
+    // Distinct timestamps are shared between transactions so 10M rows fit in a modest heap
+    private static final int DISTINCT_TIMESTAMPS = 100_000;
+
+    private BenchmarkData() {
+    }
+
+    static List<Transaction> transactions(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime[] timestamps = new LocalDateTime[Math.min(size, DISTINCT_TIMESTAMPS)];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = start.plusSeconds(random.nextInt(365 * 24 * 3600));
+        }
+
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(new Transaction((long) i + 1, 1L, (long) random.nextInt(25_000),
+                    timestamps[random.nextInt(timestamps.length)]));
+        }
+        return transactions;
+    }
+
+    static String csv(List<Transaction> transactions) {
+        StringBuilder csv = new StringBuilder(transactions.size() * 40);
+        for (Transaction transaction : transactions) {
+            csv.append(transaction.getCustomerId()).append(',')
+                    .append(transaction.getAmount()).append(',')
+                    .append(transaction.getTimestamp()).append('\n');
+        }
+        return csv.toString();
+    }
+}
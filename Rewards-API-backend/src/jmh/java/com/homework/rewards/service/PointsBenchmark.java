@@ -0,0 +1,74 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.entity.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Points calculation and monthly aggregation over in-memory transactions, without a database.
+ * Compare {@code gc.alloc.rate.norm} of the aggregation benchmarks to see per-row allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PointsBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int transactionCount;
+
+    private final RewardPointsTable pointsTable = new RewardPointsTable(new RewardProperties().getPoints().getTiers());
+    private List<Transaction> transactions;
+    private int[] months;
+    private long[] amountCents;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactions = BenchmarkData.transactions(transactionCount, 42);
+        months = new int[transactionCount];
+        amountCents = new long[transactionCount];
+        for (int i = 0; i < transactionCount; i++) {
+            months[i] = transactions.get(i).getTimestamp().getMonthValue();
+            amountCents[i] = transactions.get(i).getAmountCents();
+        }
+    }
+
+    @Benchmark
+    public long calculatePoints() {
+        long points = 0;
+        for (Transaction transaction : transactions) {
+            points += pointsTable.points(transaction.getAmountCents());
+        }
+        return points;
+    }
+
+    // The groupingBy aggregation RewardService used before RewardAggregator, kept as a baseline
+    @Benchmark
+    public Map<String, Integer> aggregateWithCollectors() {
+        return transactions.stream()
+                .collect(Collectors.groupingBy(
+                        t -> t.getTimestamp().getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH),
+                        Collectors.summingInt(t -> pointsTable.points(t.getAmountCents()))
+                ));
+    }
+
+    @Benchmark
+    public Map<String, Integer> aggregateTransactions() {
+        return RewardAggregator.ofTransactions(pointsTable, transactions).monthlyPoints();
+    }
+
+    @Benchmark
+    public Map<String, Integer> aggregateColumns() {
+        RewardAggregator aggregator = new RewardAggregator();
+        for (int i = 0; i < months.length; i++) {
+            aggregator.add(months[i], pointsTable.points(amountCents[i]));
+        }
+        return aggregator.monthlyPoints();
+    }
+}
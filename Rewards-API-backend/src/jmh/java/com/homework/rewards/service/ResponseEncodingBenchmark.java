@@ -0,0 +1,64 @@
+package com.homework.rewards.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.export.ColumnarWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a reward response with its transactions as JSON, configured the way Spring Boot
+ * configures it, and as the columnar format. Encoded sizes are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseEncodingBenchmark {
+
+    @Param({"1000", "100000"})
+    private int transactionCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+    private RewardResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        RewardPointsTable pointsTable = new RewardPointsTable(new RewardProperties().getPoints().getTiers());
+        // Responses list transactions in time order
+        List<Transaction> transactions = new ArrayList<>(BenchmarkData.transactions(transactionCount, 42));
+        transactions.sort(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId));
+        response = RewardAggregator.ofTransactions(pointsTable, transactions).toResponse(1L, transactions);
+
+        int json = json().length;
+        int columnar = columnar().length;
+        System.out.printf("%n%d transactions: JSON %d bytes, columnar %d bytes (%.1fx smaller)%n",
+                transactionCount, json, columnar, (double) json / columnar);
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, response);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] columnar() throws IOException {
+        out.reset();
+        new ColumnarWriter(Channels.newChannel(out)).writeResponse(response);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.RewardsApplication;
+import com.homework.rewards.dto.RewardResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end reward queries for one customer against the full application context on in-memory
+ * H2, with the result cache disabled so every call reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RewardServiceBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    // The last microsecond of December, so the ledger answers every month whole
+    private static final LocalDateTime END = RewardLedgerService.endOfMonth(YearMonth.of(2023, 12));
+
+    // 10M rows take minutes to load into H2 and are covered by PointsBenchmark instead
+    @Param({"1000", "100000"})
+    private int transactionCount;
+
+    @Param({"false", "true"})
+    private boolean ledgerEnabled;
+
+    private ConfigurableApplicationContext context;
+    private RewardService rewardService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RewardsApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command line arguments, so they win over application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:rewards-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--rewards.cache.enabled=false",
+                        "--rewards.ledger.enabled=" + ledgerEnabled);
+        context.getBean(BulkIngestService.class).ingestCsv(new ByteArrayInputStream(
+                BenchmarkData.csv(BenchmarkData.transactions(transactionCount, 42)).getBytes(StandardCharsets.UTF_8)));
+        rewardService = context.getBean(RewardService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RewardResponse calculateRewards() {
+        return rewardService.calculateRewards(1L, START, END);
+    }
+
+    @Benchmark
+    public RewardResponse calculateRewardSummary() {
+        return rewardService.calculateRewardSummary(1L, START, END);
+    }
+}
@@ -2,8 +2,10 @@ package com.homework.rewards;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class RewardsApplication {
     public static void main(String[] args) {
         SpringApplication.run(RewardsApplication.class, args);
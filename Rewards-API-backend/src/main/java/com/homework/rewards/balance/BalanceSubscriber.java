@@ -0,0 +1,95 @@
+package com.homework.rewards.balance;
+
+import com.homework.rewards.dto.RewardBalance;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * One {@code /api/balances/stream} connection. Changes are coalesced per customer until they are
+ * sent, so a client that reads slowly receives the latest balance of each customer rather than
+ * every step, and never holds up the balance updater.
+ */
+final class BalanceSubscriber {
+
+    static final String EVENT_NAME = "balance";
+
+    private final SseEmitter emitter;
+    // Null for a subscription to every customer
+    private final Long customerId;
+    private final Executor sender;
+    private final Map<Long, RewardBalance> pending = new LinkedHashMap<>();
+    private boolean sending;
+    // A single-customer stream also gets its initial balance from the subscribing request, which
+    // can race with the updater; counts only grow, so an older balance is never sent after a newer one
+    private long sentTransactionCount = -1;
+    private volatile boolean closed;
+
+    BalanceSubscriber(SseEmitter emitter, Long customerId, Executor sender) {
+        this.emitter = emitter;
+        this.customerId = customerId;
+        this.sender = sender;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    Long customerId() {
+        return customerId;
+    }
+
+    void offer(RewardBalance balance) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pending.merge(balance.getCustomerId(), balance,
+                    (queued, offered) -> offered.getTransactionCount() >= queued.getTransactionCount() ? offered : queued);
+            if (sending) {
+                return;
+            }
+            sending = true;
+        }
+        sender.execute(this::send);
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    private void send() {
+        while (true) {
+            List<RewardBalance> balances;
+            synchronized (this) {
+                if (pending.isEmpty() || closed) {
+                    sending = false;
+                    return;
+                }
+                balances = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            try {
+                for (RewardBalance balance : balances) {
+                    if (customerId != null) {
+                        if (balance.getTransactionCount() < sentTransactionCount) {
+                            continue;
+                        }
+                        sentTransactionCount = balance.getTransactionCount();
+                    }
+                    emitter.send(SseEmitter.event().name(EVENT_NAME).data(balance, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the emitter's callbacks unsubscribe it
+                closed = true;
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
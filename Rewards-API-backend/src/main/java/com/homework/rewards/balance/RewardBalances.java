@@ -0,0 +1,439 @@
+package com.homework.rewards.balance;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.RewardBalance;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.exception.BalancesUnavailableException;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardPointsTable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running point balances of every customer, kept current as transactions are recorded, so
+ * clients can follow them over {@code /api/balances/stream} instead of polling
+ * {@code /api/rewards}.
+ * <p>
+ * Committed {@link TransactionsRecordedEvent}s are published to a {@link TransactionRingBuffer} of
+ * {@code rewards.balances.ring-capacity} slots; writers wait while it is full. One updater thread
+ * drains it in batches, computes the points of each transaction once and adds them to the
+ * customer's counters, then passes the new balance of every customer changed by the batch to
+ * the subscribers.
+ * <p>
+ * When the application is ready, the newest id is read as the load's bound. The balances of
+ * transactions up to it are summed by the database in one pass once
+ * {@code rewards.balances.refresh-overlap} has passed, so writes that were in flight with a lower
+ * id have committed; months archived by the partition job are taken from the ledger instead.
+ * Both the load and the updater add to {@link LongAdder}s, so the updater never waits for the
+ * load; it skips transactions up to the bound, and counts the rest. Until the load completes,
+ * balances are not served.
+ * <p>
+ * Transactions of other instances are read on {@code rewards.balances.refresh-cron}, and each
+ * range of ids once more after the overlap, as the hot tier does. Ids counted above the settled
+ * range are remembered until it passes them, so a transaction seen by both the updater and a
+ * refresh counts once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rewards.balances", name = "enabled", havingValue = "true")
+public class RewardBalances implements Closeable {
+
+    private static final String SELECT_MAX_ID = "SELECT COALESCE(MAX(id), 0) FROM transaction";
+    private static final String SELECT_BALANCES = """
+            SELECT customer_id, SUM(%s), COUNT(*) FROM transaction
+            WHERE id <= ? AND timestamp >= ? GROUP BY customer_id
+            """;
+    // Archived months no longer have their rows, only their ledger sums
+    private static final String SELECT_ARCHIVED_BALANCES = """
+            SELECT customer_id, SUM(points), SUM(transaction_count) FROM monthly_reward_summary
+            WHERE period_year * 100 + period_month <= ? GROUP BY customer_id
+            """;
+    private static final String SELECT_IDS = """
+            SELECT id, customer_id, amount_cents FROM transaction WHERE id > ? AND id <= ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RewardPointsTable rewardPointsTable;
+    private final ArchivedMonths archivedMonths;
+    private final RewardProperties.Balances properties;
+
+    private final Map<Long, Balance> balances = new ConcurrentHashMap<>();
+    private final TransactionRingBuffer ring;
+    private final Thread updater;
+    private final ExecutorService sender;
+    private final Timer publishWait;
+    private final Timer lag;
+
+    private final List<BalanceSubscriber> allCustomers = new CopyOnWriteArrayList<>();
+    private final Map<Long, List<BalanceSubscriber>> byCustomer = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    // Ids counted above settledId; only kept while refreshes run, which are the only other way to see them
+    private final Set<Long> countedIds = new HashSet<>();
+    private final boolean trackIds;
+    // Every transaction up to this id is counted, by the load or after its transaction must have
+    // ended; unknown until the load reads its bound. Guarded by countedIds.
+    private long settledId = Long.MAX_VALUE;
+    // Transactions up to this id are counted by the load
+    private volatile long loadedUpToId;
+    private volatile boolean loaded;
+    // Newest id read by each refresh, with System.nanoTime() before that read; oldest first
+    private final Deque<IdMark> idMarks = new ArrayDeque<>();
+    // Largest id read so far
+    private long readId;
+
+    public RewardBalances(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          RewardPointsTable rewardPointsTable, ArchivedMonths archivedMonths,
+                          RewardProperties rewardProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.rewardPointsTable = rewardPointsTable;
+        this.archivedMonths = archivedMonths;
+        this.properties = rewardProperties.getBalances();
+        this.trackIds = !Scheduled.CRON_DISABLED.equals(properties.getRefreshCron());
+        this.ring = new TransactionRingBuffer(properties.getRingCapacity());
+
+        CustomizableThreadFactory senderThreads = new CustomizableThreadFactory("balance-stream-");
+        senderThreads.setDaemon(true);
+        this.sender = Executors.newCachedThreadPool(senderThreads);
+
+        this.publishWait = Timer.builder("rewards.balances.publish.wait")
+                .description("Time writers waited for room in the balance queue")
+                .register(meterRegistry);
+        this.lag = Timer.builder("rewards.balances.lag")
+                .description("Time from commit to balance update, for the oldest transaction of each batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("rewards.balances.queue", ring, TransactionRingBuffer::size).register(meterRegistry);
+        Gauge.builder("rewards.balances.customers", balances, Map::size).register(meterRegistry);
+        Gauge.builder("rewards.balances.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+
+        this.updater = new Thread(new Updater(), "balance-updater");
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    /**
+     * The customer's balance; zero for a customer without transactions.
+     */
+    public RewardBalance balance(Long customerId) {
+        requireLoaded();
+        Balance balance = balances.get(customerId);
+        return balance == null ? new RewardBalance(customerId, 0, 0) : balance.snapshot(customerId);
+    }
+
+    /**
+     * Streams balance changes of one customer, or of every customer if {@code customerId} is
+     * null. A single customer's stream starts with its current balance.
+     */
+    public SseEmitter subscribe(Long customerId) {
+        requireLoaded();
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new BalancesUnavailableException("Too many balance subscribers, at most rewards.balances.max-subscribers="
+                    + properties.getMaxSubscribers() + ".");
+        }
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        BalanceSubscriber subscriber = new BalanceSubscriber(emitter, customerId, sender);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        if (customerId == null) {
+            allCustomers.add(subscriber);
+        } else {
+            byCustomer.compute(customerId, (id, subscribers) -> {
+                List<BalanceSubscriber> list = subscribers == null ? new CopyOnWriteArrayList<>() : subscribers;
+                list.add(subscriber);
+                return list;
+            });
+            subscriber.offer(balance(customerId));
+        }
+        return emitter;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsRecorded(TransactionsRecordedEvent event) {
+        try {
+            long waited = ring.publish(event.transactions());
+            if (waited >= 0) {
+                publishWait.record(waited, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing {} transactions for balances; balances will be short until restart",
+                    event.transactions().size());
+        }
+    }
+
+    // Reads the load's bound, then sums the balances up to it once the writes in flight have ended
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            // Held while reading, so the updater neither skips a transaction committed after the
+            // read nor counts one committed before it
+            synchronized (countedIds) {
+                loadedUpToId = jdbcTemplate.queryForObject(SELECT_MAX_ID, Long.class);
+                settledId = loadedUpToId;
+            }
+        } catch (RuntimeException e) {
+            log.error("Loading reward balances failed; they are not served until restart", e);
+            return;
+        }
+        Duration overlap = properties.getRefreshOverlap();
+        if (overlap.isZero()) {
+            load();
+        } else {
+            CompletableFuture.delayedExecutor(overlap.toNanos(), TimeUnit.NANOSECONDS, sender).execute(this::load);
+        }
+    }
+
+    /**
+     * Reads the transactions other instances committed since the last read. Ids are allocated
+     * before commit, so a row can commit after a read went past its id: each range of ids is read
+     * once more after {@code rewards.balances.refresh-overlap}, the longest a write transaction may
+     * run.
+     */
+    @Scheduled(cron = "${rewards.balances.refresh-cron:*/5 * * * * *}")
+    public synchronized void refresh() {
+        if (!loaded) {
+            return;
+        }
+        long started = System.nanoTime();
+        long overlap = properties.getRefreshOverlap().toNanos();
+        try {
+            // Marks are only dropped once their range has been read again, so a failed read is retried
+            while (!idMarks.isEmpty() && started - idMarks.peekFirst().readAt() >= overlap) {
+                long settled = idMarks.peekFirst().id();
+                long from;
+                synchronized (countedIds) {
+                    from = settledId;
+                }
+                read(from, settled);
+                synchronized (countedIds) {
+                    settledId = settled;
+                    countedIds.removeIf(id -> id <= settled);
+                }
+                idMarks.pollFirst();
+            }
+            long newest = read(readId, Long.MAX_VALUE);
+            if (newest > readId) {
+                idMarks.addLast(new IdMark(newest, started));
+                readId = newest;
+            }
+        } catch (RuntimeException e) {
+            // Retried by the next refresh, which reads the same ids again
+            log.warn("Balance refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Sums the balances of the transactions up to the bound
+    private void load() {
+        long started = System.nanoTime();
+        YearMonth archived;
+        try {
+            archived = archivedMonths.newest();
+            LocalDateTime from = archived == null ? LocalDateTime.of(1, 1, 1, 0, 0) : archived.plusMonths(1).atDay(1).atStartOfDay();
+            // Read-write, so it is not routed to a replica that may lack recent rows. On MySQL both
+            // queries read the snapshot taken by the first one.
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                RowCallbackHandler add = rs -> balances.computeIfAbsent(rs.getLong(1), id -> new Balance())
+                        .add(rs.getLong(2), rs.getLong(3));
+                if (archived != null) {
+                    jdbcTemplate.query(SELECT_ARCHIVED_BALANCES, add, archived.getYear() * 100 + archived.getMonthValue());
+                }
+                jdbcTemplate.query(SELECT_BALANCES.formatted(rewardPointsTable.sqlPoints("amount_cents")), add, loadedUpToId, from);
+            });
+        } catch (RuntimeException e) {
+            log.error("Loading reward balances failed; they are not served until restart", e);
+            return;
+        }
+        synchronized (this) {
+            readId = loadedUpToId;
+        }
+        loaded = true;
+        log.info("Loaded reward balances of {} customers up to transaction {}{} in {} ms", balances.size(), loadedUpToId,
+                archived == null ? "" : ", months to " + archived + " from the ledger", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Counts the transactions with ids in (fromId, toId] that are not counted yet; returns the largest id read, at least fromId
+    private long read(long fromId, long toId) {
+        Map<Long, Balance> changed = new HashMap<>();
+        long[] maxId = {fromId};
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.query(SELECT_IDS, rs -> {
+            long id = rs.getLong(1);
+            maxId[0] = Math.max(maxId[0], id);
+            if (claim(id)) {
+                long customerId = rs.getLong(2);
+                Balance balance = balances.computeIfAbsent(customerId, key -> new Balance());
+                balance.add(rewardPointsTable.points(rs.getLong(3)), 1);
+                changed.put(customerId, balance);
+            }
+        }, fromId, toId));
+        notifySubscribers(changed);
+        return maxId[0];
+    }
+
+    // Whether a transaction still has to be counted; id 0 for a transaction recorded without one
+    private boolean claim(long id) {
+        if (id == 0) {
+            return true;
+        }
+        synchronized (countedIds) {
+            return id > settledId && (!trackIds || countedIds.add(id));
+        }
+    }
+
+    private void notifySubscribers(Map<Long, Balance> changed) {
+        if (subscriberCount.get() == 0) {
+            return;
+        }
+        for (Map.Entry<Long, Balance> entry : changed.entrySet()) {
+            List<BalanceSubscriber> subscribers = byCustomer.get(entry.getKey());
+            if (allCustomers.isEmpty() && subscribers == null) {
+                continue;
+            }
+            RewardBalance balance = entry.getValue().snapshot(entry.getKey());
+            allCustomers.forEach(subscriber -> subscriber.offer(balance));
+            if (subscribers != null) {
+                subscribers.forEach(subscriber -> subscriber.offer(balance));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ring.close();
+        try {
+            updater.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender.shutdownNow();
+        allCustomers.forEach(subscriber -> subscriber.emitter().complete());
+        byCustomer.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter().complete()));
+    }
+
+    int queued() {
+        return ring.size();
+    }
+
+    private void requireLoaded() {
+        if (!loaded) {
+            throw new BalancesUnavailableException("Reward balances are still loading.");
+        }
+    }
+
+    // Called once per way the stream ends, so only the first call counts
+    private void unsubscribe(BalanceSubscriber subscriber) {
+        subscriber.close();
+        AtomicBoolean removed = new AtomicBoolean(subscriber.customerId() == null && allCustomers.remove(subscriber));
+        if (subscriber.customerId() != null) {
+            byCustomer.computeIfPresent(subscriber.customerId(), (id, subscribers) -> {
+                removed.set(subscribers.remove(subscriber));
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+        if (removed.get()) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private record IdMark(long id, long readAt) {
+    }
+
+    // Counters of one customer; written by the load, the updater and refreshes, read by requests
+    private static final class Balance {
+        private final LongAdder points = new LongAdder();
+        private final LongAdder transactionCount = new LongAdder();
+
+        void add(long transactionPoints, long transactions) {
+            points.add(transactionPoints);
+            transactionCount.add(transactions);
+        }
+
+        RewardBalance snapshot(Long customerId) {
+            return new RewardBalance(customerId, points.sum(), transactionCount.sum());
+        }
+    }
+
+    private final class Updater implements Runnable, TransactionRingBuffer.Handler {
+        // Customers changed by the current batch
+        private final Map<Long, Balance> changed = new HashMap<>();
+        private long oldestPublishedNanos;
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    oldestPublishedNanos = Long.MAX_VALUE;
+                    int handled = ring.drain(this, 1, TimeUnit.SECONDS);
+                    if (handled < 0) {
+                        return;
+                    }
+                    if (handled > 0) {
+                        lag.record(System.nanoTime() - oldestPublishedNanos, TimeUnit.NANOSECONDS);
+                        notifySubscribers(changed);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Balance update failed; the batch's balances will be short until restart", e);
+                } finally {
+                    changed.clear();
+                }
+            }
+        }
+
+        @Override
+        public void onTransaction(long id, long customerId, long amountCents, long publishedNanos) {
+            oldestPublishedNanos = Math.min(oldestPublishedNanos, publishedNanos);
+            if (!claim(id)) {
+                return;
+            }
+            Balance balance = balances.computeIfAbsent(customerId, key -> new Balance());
+            balance.add(rewardPointsTable.points(amountCents), 1);
+            changed.put(customerId, balance);
+        }
+
+    }
+}
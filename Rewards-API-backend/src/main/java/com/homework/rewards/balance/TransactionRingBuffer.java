@@ -0,0 +1,161 @@
+package com.homework.rewards.balance;
+
+import com.homework.rewards.entity.Transaction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue between many publishing threads and one consumer, in the manner of a Disruptor
+ * ring: slots are preallocated primitive arrays, so publishing copies a few longs and allocates
+ * nothing, and the consumer reads slots in place. A publisher waits while the ring is full, which
+ * is how a slow consumer pushes back on the write path.
+ * <p>
+ * The lock only guards the sequences. The consumer processes everything published so far as one
+ * batch outside the lock; its slots cannot be reused until the batch is released.
+ */
+final class TransactionRingBuffer {
+
+    /**
+     * Receives the slots of a batch in publishing order.
+     */
+    interface Handler {
+        void onTransaction(long id, long customerId, long amountCents, long publishedNanos);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] ids;
+    private final long[] customerIds;
+    private final long[] amountCents;
+    private final long[] publishedNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+    // Next sequence to publish and next sequence to consume; slot = sequence & mask
+    private long published;
+    private long consumed;
+    private boolean closed;
+
+    TransactionRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ring capacity must be between 1 and 2^30.");
+        }
+        // Rounded up to a power of two, so the slot is a mask instead of a division
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.ids = new long[this.capacity];
+        this.customerIds = new long[this.capacity];
+        this.amountCents = new long[this.capacity];
+        this.publishedNanos = new long[this.capacity];
+    }
+
+    /**
+     * Publishes the transactions in order, waiting for free slots as often as needed. Returns the
+     * nanoseconds spent waiting, or -1 if the ring was closed before all of them were published.
+     * Transactions without an id are published as id 0.
+     */
+    long publish(List<Transaction> transactions) throws InterruptedException {
+        long waited = 0;
+        int next = 0;
+        lock.lockInterruptibly();
+        try {
+            while (next < transactions.size()) {
+                while (published - consumed == capacity && !closed) {
+                    long started = System.nanoTime();
+                    notFull.await();
+                    waited += System.nanoTime() - started;
+                }
+                if (closed) {
+                    return -1;
+                }
+                long now = System.nanoTime();
+                int free = (int) (capacity - (published - consumed));
+                for (int end = Math.min(transactions.size(), next + free); next < end; next++) {
+                    Transaction transaction = transactions.get(next);
+                    int slot = (int) (published & mask);
+                    ids[slot] = transaction.getId() == null ? 0 : transaction.getId();
+                    customerIds[slot] = transaction.getCustomerId();
+                    amountCents[slot] = transaction.getAmountCents();
+                    publishedNanos[slot] = now;
+                    published++;
+                }
+                notEmpty.signal();
+            }
+            return waited;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to {@code timeout} for published transactions, hands all of them to the handler
+     * and frees their slots. Returns how many were handled; 0 after a timeout, -1 once closed and
+     * empty. Only one thread may drain.
+     */
+    int drain(Handler handler, long timeout, TimeUnit unit) throws InterruptedException {
+        long from;
+        long to;
+        lock.lockInterruptibly();
+        try {
+            long remaining = unit.toNanos(timeout);
+            while (published == consumed) {
+                if (closed) {
+                    return -1;
+                }
+                if (remaining <= 0) {
+                    return 0;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            from = consumed;
+            to = published;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            for (long sequence = from; sequence < to; sequence++) {
+                int slot = (int) (sequence & mask);
+                handler.onTransaction(ids[slot], customerIds[slot], amountCents[slot], publishedNanos[slot]);
+            }
+        } finally {
+            lock.lock();
+            try {
+                consumed = to;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return (int) (to - from);
+    }
+
+    // Wakes waiting publishers, which give up, and lets the consumer drain what is left
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return (int) (published - consumed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,83 @@
+package com.homework.rewards.cache;
+
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.RewardLedgerRebuiltEvent;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-customer write counters that are folded into reward cache keys. Storing a transaction bumps
+ * the customer's counter once committed, so every cached summary it may change stops matching and
+ * ages out of the cache instead of being looked up and removed.
+ * <p>
+ * Open periods follow every write of the customer. Closed periods follow only writes dated before
+ * the current month, which are rare, so their entries stay reachable while the customer keeps
+ * buying. Rebuilding the ledger moves a generation shared by all keys.
+ * <p>
+ * The time of each change is kept as well, so reads made for a new key can avoid replicas that
+ * have not received the change yet and would fill the entry with the old summary.
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomerCacheVersions {
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> closedVersions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    // clock.millis() once each customer's latest write, and the latest ledger rebuild, committed
+    private final Map<Long, Long> writtenAt = new ConcurrentHashMap<>();
+    private volatile long rebuiltAt;
+    private final Clock clock;
+
+    public long current(Long customerId) {
+        return versions.getOrDefault(customerId, 0L);
+    }
+
+    public long closed(Long customerId) {
+        return closedVersions.getOrDefault(customerId, 0L);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * When the customer's summaries last changed through this instance, in {@code clock} millis;
+     * 0 if they have not.
+     */
+    public long changedAt(Long customerId) {
+        return Math.max(writtenAt.getOrDefault(customerId, 0L), rebuiltAt);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsRecorded(TransactionsRecordedEvent event) {
+        LocalDateTime currentMonth = YearMonth.now(clock).atDay(1).atStartOfDay();
+        event.transactions().stream()
+                .map(Transaction::getCustomerId)
+                .distinct()
+                .forEach(customerId -> {
+                    versions.merge(customerId, 1L, Long::sum);
+                    writtenAt.put(customerId, clock.millis());
+                });
+        event.transactions().stream()
+                .filter(transaction -> transaction.getTimestamp().isBefore(currentMonth))
+                .map(Transaction::getCustomerId)
+                .distinct()
+                .forEach(customerId -> closedVersions.merge(customerId, 1L, Long::sum));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerRebuilt(RewardLedgerRebuiltEvent event) {
+        rebuiltAt = clock.millis();
+        generation.incrementAndGet();
+    }
+}
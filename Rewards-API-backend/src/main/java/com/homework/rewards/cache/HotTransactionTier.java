@@ -0,0 +1,491 @@
+package com.homework.rewards.cache;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.entity.TimestampMicros;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Recent transactions held in memory, so reward requests for periods inside the last
+ * {@code rewards.hot-tier.window-months} months are answered without Hibernate or a database
+ * connection.
+ * <p>
+ * Every customer's transactions are kept as three parallel primitive arrays of id, timestamp
+ * and amount in cents, sorted by timestamp: 24 bytes per transaction plus a fixed overhead per
+ * customer, instead of a {@link Transaction} entity per row. The arrays are never modified;
+ * new transactions replace a customer's arrays with merged copies, so readers never lock.
+ * <p>
+ * The window is loaded from the primary when the application is ready. This instance's writes
+ * are added from {@link TransactionsRecordedEvent}s after they commit; those of other instances
+ * are read on {@code rewards.hot-tier.refresh-cron}, so they are missed for at most one refresh.
+ * Rows that arrive more than one way are matched by id. Until the load completes, and for
+ * periods starting before the window, callers get {@code null} and read from the database. If the
+ * tier would grow past {@code rewards.hot-tier.max-transactions} it empties itself and stays off
+ * until restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rewards.hot-tier", name = "enabled", havingValue = "true")
+public class HotTransactionTier implements MeterBinder {
+
+    private static final String SELECT_WINDOW = """
+            SELECT customer_id, id, timestamp, amount_cents FROM transaction
+            WHERE timestamp >= ? ORDER BY customer_id, timestamp, id
+            """;
+    private static final String SELECT_IDS = """
+            SELECT customer_id, id, timestamp, amount_cents FROM transaction
+            WHERE id > ? AND id <= ? AND timestamp >= ? ORDER BY customer_id, timestamp, id
+            """;
+    static final long BYTES_PER_TRANSACTION = 3 * Long.BYTES;
+    // Map node, boxed key, the Columns object and three array headers, with compressed oops
+    static final long BYTES_PER_CUSTOMER = 128;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RewardProperties rewardProperties;
+    private final Clock clock;
+
+    private final Map<Long, Columns> customers = new ConcurrentHashMap<>();
+    private final AtomicLong transactionCount = new AtomicLong();
+    // Oldest timestamp held; null until loading starts
+    private volatile LocalDateTime coveredFrom;
+    private volatile boolean loaded;
+    private volatile boolean disabled;
+    // Newest id read by the load and each refresh, with System.nanoTime() before that read; oldest first
+    private final Deque<IdMark> idMarks = new ArrayDeque<>();
+    // Largest id read so far
+    private long readId;
+    // Every id at or below this was read after its transaction must have ended
+    private long settledId;
+
+    /**
+     * Transactions of the customer in the period, oldest first, or {@code null} if the tier
+     * does not hold the whole period.
+     */
+    public List<Transaction> findTransactions(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        Columns columns = customers.getOrDefault(customerId, Columns.EMPTY);
+        // Checked after reading the columns, so an eviction in between is noticed
+        if (!covers(startDate)) {
+            return null;
+        }
+        int from = columns.indexOf(TimestampMicros.of(startDate));
+        int to = columns.indexAfter(TimestampMicros.of(endDate));
+        List<Transaction> transactions = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            transactions.add(new Transaction(columns.ids[i], customerId, columns.cents[i],
+                    TimestampMicros.toLocalDateTime(columns.micros[i])));
+        }
+        return transactions;
+    }
+
+    /**
+     * Passes the month (1-12) and amount of each of the customer's transactions in the period to
+     * {@code consumer}, allocating nothing per transaction. Returns {@code false}, without calling
+     * it, if the tier does not hold the whole period.
+     */
+    public boolean forEachAmount(Long customerId, LocalDateTime startDate, LocalDateTime endDate, MonthlyAmountConsumer consumer) {
+        Columns columns = customers.getOrDefault(customerId, Columns.EMPTY);
+        if (!covers(startDate)) {
+            return false;
+        }
+        int to = columns.indexAfter(TimestampMicros.of(endDate));
+        int month = 0;
+        long nextMonthMicros = Long.MIN_VALUE;
+        for (int i = columns.indexOf(TimestampMicros.of(startDate)); i < to; i++) {
+            long micros = columns.micros[i];
+            // Rows are sorted, so the month only changes at a boundary
+            if (micros >= nextMonthMicros) {
+                YearMonth yearMonth = YearMonth.from(TimestampMicros.toLocalDateTime(micros));
+                month = yearMonth.getMonthValue();
+                nextMonthMicros = TimestampMicros.of(yearMonth.plusMonths(1).atDay(1).atStartOfDay());
+            }
+            consumer.accept(month, columns.cents[i]);
+        }
+        return true;
+    }
+
+    public boolean covers(LocalDateTime startDate) {
+        LocalDateTime from = coveredFrom;
+        return loaded && !disabled && from != null && !startDate.isBefore(from);
+    }
+
+    public long transactionCount() {
+        return transactionCount.get();
+    }
+
+    public int customerCount() {
+        return customers.size();
+    }
+
+    // Heap held by the columns and their per-customer overhead
+    public long estimatedBytes() {
+        return transactionCount.get() * BYTES_PER_TRANSACTION + customers.size() * BYTES_PER_CUSTOMER;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rewards.hot-tier.transactions", this, HotTransactionTier::transactionCount).register(registry);
+        Gauge.builder("rewards.hot-tier.customers", this, HotTransactionTier::customerCount).register(registry);
+        Gauge.builder("rewards.hot-tier.size", this, HotTransactionTier::estimatedBytes).baseUnit("bytes").register(registry);
+    }
+
+    // Loads the window, replacing what is held
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        RewardProperties.HotTier properties = rewardProperties.getHotTier();
+        loaded = false;
+        customers.clear();
+        transactionCount.set(0);
+        // Set first, so transactions committed while loading are applied and matched by id
+        coveredFrom = windowStart();
+        long started = System.nanoTime();
+
+        // Read-write, so it is not routed to a replica that may lack rows committed before this point
+        Loader loader = new Loader(false);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.query(SELECT_WINDOW, ps -> {
+                // With useCursorFetch=true MySQL streams the rows instead of buffering the whole result
+                ps.setFetchSize(properties.getFetchSize());
+                // One row past the bound is enough to know the window does not fit
+                ps.setLargeMaxRows(properties.getMaxTransactions() + 1);
+                ps.setObject(1, coveredFrom);
+            }, loader));
+            loader.flush();
+        } catch (RuntimeException e) {
+            disable("loading failed: " + e.getMessage());
+        }
+        if (disabled) {
+            return;
+        }
+        idMarks.clear();
+        idMarks.add(new IdMark(loader.maxId, started));
+        readId = loader.maxId;
+        settledId = 0;
+        loaded = true;
+
+        long transactions = transactionCount.get();
+        log.info("Hot tier loaded {} transactions of {} customers since {} in {} ms: ~{} MB, ~{} MB per million transactions",
+                transactions, customers.size(), coveredFrom, (System.nanoTime() - started) / 1_000_000,
+                estimatedBytes() >> 20, transactions == 0 ? 0 : (estimatedBytes() * 1_000_000 / transactions) >> 20);
+    }
+
+    /**
+     * Reads the rows of the window that other instances committed since the last read. Ids are
+     * allocated before commit, so a row can commit after a read went past its id: each range of
+     * ids is read once more after {@code rewards.hot-tier.refresh-overlap}, the longest a write
+     * transaction may run. The first such read after the load covers the whole window again.
+     */
+    @Scheduled(cron = "${rewards.hot-tier.refresh-cron:*/5 * * * * *}")
+    public synchronized void refresh() {
+        if (!loaded || disabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long overlap = rewardProperties.getHotTier().getRefreshOverlap().toNanos();
+        long settled = settledId;
+        for (IdMark mark : idMarks) {
+            if (started - mark.readAt() < overlap) {
+                break;
+            }
+            settled = mark.id();
+        }
+        try {
+            if (settled > settledId) {
+                read(settledId, settled);
+                settledId = settled;
+                // Only dropped once their range has been read again, so a failed read is retried
+                while (!idMarks.isEmpty() && idMarks.peekFirst().id() <= settled) {
+                    idMarks.pollFirst();
+                }
+            }
+            long newest = read(readId, Long.MAX_VALUE);
+            if (newest > readId) {
+                idMarks.addLast(new IdMark(newest, started));
+                readId = newest;
+            }
+        } catch (RuntimeException e) {
+            // Retried by the next refresh, which reads the same ids again
+            log.warn("Hot tier refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Adds the window's rows with ids in (fromId, toId] that are not held yet; returns the largest id read, at least fromId
+    private long read(long fromId, long toId) {
+        Loader loader = new Loader(true);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.query(SELECT_IDS, ps -> {
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+            ps.setObject(3, coveredFrom);
+        }, loader));
+        loader.flush();
+        return Math.max(fromId, loader.maxId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsRecorded(TransactionsRecordedEvent event) {
+        LocalDateTime from = coveredFrom;
+        if (from == null || disabled) {
+            return;
+        }
+        Map<Long, List<Transaction>> recent = event.transactions().stream()
+                .filter(transaction -> !transaction.getTimestamp().isBefore(from))
+                .collect(Collectors.groupingBy(Transaction::getCustomerId));
+        recent.forEach((customerId, transactions) -> {
+            if (transactions.stream().anyMatch(transaction -> transaction.getId() == null)) {
+                disable("a recorded transaction has no id");
+                return;
+            }
+            transactions.sort(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId));
+            ColumnBuilder rows = new ColumnBuilder(transactions.size());
+            transactions.forEach(transaction ->
+                    rows.add(transaction.getId(), TimestampMicros.of(transaction.getTimestamp()), transaction.getAmountCents()));
+            merge(customerId, rows);
+        });
+    }
+
+    // Drops the months that left the window, once a month has started
+    @Scheduled(cron = "${rewards.hot-tier.evict-cron:0 5 0 * * *}")
+    public void evict() {
+        LocalDateTime from = windowStart();
+        if (coveredFrom == null || !from.isAfter(coveredFrom)) {
+            return;
+        }
+        // Raised first, so no query relies on the rows being dropped
+        coveredFrom = from;
+        long fromMicros = TimestampMicros.of(from);
+        for (Long customerId : customers.keySet()) {
+            customers.computeIfPresent(customerId, (id, columns) -> {
+                Columns kept = columns.from(fromMicros);
+                transactionCount.addAndGet(kept.size() - columns.size());
+                return kept.size() == 0 ? null : kept;
+            });
+        }
+        log.info("Hot tier now holds {} transactions since {}", transactionCount.get(), from);
+    }
+
+    private void merge(Long customerId, ColumnBuilder rows) {
+        if (disabled) {
+            return;
+        }
+        customers.compute(customerId, (id, columns) -> {
+            Columns merged = (columns == null ? Columns.EMPTY : columns).merge(rows);
+            transactionCount.addAndGet(merged.size() - (columns == null ? 0 : columns.size()));
+            return merged;
+        });
+        if (transactionCount.get() > rewardProperties.getHotTier().getMaxTransactions()) {
+            disable("it would hold more than rewards.hot-tier.max-transactions=" + rewardProperties.getHotTier().getMaxTransactions());
+        }
+    }
+
+    private void disable(String reason) {
+        if (!disabled) {
+            log.warn("Hot tier turned off until restart, rewards are read from the database: {}", reason);
+            disabled = true;
+        }
+        customers.clear();
+        transactionCount.set(0);
+    }
+
+    LocalDateTime windowStart() {
+        return YearMonth.now(clock).minusMonths(rewardProperties.getHotTier().getWindowMonths() - 1L).atDay(1).atStartOfDay();
+    }
+
+    @FunctionalInterface
+    public interface MonthlyAmountConsumer {
+        void accept(int month, long amountCents);
+    }
+
+    private record IdMark(long id, long readAt) {
+    }
+
+    /**
+     * Rows of the load and refresh queries arrive grouped by customer, so only the current
+     * customer's rows are buffered. A refresh skips rows that are already held, so reading them
+     * again copies no columns.
+     */
+    private final class Loader implements RowCallbackHandler {
+        private final ColumnBuilder rows = new ColumnBuilder(64);
+        private final boolean skipHeld;
+        private long customerId = -1;
+        private long maxId;
+
+        Loader(boolean skipHeld) {
+            this.skipHeld = skipHeld;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowCustomerId = rs.getLong(1);
+            if (rowCustomerId != customerId) {
+                flush();
+                customerId = rowCustomerId;
+            }
+            long id = rs.getLong(2);
+            long micros = TimestampMicros.of(rs.getObject(3, LocalDateTime.class));
+            maxId = Math.max(maxId, id);
+            if (!skipHeld || !customers.getOrDefault(rowCustomerId, Columns.EMPTY).contains(micros, id)) {
+                rows.add(id, micros, rs.getLong(4));
+            }
+        }
+
+        void flush() {
+            if (rows.size > 0) {
+                merge(customerId, rows);
+                rows.size = 0;
+            }
+        }
+    }
+
+    /**
+     * Growable id, timestamp and amount columns, sorted by timestamp and id.
+     */
+    static final class ColumnBuilder {
+        private long[] ids;
+        private long[] micros;
+        private long[] cents;
+        private int size;
+
+        ColumnBuilder(int capacity) {
+            ids = new long[capacity];
+            micros = new long[capacity];
+            cents = new long[capacity];
+        }
+
+        void add(long id, long timestampMicros, long amountCents) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                micros = Arrays.copyOf(micros, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+            }
+            ids[size] = id;
+            micros[size] = timestampMicros;
+            cents[size] = amountCents;
+            size++;
+        }
+    }
+
+    /**
+     * One customer's transactions, sorted by timestamp and id. Never modified once built.
+     */
+    static final class Columns {
+        static final Columns EMPTY = new Columns(new long[0], new long[0], new long[0]);
+
+        final long[] ids;
+        final long[] micros;
+        final long[] cents;
+
+        private Columns(long[] ids, long[] micros, long[] cents) {
+            this.ids = ids;
+            this.micros = micros;
+            this.cents = cents;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        // First index at or after the timestamp
+        int indexOf(long timestampMicros) {
+            int low = 0;
+            int high = micros.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (micros[mid] < timestampMicros) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        boolean contains(long timestampMicros, long id) {
+            for (int i = indexOf(timestampMicros); i < micros.length && micros[i] == timestampMicros; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // First index after the timestamp
+        int indexAfter(long timestampMicros) {
+            return timestampMicros == Long.MAX_VALUE ? micros.length : indexOf(timestampMicros + 1);
+        }
+
+        Columns from(long timestampMicros) {
+            int from = indexOf(timestampMicros);
+            return from == 0 ? this : new Columns(Arrays.copyOfRange(ids, from, ids.length),
+                    Arrays.copyOfRange(micros, from, micros.length), Arrays.copyOfRange(cents, from, cents.length));
+        }
+
+        // Sorted union of both; a row present in both, matched by timestamp and id, is kept once
+        Columns merge(ColumnBuilder rows) {
+            int capacity = size() + rows.size;
+            long[] mergedIds = new long[capacity];
+            long[] mergedMicros = new long[capacity];
+            long[] mergedCents = new long[capacity];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < size() || j < rows.size) {
+                int order = i == size() ? 1 : j == rows.size ? -1 : compare(micros[i], ids[i], rows.micros[j], rows.ids[j]);
+                if (order <= 0) {
+                    mergedIds[n] = ids[i];
+                    mergedMicros[n] = micros[i];
+                    mergedCents[n] = cents[i];
+                    i++;
+                    if (order == 0) {
+                        j++;
+                    }
+                } else {
+                    mergedIds[n] = rows.ids[j];
+                    mergedMicros[n] = rows.micros[j];
+                    mergedCents[n] = rows.cents[j];
+                    j++;
+                }
+                n++;
+            }
+            return n == capacity ? new Columns(mergedIds, mergedMicros, mergedCents)
+                    : new Columns(Arrays.copyOf(mergedIds, n), Arrays.copyOf(mergedMicros, n), Arrays.copyOf(mergedCents, n));
+        }
+
+        private static int compare(long micros, long id, long otherMicros, long otherId) {
+            int order = Long.compare(micros, otherMicros);
+            return order != 0 ? order : Long.compare(id, otherId);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.homework.rewards.cache;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cache key of a reward summary. {@code version} is the customer's {@link CustomerCacheVersions}
+ * counter for the kind of period, open or closed, and {@code generation} the ledger generation.
+ */
+public record RewardCacheKey(Long customerId, LocalDateTime startDate, LocalDateTime endDate, long version,
+                             long generation) {
+}
@@ -0,0 +1,56 @@
+package com.homework.rewards.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decides where a reward summary is cached and under which key, for methods taking
+ * {@code (customerId, startDate, endDate)}.
+ * <p>
+ * A period that ended before the current month is closed: only late writes dated inside it or a
+ * ledger rebuild can change its summary, so it goes to the long-lived closed cache. Anything
+ * reaching into the current month goes to the short-lived open cache. Both are keyed with the
+ * customer's {@link CustomerCacheVersions write versions}, so a stored transaction that may change
+ * a summary makes the old entry unreachable. Versions are kept per instance; writes made through
+ * another instance are only seen once an entry expires.
+ */
+@RequiredArgsConstructor
+public class RewardCachePolicy implements CacheResolver, KeyGenerator {
+
+    public static final String CLOSED_PERIODS = "rewardSummaries.closed";
+    public static final String OPEN_PERIODS = "rewardSummaries.open";
+
+    private final CacheManager cacheManager;
+    private final CustomerCacheVersions versions;
+    private final Clock clock;
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        Object[] args = context.getArgs();
+        String name = isClosed((LocalDateTime) args[2]) ? CLOSED_PERIODS : OPEN_PERIODS;
+        return List.of(cacheManager.getCache(name));
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Long customerId = (Long) params[0];
+        LocalDateTime endDate = (LocalDateTime) params[2];
+        long version = isClosed(endDate) ? versions.closed(customerId) : versions.current(customerId);
+        return new RewardCacheKey(customerId, (LocalDateTime) params[1], endDate, version, versions.generation());
+    }
+
+    boolean isClosed(LocalDateTime endDate) {
+        return endDate != null && endDate.isBefore(YearMonth.now(clock).atDay(1).atStartOfDay());
+    }
+}
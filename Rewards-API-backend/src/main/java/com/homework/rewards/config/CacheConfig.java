@@ -0,0 +1,46 @@
+package com.homework.rewards.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.cache.RewardCachePolicy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Caffeine caches for reward summaries, switched with {@code rewards.cache.enabled}. Caches
+ * record statistics, which Actuator publishes as {@code cache.gets}, {@code cache.puts} and
+ * {@code cache.evictions} metrics.
+ */
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(prefix = "rewards.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(RewardProperties rewardProperties) {
+        RewardProperties.Cache properties = rewardProperties.getCache();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RewardCachePolicy.CLOSED_PERIODS, Caffeine.newBuilder()
+                .maximumSize(properties.getClosedMaximumSize())
+                .expireAfterWrite(properties.getClosedExpireAfterWrite())
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(RewardCachePolicy.OPEN_PERIODS, Caffeine.newBuilder()
+                .maximumSize(properties.getOpenMaximumSize())
+                .expireAfterWrite(properties.getOpenExpireAfterWrite())
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    @Bean
+    public RewardCachePolicy rewardCachePolicy(CacheManager cacheManager, CustomerCacheVersions versions, Clock clock) {
+        return new RewardCachePolicy(cacheManager, versions, clock);
+    }
+}
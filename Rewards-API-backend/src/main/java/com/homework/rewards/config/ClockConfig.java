@@ -0,0 +1,16 @@
+package com.homework.rewards.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class ClockConfig {
+
+    // Injected wherever "now" decides behavior, so tests can pin it
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
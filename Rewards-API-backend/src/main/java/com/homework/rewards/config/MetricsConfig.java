@@ -0,0 +1,53 @@
+package com.homework.rewards.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.rewards.metrics.InstrumentedJsonMessageConverter;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.metrics.SlowQueryLogListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+
+/**
+ * Reward request metrics beyond what Actuator records on its own. Hibernate statistics and
+ * Hikari pool metrics are bound by Actuator; see application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Replaces Boot's JSON converter, keeping its ObjectMapper
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   RewardMetrics rewardMetrics) {
+        return new InstrumentedJsonMessageConverter(objectMapper, rewardMetrics);
+    }
+
+    /**
+     * Wraps the DataSource so every statement, from Hibernate or JdbcTemplate, passes the slow
+     * query log. Static and bound straight from the Environment, so creating it does not
+     * initialize other beans before post-processing is in place.
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryLogDataSourceWrapper(Environment environment) {
+        RewardProperties.SqlLog sqlLog = Binder.get(environment)
+                .bindOrCreate("rewards.sql-log", RewardProperties.SqlLog.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!sqlLog.isEnabled() || !(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new SlowQueryLogListener(sqlLog.getSlowThreshold(), sqlLog.getSampleRate()))
+                        .build();
+            }
+        };
+    }
+}
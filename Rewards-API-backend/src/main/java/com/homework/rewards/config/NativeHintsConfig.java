@@ -0,0 +1,51 @@
+package com.homework.rewards.config;
+
+import com.homework.rewards.dto.BatchRewardRequest;
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.dto.RewardBalance;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.dto.StatementRunProgress;
+import com.homework.rewards.dto.StatementRunRequest;
+import com.homework.rewards.dto.TransactionPage;
+import com.homework.rewards.entity.Customer;
+import com.homework.rewards.entity.Transaction;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * What the AOT build cannot find on its own for the GraalVM native image. Entities and
+ * repositories are registered by Spring Data's AOT processing, and controller return types by
+ * Spring MVC's; the types here are also read or written by Jackson outside a controller
+ * signature, such as in NDJSON streams, bulk uploads and balance events.
+ */
+@Configuration(proxyBeanMethods = false)
+@RegisterReflectionForBinding({Transaction.class, Customer.class, RewardResponse.class, RewardBalance.class,
+        TransactionPage.class, IngestResult.class, BatchRewardRequest.class, StatementRunRequest.class,
+        StatementRunProgress.class})
+@ImportRuntimeHints(NativeHintsConfig.RewardRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class RewardRuntimeHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Boot registers db/migration; the vendor-specific migrations are found by this pattern
+            hints.resources().registerPattern("db/vendor/*/*.sql");
+            // JDK proxies the slow query log wraps around every JDBC object
+            for (Class<?> jdbcType : new Class<?>[]{DataSource.class, Connection.class, Statement.class,
+                    PreparedStatement.class, CallableStatement.class, ResultSet.class}) {
+                hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbcType);
+            }
+        }
+    }
+}
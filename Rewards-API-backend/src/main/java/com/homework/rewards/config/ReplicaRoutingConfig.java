@@ -0,0 +1,72 @@
+package com.homework.rewards.config;
+
+import com.homework.rewards.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces Boot's DataSource with a {@link ReplicaRoutingDataSource} when
+ * {@code rewards.replicas.enabled} is set. The primary pool is still configured by
+ * {@code spring.datasource.*}, including {@code spring.datasource.hikari.*}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rewards.replicas", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    // The only DataSource bean, so Flyway, JPA, JdbcTemplate and the slow query log all go through it
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, Environment environment,
+                                 RewardProperties rewardProperties, Clock clock) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        RewardProperties.Replicas properties = rewardProperties.getReplicas();
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            String name = "replica-" + i;
+            replicas.add(new ReplicaRoutingDataSource.Replica(name,
+                    replicaPool(name, properties.getNodes().get(i), properties, dataSourceProperties)));
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas, properties, clock);
+    }
+
+    // Once Flyway has created the heartbeat table; until then every read goes to the primary
+    @EventListener(ApplicationReadyEvent.class)
+    public void startHeartbeat(ApplicationReadyEvent event) throws SQLException {
+        event.getApplicationContext().getBean(DataSource.class).unwrap(ReplicaRoutingDataSource.class).start();
+    }
+
+    private static HikariDataSource replicaPool(String name, RewardProperties.Node node, RewardProperties.Replicas properties,
+                                                DataSourceProperties primary) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(node.getUrl());
+        pool.setDriverClassName(primary.determineDriverClassName());
+        pool.setUsername(node.getUsername() != null ? node.getUsername() : primary.determineUsername());
+        pool.setPassword(node.getPassword() != null ? node.getPassword() : primary.determinePassword());
+        pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+        pool.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        pool.setReadOnly(true);
+        // Start even if the replica is down; the heartbeat keeps reads away from it until it answers
+        pool.setInitializationFailTimeout(-1);
+        return pool;
+    }
+}
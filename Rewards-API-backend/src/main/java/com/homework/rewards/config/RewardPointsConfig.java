@@ -0,0 +1,22 @@
+package com.homework.rewards.config;
+
+import com.homework.rewards.migration.V3_1__RebuildRoundedLedgerMonths;
+import com.homework.rewards.service.RewardPointsTable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RewardPointsConfig {
+
+    // Built once from rewards.points.tiers; a bad tier list fails startup
+    @Bean
+    public RewardPointsTable rewardPointsTable(RewardProperties rewardProperties) {
+        return new RewardPointsTable(rewardProperties.getPoints().getTiers());
+    }
+
+    // Flyway receives Java migration beans; this one needs the tiers to score the months it rebuilds
+    @Bean
+    public V3_1__RebuildRoundedLedgerMonths rebuildRoundedLedgerMonths(RewardPointsTable rewardPointsTable) {
+        return new V3_1__RebuildRoundedLedgerMonths(rewardPointsTable);
+    }
+}
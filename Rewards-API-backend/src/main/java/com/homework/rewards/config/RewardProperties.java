@@ -0,0 +1,199 @@
+package com.homework.rewards.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tunables under the {@code rewards.*} prefix.
+ */
+@Data
+@ConfigurationProperties(prefix = "rewards")
+public class RewardProperties {
+
+    private Batch batch = new Batch();
+    private Periods periods = new Periods();
+    private Ledger ledger = new Ledger();
+    private Cache cache = new Cache();
+    private Ingest ingest = new Ingest();
+    private Points points = new Points();
+    private Statements statements = new Statements();
+    private SqlLog sqlLog = new SqlLog();
+    private Replicas replicas = new Replicas();
+    private Partitions partitions = new Partitions();
+    private HotTier hotTier = new HotTier();
+    private Export export = new Export();
+    private Balances balances = new Balances();
+
+    @Data
+    public static class Batch {
+        // Customers aggregated per database round trip by the batch endpoint
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class Periods {
+        // Limits of one multi-period request, which is answered by a single scan
+        private int maxCustomers = 1_000;
+        private int maxPeriods = 100;
+        // Rows per round trip of the scan's read cursor
+        private int fetchSize = 1_000;
+    }
+
+    @Data
+    public static class Ledger {
+        // Answer whole months from the monthly summary ledger instead of raw transactions
+        private boolean enabled = false;
+        // Rebuild the ledger from the transaction table when the application starts
+        private boolean backfillOnStartup = false;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        // Periods that ended before the current month, invalidated by writes dated before the current month.
+        // Entries expire after a fixed time, which bounds how long writes made through other instances go unseen
+        private long closedMaximumSize = 100_000;
+        private Duration closedExpireAfterWrite = Duration.ofHours(1);
+        // Periods touching the current month, invalidated by every new transaction of the customer
+        private long openMaximumSize = 20_000;
+        private Duration openExpireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Ingest {
+        // Rows committed per database transaction by the bulk endpoint
+        private int chunkSize = 10_000;
+        // Rows per JDBC batch; MySQL folds each batch into one multi-row INSERT with rewriteBatchedStatements
+        private int jdbcBatchSize = 1_000;
+    }
+
+    @Data
+    public static class Statements {
+        // Partitions computed at once; each holds one pooled connection while it runs
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        // Customers per partition, taken in id order, the unit of progress and restart
+        private long partitionSize = 1_000;
+        // Rows per round trip of the partition's read cursor
+        private int fetchSize = 1_000;
+    }
+
+    @Data
+    public static class SqlLog {
+        // Replaces spring.jpa.show-sql, which printed every statement
+        private boolean enabled = true;
+        // Statements running at least this long are logged at WARN
+        private Duration slowThreshold = Duration.ofMillis(200);
+        // Share of the faster statements logged at INFO, e.g. 0.01 for 1%
+        private double sampleRate = 0;
+    }
+
+    @Data
+    public static class Replicas {
+        // Route read-only transactions to the nodes below; writes and migrations stay on spring.datasource
+        private boolean enabled = false;
+        private List<Node> nodes = new ArrayList<>();
+        private Strategy strategy = Strategy.ROUND_ROBIN;
+        // Per replica pool; a short timeout lets a read fall back to the primary quickly
+        private int maximumPoolSize = 20;
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+        // How often the heartbeat is written on the primary and read back from every replica
+        private Duration checkInterval = Duration.ofSeconds(1);
+        // Staleness a read may see; reads reaching into the current month, or of an unknown period, get the tighter bound
+        private Duration maxLag = Duration.ofSeconds(30);
+        private Duration currentMonthMaxLag = Duration.ofSeconds(2);
+
+        public enum Strategy {
+            ROUND_ROBIN,
+            // Fewest connections in use
+            LEAST_LOADED
+        }
+    }
+
+    @Data
+    public static class Partitions {
+        // Monthly partition maintenance of the transaction table; MySQL only, a no-op elsewhere
+        private boolean enabled = true;
+        private String cron = "0 30 1 * * *";
+        // Months after the current one that always have their own partition
+        private int monthsAhead = 3;
+        // Months older than this are folded into the ledger and moved to archive tables; 0 keeps all
+        private int retentionMonths = 0;
+        // How long an instance trusts its view of the archived months; rows move twice this after being marked
+        private Duration archiveRefresh = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class HotTier {
+        // Hold recent transactions in memory and answer periods inside the window without the database
+        private boolean enabled = false;
+        // Months held, counting the current one; 3 holds the current and the two previous months
+        private int windowMonths = 3;
+        // About 24 bytes per transaction plus ~128 per customer; the tier turns itself off beyond this
+        private long maxTransactions = 5_000_000;
+        // Rows per round trip while loading at startup
+        private int fetchSize = 10_000;
+        // Drops months that left the window
+        private String evictCron = "0 5 0 * * *";
+        // Reads rows committed by other instances; "-" only sees this instance's writes
+        private String refreshCron = "*/5 * * * * *";
+        // Longest a write transaction may run; ids read earlier than this are read once more
+        private Duration refreshOverlap = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Export {
+        // Rows per transactions or statements frame; one frame of each is buffered while writing
+        private int blockRows = 65_536;
+        // Rows per round trip of the export's read cursor
+        private int fetchSize = 10_000;
+        // Where export files are written before they are downloaded; the system temp directory if unset
+        private String directory;
+    }
+
+    @Data
+    public static class Balances {
+        // Keep running point balances per customer from recorded transactions and stream their changes
+        private boolean enabled = false;
+        // Transactions queued for the balance updater, rounded up to a power of two; writers wait while it is full
+        private int ringCapacity = 65_536;
+        // Open /api/balances/stream connections; further subscriptions are refused with 503
+        private int maxSubscribers = 1_000;
+        // Streams are closed after this long; clients reconnect and receive the current balance first
+        private Duration streamTimeout = Duration.ofMinutes(30);
+        // Reads transactions committed by other instances; "-" only counts this instance's writes
+        private String refreshCron = "*/5 * * * * *";
+        // Longest a write transaction may run; the load waits this long after startup, and ids read earlier are read once more
+        private Duration refreshOverlap = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Node {
+        private String url;
+        // Default to spring.datasource.username and password
+        private String username;
+        private String password;
+    }
+
+    @Data
+    public static class Points {
+        // Marginal tiers: every dollar above a tier's threshold, up to the next threshold, earns its rate
+        private List<Tier> tiers = new ArrayList<>(List.of(
+                new Tier(new BigDecimal("50"), 1),
+                new Tier(new BigDecimal("100"), 2)));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tier {
+        private BigDecimal above;
+        private int pointsPerDollar;
+    }
+}
@@ -0,0 +1,10 @@
+package com.homework.rewards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Runs @Scheduled maintenance such as TransactionPartitionMaintenanceJob
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
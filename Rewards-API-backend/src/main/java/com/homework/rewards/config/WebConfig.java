@@ -1,10 +1,15 @@
 package com.homework.rewards.config;
 
+import com.homework.rewards.export.RewardColumnarMessageConverter;
+import com.homework.rewards.metrics.RewardMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig {
 
@@ -21,4 +26,15 @@ public class WebConfig {
             }
         };
     }
+
+    // Appended rather than declared as a converter bean, which Boot would put ahead of JSON
+    @Bean
+    public WebMvcConfigurer columnarConverterConfigurer(RewardMetrics rewardMetrics) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(new RewardColumnarMessageConverter(rewardMetrics));
+            }
+        };
+    }
 }
@@ -0,0 +1,37 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.balance.RewardBalances;
+import com.homework.rewards.dto.RewardBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Running point balances, served when {@code rewards.balances.enabled} is set. Both endpoints
+ * answer 503 while the balances load at startup.
+ */
+@RestController
+@RequestMapping("/api/balances")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rewards.balances", name = "enabled", havingValue = "true")
+public class RewardBalanceController {
+
+    private final RewardBalances rewardBalances;
+
+    @GetMapping("/{customerId}")
+    public RewardBalance getBalance(@PathVariable Long customerId) {
+        return rewardBalances.balance(customerId);
+    }
+
+    /**
+     * Server-sent {@code balance} events with the new balance of each changed customer, of one
+     * customer if {@code customerId} is given. Changes that arrive faster than the client reads
+     * are merged into the latest balance.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBalances(@RequestParam(required = false) Long customerId) {
+        return rewardBalances.subscribe(customerId);
+    }
+}
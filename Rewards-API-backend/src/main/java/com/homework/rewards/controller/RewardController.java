@@ -1,12 +1,34 @@
 package com.homework.rewards.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.rewards.dto.BatchRewardRequest;
+import com.homework.rewards.dto.PeriodRewardRequest;
+import com.homework.rewards.dto.PeriodRewardResponse;
 import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.dto.TransactionPage;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.service.BatchRewardService;
+import com.homework.rewards.service.PeriodRewardService;
+import com.homework.rewards.service.RewardLedgerService;
 import com.homework.rewards.service.RewardService;
+import com.homework.rewards.service.TransactionDetailService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/rewards")
@@ -14,21 +36,142 @@ import java.time.LocalDateTime;
 public class RewardController {
 
     private final RewardService rewardService;
+    private final BatchRewardService batchRewardService;
+    private final PeriodRewardService periodRewardService;
+    private final TransactionDetailService transactionDetailService;
+    private final ObjectMapper objectMapper;
+    // The scheduler behind @Scheduled jobs is an AsyncTaskExecutor too
+    @Qualifier("applicationTaskExecutor")
+    private final AsyncTaskExecutor taskExecutor;
+    private final RewardMetrics rewardMetrics;
 
     @GetMapping
     public RewardResponse getRewards(@RequestParam Long customerId,
                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        return rewardService.calculateRewards(customerId, startDate, endDate);
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                     @RequestParam(defaultValue = "false") boolean includeTransactions) {
+        return rewards(customerId, startDate, endDate, includeTransactions);
     }
 
     @GetMapping("/{year}/{month}")
     public RewardResponse getRewardsByMonth(
             @PathVariable int year,
             @PathVariable int month,
-            @RequestParam Long customerId) {
+            @RequestParam Long customerId,
+            @RequestParam(defaultValue = "false") boolean includeTransactions) {
+        return monthlyRewards(customerId, year, month, includeTransactions);
+    }
+
+    /**
+     * {@link #getRewards} computed on the application task executor, so the Tomcat thread is
+     * released while the repository call blocks. Times out with 503 after
+     * {@code spring.mvc.async.request-timeout}.
+     */
+    @GetMapping("/async")
+    public CompletableFuture<RewardResponse> getRewardsAsync(
+            @RequestParam Long customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean includeTransactions) {
+        return CompletableFuture.supplyAsync(() -> rewards(customerId, startDate, endDate, includeTransactions), taskExecutor);
+    }
+
+    /**
+     * {@link #getRewardsByMonth} completed from the application task executor.
+     */
+    @GetMapping("/{year}/{month}/async")
+    public DeferredResult<RewardResponse> getRewardsByMonthAsync(
+            @PathVariable int year,
+            @PathVariable int month,
+            @RequestParam Long customerId,
+            @RequestParam(defaultValue = "false") boolean includeTransactions) {
+        DeferredResult<RewardResponse> result = new DeferredResult<>();
+        taskExecutor.execute(() -> {
+            try {
+                result.setResult(monthlyRewards(customerId, year, month, includeTransactions));
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Summaries for many customers, written as newline-delimited JSON (one customer per line)
+     * while later chunks are still being aggregated.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRewardsBatch(@RequestBody BatchRewardRequest request) {
+        batchRewardService.validate(request.getCustomerIds(), request.getStartDate(), request.getEndDate());
+
+        StreamingResponseBody body = out -> batchRewardService.streamRewardSummaries(
+                request.getCustomerIds(), request.getStartDate(), request.getEndDate(), response -> writeSummaryLine(out, response));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Points of one or more customers for each of a list of periods, which may overlap, read with
+     * a single query over the range they span.
+     */
+    @PostMapping("/periods")
+    public List<PeriodRewardResponse> getPeriodRewards(@RequestBody PeriodRewardRequest request) {
+        return periodRewardService.calculatePeriodRewards(request.getCustomerIds(), request.getPeriods());
+    }
+
+    /**
+     * Keyset-paginated transaction detail; follow {@code nextCursor} until it is null.
+     */
+    @GetMapping("/transactions")
+    public TransactionPage getTransactions(@RequestParam Long customerId,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        return transactionDetailService.findPage(customerId, startDate, endDate, cursor, limit);
+    }
+
+    /**
+     * All transaction detail for the range as newline-delimited JSON, written row by row while the
+     * database cursor is read.
+     */
+    @GetMapping(value = "/transactions/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @RequestParam Long customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        transactionDetailService.validate(customerId, startDate, endDate);
+
+        StreamingResponseBody body = out -> transactionDetailService.streamTransactions(
+                customerId, startDate, endDate, transaction -> writeLine(out, transaction));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeSummaryLine(OutputStream out, RewardResponse response) {
+        long started = System.nanoTime();
+        long bytes = writeLine(out, response);
+        rewardMetrics.serialized(RewardMetrics.REWARDS_BATCH, System.nanoTime() - started, bytes);
+    }
+
+    private long writeLine(OutputStream out, Object value) {
+        try {
+            byte[] line = objectMapper.writeValueAsBytes(value);
+            out.write(line);
+            out.write('\n');
+            return line.length + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RewardResponse monthlyRewards(Long customerId, int year, int month, boolean includeTransactions) {
         LocalDateTime startDate = LocalDateTime.of(year, month, 1, 0, 0);
-        LocalDateTime endDate = startDate.plusMonths(1).minusSeconds(1);
-        return rewardService.calculateRewards(customerId, startDate, endDate);
+        LocalDateTime endDate = RewardLedgerService.endOfMonth(YearMonth.of(year, month));
+        return rewards(customerId, startDate, endDate, includeTransactions);
+    }
+
+    private RewardResponse rewards(Long customerId, LocalDateTime startDate, LocalDateTime endDate, boolean includeTransactions) {
+        return includeTransactions
+                ? rewardService.calculateRewards(customerId, startDate, endDate)
+                : rewardService.calculateRewardSummary(customerId, startDate, endDate);
     }
-}
\ No newline at end of file
+}
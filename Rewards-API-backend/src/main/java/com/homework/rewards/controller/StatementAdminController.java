@@ -0,0 +1,67 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.dto.StatementExport;
+import com.homework.rewards.dto.StatementRunProgress;
+import com.homework.rewards.dto.StatementRunRequest;
+import com.homework.rewards.export.ColumnarFormat;
+import com.homework.rewards.job.StatementRecalculationJob;
+import com.homework.rewards.service.StatementExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * Starts and monitors statement recalculation runs. Runs continue in the background; poll
+ * {@code GET /api/admin/statements/{runId}} for progress.
+ */
+@RestController
+@RequestMapping("/api/admin/statements")
+@RequiredArgsConstructor
+public class StatementAdminController {
+
+    private final StatementRecalculationJob statementRecalculationJob;
+    private final StatementExportService statementExportService;
+
+    @PostMapping
+    public ResponseEntity<StatementRunProgress> startRun(@RequestBody StatementRunRequest request) {
+        return ResponseEntity.accepted().body(statementRecalculationJob.start(request.getStartDate(), request.getEndDate()));
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<StatementRunProgress> getProgress(@PathVariable Long runId) {
+        return ResponseEntity.of(statementRecalculationJob.progress(runId));
+    }
+
+    /**
+     * Restarts a failed or interrupted run from its pending partitions.
+     */
+    @PostMapping("/{runId}/resume")
+    public ResponseEntity<StatementRunProgress> resumeRun(@PathVariable Long runId) {
+        return statementRecalculationJob.resume(runId)
+                .map(progress -> ResponseEntity.accepted().body(progress))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Monthly statements of all customers with their transactions for the period, as
+     * {@code application/vnd.rewards.columnar}. The file is written before the response starts.
+     */
+    @GetMapping(value = "/export", produces = ColumnarFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        StatementExport export = statementExportService.export(startDate, endDate);
+        return ResponseEntity.ok()
+                .contentType(ColumnarFormat.MEDIA_TYPE)
+                .contentLength(export.getBytes())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("rewards-" + startDate.toLocalDate() + "-" + endDate.toLocalDate() + ".rwc").build().toString())
+                .body(out -> statementExportService.transfer(export, out));
+    }
+}
@@ -0,0 +1,67 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.BulkIngestException;
+import com.homework.rewards.exception.InvalidTransactionException;
+import com.homework.rewards.service.BulkIngestService;
+import com.homework.rewards.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/transactions")
+@RequiredArgsConstructor
+public class TransactionController {
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final TransactionService transactionService;
+    private final BulkIngestService bulkIngestService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Transaction recordTransaction(@RequestBody Transaction transaction) {
+        return transactionService.record(transaction);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    @ResponseStatus(HttpStatus.CREATED)
+    public IngestResult ingestCsv(InputStream body,
+                                  @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String uploadKey,
+                                  @RequestParam(defaultValue = "0") long resumeAfterLine) {
+        return bulkIngestService.ingestCsv(body, uploadKey, resumeAfterLine);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public IngestResult ingestNdjson(InputStream body,
+                                     @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String uploadKey,
+                                     @RequestParam(defaultValue = "0") long resumeAfterLine) {
+        return bulkIngestService.ingestNdjson(body, uploadKey, resumeAfterLine);
+    }
+
+    // Tells the client how many lines are stored, so a retry can resume after them
+    @ExceptionHandler(BulkIngestException.class)
+    public ProblemDetail ingestFailed(BulkIngestException e) {
+        ProblemDetail problem;
+        if (e.getCause() instanceof InvalidTransactionException) {
+            problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        } else if (e.getCause() instanceof ArchivedPeriodException) {
+            problem = ProblemDetail.forStatusAndDetail(HttpStatus.GONE, e.getMessage());
+        } else if (e.getCause() instanceof OptimisticLockingFailureException) {
+            problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+        } else {
+            problem = ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "Upload failed.");
+        }
+        problem.setProperty("committedLines", e.getCommittedLines());
+        return problem;
+    }
+}
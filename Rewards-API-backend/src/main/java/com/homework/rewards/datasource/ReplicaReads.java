@@ -0,0 +1,59 @@
+package com.homework.rewards.datasource;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Tells {@link ReplicaRoutingDataSource} which period a read covers, so a read of closed months
+ * may be served by a replica that is further behind than a read of the current month, and which
+ * change the read must see, so a replica that has not received it yet is skipped.
+ */
+public final class ReplicaReads {
+
+    private static final ThreadLocal<Read> READ = new ThreadLocal<>();
+
+    private ReplicaReads() {
+    }
+
+    /**
+     * Runs {@code read}, which reads data up to {@code periodEnd}. Only takes effect if the read
+     * fetches the transaction's connection, i.e. issues its first statement.
+     */
+    public static <T> T upTo(LocalDateTime periodEnd, Supplier<T> read) {
+        return upTo(periodEnd, 0, read);
+    }
+
+    /**
+     * Like {@link #upTo(LocalDateTime, Supplier)}, for a read that must see the writes committed
+     * before {@code changedAtMillis}, a time on the clock that stamps the heartbeat. Only replicas
+     * that received a heartbeat stamped later may serve it.
+     */
+    public static <T> T upTo(LocalDateTime periodEnd, long changedAtMillis, Supplier<T> read) {
+        Read previous = READ.get();
+        READ.set(new Read(periodEnd, changedAtMillis));
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                READ.remove();
+            } else {
+                READ.set(previous);
+            }
+        }
+    }
+
+    // Null outside of upTo
+    static LocalDateTime periodEnd() {
+        Read read = READ.get();
+        return read == null ? null : read.periodEnd();
+    }
+
+    // 0 outside of upTo
+    static long changedAtMillis() {
+        Read read = READ.get();
+        return read == null ? 0 : read.changedAtMillis();
+    }
+
+    private record Read(LocalDateTime periodEnd, long changedAtMillis) {
+    }
+}
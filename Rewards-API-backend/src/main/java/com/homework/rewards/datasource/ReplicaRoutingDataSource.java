@@ -0,0 +1,201 @@
+package com.homework.rewards.datasource;
+
+import com.homework.rewards.config.RewardProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions to a replica and all others to the primary.
+ * <p>
+ * Like any {@link LazyConnectionDataSourceProxy}, the physical connection is only fetched at the
+ * first statement, once the transaction has marked it read-only. A replica serves the read if it
+ * is healthy and recent enough: {@code max-lag} behind for reads of closed months,
+ * {@code current-month-max-lag} for reads reaching into the current month or of a period not
+ * declared with {@link ReplicaReads}. A read that declares a change it must see, such as the
+ * customer's latest write, also needs a replica that has received a heartbeat written after it;
+ * until then it goes to the primary, so a result cached for the new state never holds the old
+ * one. Otherwise the read falls back to the primary.
+ * <p>
+ * Staleness is measured with a heartbeat row written on the primary every {@code check-interval}
+ * and read back from each replica, so it covers the whole replication path rather than what the
+ * replica reports about itself. The heartbeat is stamped with this process's clock, so clocks of
+ * several application instances should be kept in sync.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String READ_HEARTBEAT = "SELECT beat_millis FROM replication_heartbeat WHERE id = 1";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final RewardProperties.Replicas properties;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService heartbeat;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, RewardProperties.Replicas properties,
+                                    Clock clock) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.properties = properties;
+        this.clock = clock;
+        setReadOnlyDataSource(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return readConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return readConnection();
+            }
+        });
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-heartbeat-");
+        threadFactory.setDaemon(true);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Starts the heartbeat, once the heartbeat table exists. Until a replica's heartbeat has been
+     * read, reads go to the primary.
+     */
+    public void start() {
+        long interval = properties.getCheckInterval().toMillis();
+        heartbeat.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        heartbeat.shutdownNow();
+        replicas.forEach(replica -> replica.getDataSource().close());
+        if (primary instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    // Writes the heartbeat on the primary, then reads back what each replica has received
+    void checkReplicas() {
+        try {
+            new JdbcTemplate(primary).update(WRITE_HEARTBEAT, clock.millis());
+        } catch (RuntimeException e) {
+            log.warn("Could not write the replication heartbeat on the primary: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            try {
+                replica.healthy(new JdbcTemplate(replica.getDataSource()).queryForObject(READ_HEARTBEAT, Long.class));
+            } catch (RuntimeException e) {
+                replica.unhealthy(e);
+            }
+        }
+    }
+
+    private Connection readConnection() throws SQLException {
+        for (Replica replica : candidates(allowedLag(), ReplicaReads.changedAtMillis())) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                replica.unhealthy(e);
+            }
+        }
+        log.debug("No replica is healthy and recent enough, reading from the primary");
+        return primary.getConnection();
+    }
+
+    private Duration allowedLag() {
+        LocalDateTime periodEnd = ReplicaReads.periodEnd();
+        boolean closed = periodEnd != null && periodEnd.isBefore(YearMonth.now(clock).atDay(1).atStartOfDay());
+        return closed ? properties.getMaxLag() : properties.getCurrentMonthMaxLag();
+    }
+
+    // Replicas that may serve the read, in the order to try them
+    private List<Replica> candidates(Duration allowedLag, long changedAtMillis) {
+        long now = clock.millis();
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.lagMillis(now) <= allowedLag.toMillis() && replica.receivedAfter(changedAtMillis)) {
+                candidates.add(replica);
+            }
+        }
+        if (candidates.size() > 1) {
+            // Rotating first spreads ties between equally loaded replicas as well
+            Collections.rotate(candidates, -Math.floorMod(next.getAndIncrement(), candidates.size()));
+            if (properties.getStrategy() == RewardProperties.Replicas.Strategy.LEAST_LOADED) {
+                candidates.sort(Comparator.comparingInt(Replica::activeConnections));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * A replica's connection pool and the last heartbeat read from it.
+     */
+    public static final class Replica {
+        @Getter
+        private final String name;
+        @Getter
+        private final HikariDataSource dataSource;
+        // Unhealthy until its heartbeat has been read
+        private volatile boolean healthy;
+        private volatile long beatMillis;
+
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        // How far behind the primary the replica may be, or Long.MAX_VALUE if it must not be used
+        long lagMillis(long now) {
+            return healthy ? Math.max(0, now - beatMillis) : Long.MAX_VALUE;
+        }
+
+        // The heartbeat is stamped before it is written, so a later stamp was committed after the change
+        boolean receivedAfter(long changedAtMillis) {
+            return changedAtMillis == 0 || beatMillis > changedAtMillis;
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+
+        void healthy(long beatMillis) {
+            this.beatMillis = beatMillis;
+            if (!healthy) {
+                log.info("Replica {} is available for reads", name);
+                healthy = true;
+            }
+        }
+
+        void unhealthy(Exception e) {
+            if (healthy) {
+                log.warn("Replica {} is unavailable, its reads go to the primary: {}", name, e.getMessage());
+                healthy = false;
+            }
+        }
+    }
+}
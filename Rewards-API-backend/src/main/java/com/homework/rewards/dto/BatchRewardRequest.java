@@ -0,0 +1,17 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRewardRequest {
+    private List<Long> customerIds;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+}
@@ -0,0 +1,8 @@
+package com.homework.rewards.dto;
+
+/**
+ * A {@link MonthlyPointsRow} from a multi-customer aggregation, tagged with its customer.
+ */
+public interface CustomerMonthlyPointsRow extends MonthlyPointsRow {
+    Long getCustomerId();
+}
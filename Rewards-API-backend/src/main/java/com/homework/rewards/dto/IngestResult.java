@@ -0,0 +1,14 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class IngestResult {
+    private long rows;
+    private int chunks; // Each chunk is committed in its own database transaction
+    private long committedLines; // Input lines stored so far, including those skipped by a resumed upload
+    private long elapsedMillis;
+    private long rowsPerSecond;
+}
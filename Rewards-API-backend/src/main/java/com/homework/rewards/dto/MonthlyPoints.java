@@ -0,0 +1,16 @@
+package com.homework.rewards.dto;
+
+import lombok.Value;
+
+/**
+ * Row of an aggregation built outside Spring Data projections. customerId is null when the
+ * aggregation covers a single customer.
+ */
+@Value
+public class MonthlyPoints implements CustomerMonthlyPointsRow {
+    Long customerId;
+    Integer periodYear;
+    Integer periodMonth;
+    Long points;
+    Long transactionCount;
+}
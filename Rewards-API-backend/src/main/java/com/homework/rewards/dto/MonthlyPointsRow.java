@@ -0,0 +1,15 @@
+package com.homework.rewards.dto;
+
+/**
+ * One row of a database-side reward aggregation: the points earned and the number of
+ * transactions for a single calendar month.
+ */
+public interface MonthlyPointsRow {
+    Integer getPeriodYear();
+
+    Integer getPeriodMonth();
+
+    Long getPoints();
+
+    Long getTransactionCount();
+}
@@ -0,0 +1,16 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class PeriodPoints {
+    private String label;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private int points;
+    private long transactionCount;
+}
@@ -0,0 +1,15 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodRewardRequest {
+    private List<Long> customerIds;
+    private List<RewardPeriod> periods;
+}
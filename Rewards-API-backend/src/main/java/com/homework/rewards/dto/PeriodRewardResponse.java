@@ -0,0 +1,13 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PeriodRewardResponse {
+    private Long customerId;
+    private List<PeriodPoints> periods; // In request order
+}
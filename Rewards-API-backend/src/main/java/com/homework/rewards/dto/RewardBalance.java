@@ -0,0 +1,11 @@
+package com.homework.rewards.dto;
+
+import lombok.Value;
+
+// Points earned by all of a customer's transactions, as streamed by /api/balances
+@Value
+public class RewardBalance {
+    Long customerId;
+    long points;
+    long transactionCount;
+}
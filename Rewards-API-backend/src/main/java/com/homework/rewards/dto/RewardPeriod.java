@@ -0,0 +1,16 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RewardPeriod {
+    private String label; // Optional, echoed in the response
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+}
@@ -1,5 +1,6 @@
 package com.homework.rewards.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.homework.rewards.entity.Transaction;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,5 +14,6 @@ public class RewardResponse {
     private Long customerId;
     private Map<String, Integer> monthlyPoints; // Month-wise rewards
     private int totalPoints; // Total points
-    private List<Transaction> transactions; // Transaction details
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Transaction> transactions; // Transaction details, null for summaries
 }
\ No newline at end of file
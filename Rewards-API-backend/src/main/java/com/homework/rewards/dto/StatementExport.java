@@ -0,0 +1,17 @@
+package com.homework.rewards.dto;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * A statement export written by {@code StatementExportService}, ready to be downloaded.
+ */
+@Value
+public class StatementExport {
+    Path file;
+    long transactions;
+    long statements;
+    long bytes;
+    long elapsedMillis;
+}
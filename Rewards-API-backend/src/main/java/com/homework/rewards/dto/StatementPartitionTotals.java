@@ -0,0 +1,12 @@
+package com.homework.rewards.dto;
+
+/**
+ * Partitions of a statement run in one status, with the customers and transactions they covered.
+ */
+public interface StatementPartitionTotals {
+    Long getPartitions();
+
+    Long getCustomers();
+
+    Long getTransactions();
+}
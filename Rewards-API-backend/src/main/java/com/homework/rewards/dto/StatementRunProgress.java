@@ -0,0 +1,22 @@
+package com.homework.rewards.dto;
+
+import com.homework.rewards.entity.StatementRun;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class StatementRunProgress {
+    private Long runId;
+    private StatementRun.Status status;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private int partitions;
+    private long completedPartitions;
+    private long customers; // Customers with transactions in the completed partitions
+    private long transactions;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
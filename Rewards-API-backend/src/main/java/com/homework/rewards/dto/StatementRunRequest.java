@@ -0,0 +1,15 @@
+package com.homework.rewards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementRunRequest {
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+}
@@ -0,0 +1,14 @@
+package com.homework.rewards.dto;
+
+import com.homework.rewards.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionPage {
+    private List<Transaction> transactions; // Ordered by timestamp, then id
+    private String nextCursor; // Pass back as cursor for the next page, null on the last page
+}
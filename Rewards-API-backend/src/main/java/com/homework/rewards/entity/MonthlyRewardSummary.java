@@ -0,0 +1,36 @@
+package com.homework.rewards.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Points and transaction count of one customer for one calendar month, kept in step with the
+ * {@link Transaction} table so closed months never have to be recomputed from raw rows.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_monthly_reward_summary_customer_period",
+        columnNames = {"customer_id", "period_year", "period_month"}))
+public class MonthlyRewardSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "period_year")
+    private Integer periodYear;
+
+    @Column(name = "period_month")
+    private Integer periodMonth;
+
+    private Long points;
+    private Long transactionCount;
+}
@@ -0,0 +1,39 @@
+package com.homework.rewards.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Points and transaction count of one customer for one calendar month, as computed by a
+ * {@link StatementRun}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_reward_statement_run_customer_period",
+        columnNames = {"run_id", "customer_id", "period_year", "period_month"}))
+public class RewardStatement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "period_year")
+    private Integer periodYear;
+
+    @Column(name = "period_month")
+    private Integer periodMonth;
+
+    private Long points;
+    private Long transactionCount;
+}
@@ -0,0 +1,49 @@
+package com.homework.rewards.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * The customers {@code fromCustomerId..toCustomerId} (inclusive) of a {@link StatementRun}.
+ * Becomes COMPLETED in the same database transaction that writes its statements.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_statement_partition_run_number",
+        columnNames = {"run_id", "partition_number"}))
+public class StatementPartition {
+
+    public enum Status {
+        PENDING, COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Column(name = "partition_number")
+    private Integer partitionNumber;
+
+    private Long fromCustomerId;
+    private Long toCustomerId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    private Status status;
+
+    private Long customerCount;
+    private Long transactionCount;
+    private LocalDateTime completedAt;
+}
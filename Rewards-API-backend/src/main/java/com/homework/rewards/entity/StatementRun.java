@@ -0,0 +1,42 @@
+package com.homework.rewards.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * One recalculation of reward statements for every customer over a period. The work is split
+ * into {@link StatementPartition}s of {@code partitionSize} customers with transactions.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementRun {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDateTime periodStart;
+    private LocalDateTime periodEnd;
+
+    // VARCHAR rather than the native MySQL ENUM Hibernate would otherwise validate against
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    private Status status;
+
+    private Long partitionSize;
+    private Integer partitionCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,22 @@
+package com.homework.rewards.entity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * {@link Transaction} timestamps as epoch microseconds of the local date-time, the precision they
+ * are stored with, for code that holds or writes them as plain {@code long}s.
+ */
+public final class TimestampMicros {
+
+    private TimestampMicros() {
+    }
+
+    public static long of(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime toLocalDateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
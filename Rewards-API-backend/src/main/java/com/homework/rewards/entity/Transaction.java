@@ -1,11 +1,15 @@
 package com.homework.rewards.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_transaction_customer_timestamp", columnList = "customer_id, timestamp, amount_cents"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +21,29 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(name = "customer_id")
     private Long customerId;
-    private Double amount;
+
+    // Stored in whole cents; the JSON "amount" is the decimal dollar value
+    @JsonIgnore
+    @Column(name = "amount_cents")
+    private Long amountCents;
+
+    @Column(name = "timestamp")
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+
+    @JsonProperty("amount")
+    public BigDecimal getAmount() {
+        return amountCents == null ? null : BigDecimal.valueOf(amountCents, 2);
+    }
+
+    @JsonProperty("amount")
+    public void setAmount(BigDecimal amount) {
+        amountCents = amount == null ? null : toCents(amount);
+    }
+
+    // Rejects amounts with fractions of a cent
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,10 @@
+package com.homework.rewards.event;
+
+import java.time.YearMonth;
+
+/**
+ * Published when ledger rows are recomputed from the {@code transaction} table, for one month or,
+ * with a null {@code month}, all of them. Summaries derived from the old rows may differ.
+ */
+public record RewardLedgerRebuiltEvent(YearMonth month) {
+}
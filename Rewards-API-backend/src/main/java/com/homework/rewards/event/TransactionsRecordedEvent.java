@@ -0,0 +1,12 @@
+package com.homework.rewards.event;
+
+import com.homework.rewards.entity.Transaction;
+
+import java.util.List;
+
+/**
+ * Published by the write path for every batch of transactions it stores. Listeners that keep
+ * derived state (caches, in-memory views) should react after the surrounding commit.
+ */
+public record TransactionsRecordedEvent(List<Transaction> transactions) {
+}
@@ -0,0 +1,12 @@
+package com.homework.rewards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// A period reaching into months whose transactions were moved out of the transaction table
+@ResponseStatus(HttpStatus.GONE)
+public class ArchivedPeriodException extends RuntimeException {
+    public ArchivedPeriodException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.homework.rewards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Balances are still loading, or no more subscribers are accepted
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BalancesUnavailableException extends RuntimeException {
+    public BalancesUnavailableException(String message) {
+        super(message);
+    }
+}
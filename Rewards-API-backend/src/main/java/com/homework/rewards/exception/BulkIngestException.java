@@ -0,0 +1,14 @@
+package com.homework.rewards.exception;
+
+import lombok.Getter;
+
+// A bulk upload that stopped part way; the lines up to committedLines are stored and are skipped on retry
+@Getter
+public class BulkIngestException extends RuntimeException {
+    private final long committedLines;
+
+    public BulkIngestException(long committedLines, RuntimeException cause) {
+        super(cause.getMessage(), cause);
+        this.committedLines = committedLines;
+    }
+}
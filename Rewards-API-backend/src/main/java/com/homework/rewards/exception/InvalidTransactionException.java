@@ -0,0 +1,15 @@
+package com.homework.rewards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidTransactionException extends RuntimeException {
+    public InvalidTransactionException(String message) {
+        super(message);
+    }
+
+    public InvalidTransactionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.homework.rewards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// A statement run that cannot be started or resumed in its current state
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StatementRunException extends RuntimeException {
+    public StatementRunException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,46 @@
+package com.homework.rewards.export;
+
+import java.util.Arrays;
+
+/**
+ * Rows of one {@code T} or {@code S} frame, held as four growable {@code long} columns. The
+ * first column is always the customer id; see {@link ColumnarFormat} for the others.
+ */
+public final class ColumnBlock {
+
+    static final int COLUMNS = 4;
+
+    private final long[][] columns = new long[COLUMNS][];
+    private int size;
+
+    public ColumnBlock(int capacity) {
+        for (int column = 0; column < COLUMNS; column++) {
+            columns[column] = new long[Math.max(capacity, 1)];
+        }
+    }
+
+    public void add(long customerId, long second, long third, long fourth) {
+        if (size == columns[0].length) {
+            for (int column = 0; column < COLUMNS; column++) {
+                columns[column] = Arrays.copyOf(columns[column], size * 2);
+            }
+        }
+        columns[0][size] = customerId;
+        columns[1][size] = second;
+        columns[2][size] = third;
+        columns[3][size] = fourth;
+        size++;
+    }
+
+    public long get(int column, int row) {
+        return columns[column][row];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.homework.rewards.export;
+
+import com.homework.rewards.entity.TimestampMicros;
+import org.springframework.http.MediaType;
+
+/**
+ * Binary layout of {@code application/vnd.rewards.columnar}, used for reward responses and for
+ * statement exports.
+ * <p>
+ * A stream starts with the four bytes {@code R W C 1} and continues with frames. A frame is a
+ * one-byte tag, its body length as a big-endian {@code int}, and the body, so a reader can skip
+ * frames it does not know. Integers in bodies are LEB128 varints, signed ones zigzag-encoded.
+ * <ul>
+ *     <li>{@code R}, a reward response: customer id, total points, number of months, then month
+ *     (1-12, one byte) and points per month.</li>
+ *     <li>{@code T}, transactions: row count, then the customer id, id, timestamp (epoch
+ *     microseconds of the local date-time, see {@link TimestampMicros}) and amount in cents
+ *     columns one after the other.</li>
+ *     <li>{@code S}, monthly statements: row count, then the customer id, month
+ *     ({@code year * 12 + month - 1}), points and transaction count columns.</li>
+ *     <li>{@code E}, end of an export: total transactions and statements written.</li>
+ * </ul>
+ * Customer ids are stored as runs of (delta, length), ids, timestamps and months as deltas from
+ * the previous row, and the other columns as plain varints. Deltas restart in every frame.
+ */
+public final class ColumnarFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.rewards.columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    static final byte[] MAGIC = {'R', 'W', 'C', 1};
+    static final byte RESPONSE = 'R';
+    static final byte TRANSACTIONS = 'T';
+    static final byte STATEMENTS = 'S';
+    static final byte END = 'E';
+
+    enum Encoding {
+        RUNS,
+        DELTA,
+        PLAIN
+    }
+
+    static final Encoding[] TRANSACTION_COLUMNS = {Encoding.RUNS, Encoding.DELTA, Encoding.DELTA, Encoding.PLAIN};
+    static final Encoding[] STATEMENT_COLUMNS = {Encoding.RUNS, Encoding.DELTA, Encoding.PLAIN, Encoding.PLAIN};
+
+    private ColumnarFormat() {
+    }
+
+    public static long monthIndex(int year, int month) {
+        return year * 12L + month - 1;
+    }
+}
@@ -0,0 +1,161 @@
+package com.homework.rewards.export;
+
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.TimestampMicros;
+import com.homework.rewards.entity.Transaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Month;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes {@link ColumnarFormat} frames to a channel, such as a {@link java.nio.channels.FileChannel}
+ * or a response body wrapped with {@link java.nio.channels.Channels#newChannel}. Each frame body
+ * is encoded into one reused buffer, which is written once it is complete and its length known.
+ * Not thread-safe.
+ */
+public final class ColumnarWriter {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(5);
+    private ByteBuffer body = ByteBuffer.allocate(1 << 16);
+    private long bytesWritten;
+
+    public ColumnarWriter(WritableByteChannel channel) throws IOException {
+        this.channel = channel;
+        write(ByteBuffer.wrap(ColumnarFormat.MAGIC));
+    }
+
+    /**
+     * Writes an {@code R} frame and, if the response lists its transactions, a {@code T} frame.
+     */
+    public void writeResponse(RewardResponse response) throws IOException {
+        Map<String, Integer> monthlyPoints = response.getMonthlyPoints();
+        putZigZag(response.getCustomerId());
+        putZigZag(response.getTotalPoints());
+        putVarLong(monthlyPoints.size());
+        for (Map.Entry<String, Integer> month : monthlyPoints.entrySet()) {
+            ensure(1);
+            body.put((byte) Month.valueOf(month.getKey().toUpperCase(Locale.ROOT)).getValue());
+            putZigZag(month.getValue());
+        }
+        writeFrame(ColumnarFormat.RESPONSE);
+
+        List<Transaction> transactions = response.getTransactions();
+        if (transactions != null) {
+            ColumnBlock block = new ColumnBlock(transactions.size());
+            for (Transaction transaction : transactions) {
+                block.add(transaction.getCustomerId(), transaction.getId(),
+                        TimestampMicros.of(transaction.getTimestamp()), transaction.getAmountCents());
+            }
+            writeTransactions(block);
+        }
+    }
+
+    // Columns: customer id, id, epoch microseconds, amount in cents
+    public void writeTransactions(ColumnBlock block) throws IOException {
+        writeColumns(ColumnarFormat.TRANSACTIONS, ColumnarFormat.TRANSACTION_COLUMNS, block);
+    }
+
+    // Columns: customer id, month index, points, transaction count
+    public void writeStatements(ColumnBlock block) throws IOException {
+        writeColumns(ColumnarFormat.STATEMENTS, ColumnarFormat.STATEMENT_COLUMNS, block);
+    }
+
+    public void writeEnd(long transactions, long statements) throws IOException {
+        putVarLong(transactions);
+        putVarLong(statements);
+        writeFrame(ColumnarFormat.END);
+    }
+
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    private void writeColumns(byte tag, ColumnarFormat.Encoding[] encodings, ColumnBlock block) throws IOException {
+        int size = block.size();
+        putVarLong(size);
+        for (int column = 0; column < ColumnBlock.COLUMNS; column++) {
+            switch (encodings[column]) {
+                case RUNS -> putRuns(block, column);
+                case DELTA -> {
+                    long previous = 0;
+                    for (int row = 0; row < size; row++) {
+                        putZigZag(block.get(column, row) - previous);
+                        previous = block.get(column, row);
+                    }
+                }
+                case PLAIN -> {
+                    for (int row = 0; row < size; row++) {
+                        putVarLong(block.get(column, row));
+                    }
+                }
+            }
+        }
+        writeFrame(tag);
+    }
+
+    // Number of runs, then (delta from the previous run's value, length) per run
+    private void putRuns(ColumnBlock block, int column) {
+        int size = block.size();
+        int runs = 0;
+        for (int row = 0; row < size; row++) {
+            if (row == 0 || block.get(column, row) != block.get(column, row - 1)) {
+                runs++;
+            }
+        }
+        putVarLong(runs);
+        long previous = 0;
+        for (int start = 0; start < size; ) {
+            long value = block.get(column, start);
+            int end = start + 1;
+            while (end < size && block.get(column, end) == value) {
+                end++;
+            }
+            putZigZag(value - previous);
+            putVarLong(end - start);
+            previous = value;
+            start = end;
+        }
+    }
+
+    private void writeFrame(byte tag) throws IOException {
+        body.flip();
+        header.clear();
+        header.put(tag).putInt(body.remaining()).flip();
+        write(header);
+        write(body);
+        body.clear();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+    }
+
+    private void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            body.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        body.put((byte) value);
+    }
+
+    private void putZigZag(long value) {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void ensure(int bytes) {
+        if (body.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.position() + bytes));
+            body.flip();
+            body = larger.put(body);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.homework.rewards.export;
+
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.metrics.RewardMetrics;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+/**
+ * Writes {@link RewardResponse}s as {@link ColumnarFormat} for clients that send
+ * {@code Accept: application/vnd.rewards.columnar}. Registered after the JSON converter, so JSON
+ * stays the default. Serialization is recorded in the same meters as JSON responses.
+ */
+public class RewardColumnarMessageConverter extends AbstractHttpMessageConverter<RewardResponse> {
+
+    private final RewardMetrics rewardMetrics;
+
+    public RewardColumnarMessageConverter(RewardMetrics rewardMetrics) {
+        super(ColumnarFormat.MEDIA_TYPE);
+        this.rewardMetrics = rewardMetrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RewardResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RewardResponse readInternal(Class<? extends RewardResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reward responses are not accepted as request bodies.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(RewardResponse response, HttpOutputMessage outputMessage) throws IOException {
+        long started = System.nanoTime();
+        ColumnarWriter writer = new ColumnarWriter(Channels.newChannel(outputMessage.getBody()));
+        writer.writeResponse(response);
+        rewardMetrics.serialized(response.getTransactions() == null ? RewardMetrics.REWARDS_SUMMARY : RewardMetrics.REWARDS,
+                System.nanoTime() - started, writer.bytesWritten());
+    }
+}
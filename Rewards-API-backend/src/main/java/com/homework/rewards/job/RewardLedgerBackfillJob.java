@@ -0,0 +1,26 @@
+package com.homework.rewards.job;
+
+import com.homework.rewards.service.RewardLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the monthly reward ledger from the existing {@code transaction} table at startup.
+ * Enable with {@code rewards.ledger.backfill-on-startup=true} for the first deployment, or after
+ * transactions were loaded out of band.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rewards.ledger", name = "backfill-on-startup", havingValue = "true")
+public class RewardLedgerBackfillJob implements ApplicationRunner {
+
+    private final RewardLedgerService rewardLedgerService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rewardLedgerService.rebuild();
+    }
+}
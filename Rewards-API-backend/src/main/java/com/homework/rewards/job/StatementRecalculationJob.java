@@ -0,0 +1,306 @@
+package com.homework.rewards.job;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.StatementPartitionTotals;
+import com.homework.rewards.dto.StatementRunProgress;
+import com.homework.rewards.entity.StatementPartition;
+import com.homework.rewards.entity.StatementRun;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.exception.StatementRunException;
+import com.homework.rewards.repository.StatementPartitionRepository;
+import com.homework.rewards.repository.StatementRunRepository;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardPointsTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recalculates reward statements for every customer with transactions, for month-end runs.
+ * <p>
+ * The customers with transactions are split, in id order, into partitions of
+ * {@code rewards.statements.partition-size} customers, computed by a pool of
+ * {@code rewards.statements.parallelism} threads. Each partition
+ * streams its transactions through a read-only cursor in customer order, so only one customer is
+ * aggregated at a time, then writes its {@code reward_statement} rows and marks itself COMPLETED in
+ * one database transaction. A failed or interrupted run is resumed with {@link #resume}, which
+ * only computes the partitions that are still PENDING.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementRecalculationJob {
+
+    // Read in order from idx_transaction_customer_timestamp; MySQL skips from one customer to the next
+    private static final String SELECT_CUSTOMER_IDS =
+            "SELECT DISTINCT customer_id FROM transaction WHERE customer_id IS NOT NULL ORDER BY customer_id";
+    private static final String INSERT_PARTITION = """
+            INSERT INTO statement_partition (run_id, partition_number, from_customer_id, to_customer_id, status)
+            VALUES (?, ?, ?, ?, 'PENDING')
+            """;
+    // Range scan of idx_transaction_customer_timestamp, which also delivers the customer order
+    private static final String SELECT_PARTITION_TRANSACTIONS = """
+            SELECT customer_id, timestamp, amount_cents FROM transaction
+            WHERE customer_id BETWEEN ? AND ? AND timestamp BETWEEN ? AND ?
+            ORDER BY customer_id
+            """;
+    private static final String INSERT_STATEMENT = """
+            INSERT INTO reward_statement (run_id, customer_id, period_year, period_month, points, transaction_count)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    // Guarded by status, so a partition computed twice at once commits only once
+    private static final String COMPLETE_PARTITION = """
+            UPDATE statement_partition
+            SET status = 'COMPLETED', customer_count = ?, transaction_count = ?, completed_at = ?
+            WHERE id = ? AND status = 'PENDING'
+            """;
+
+    private final StatementRunRepository runRepository;
+    private final StatementPartitionRepository partitionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RewardPointsTable rewardPointsTable;
+    private final RewardProperties rewardProperties;
+    private final Clock clock;
+    private final ArchivedMonths archivedMonths;
+
+    // Runs executing in this process; completes when the run has finished
+    private final Map<Long, CompletableFuture<Void>> activeRuns = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a run for the period and starts computing it in the background.
+     */
+    public StatementRunProgress start(LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null || endDate == null) {
+            throw new RewardCalculationException("Invalid input: Start date and end date must not be null.");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new RewardCalculationException("Invalid input: End date cannot be before start date.");
+        }
+        archivedMonths.requireUnarchived(startDate);
+
+        StatementRun run = new TransactionTemplate(transactionManager).execute(status -> createRun(startDate, endDate));
+        launch(run);
+        return progress(run.getId()).orElseThrow();
+    }
+
+    /**
+     * Continues a failed or interrupted run with the partitions that have not completed. Runs left
+     * RUNNING by a process that stopped can be resumed as well. Empty if there is no such run.
+     */
+    public Optional<StatementRunProgress> resume(Long runId) {
+        Optional<StatementRun> run = runRepository.findById(runId);
+        if (run.isEmpty()) {
+            return Optional.empty();
+        }
+        if (run.get().getStatus() == StatementRun.Status.COMPLETED) {
+            throw new StatementRunException("Statement run " + runId + " has already completed.");
+        }
+        // The period may have been archived since the run started
+        archivedMonths.requireUnarchived(run.get().getPeriodStart());
+        launch(run.get());
+        return progress(runId);
+    }
+
+    public Optional<StatementRunProgress> progress(Long runId) {
+        return runRepository.findById(runId).map(run -> {
+            StatementPartitionTotals completed = partitionRepository.sumByRunIdAndStatus(runId, StatementPartition.Status.COMPLETED);
+            return new StatementRunProgress(run.getId(), run.getStatus(), run.getPeriodStart(), run.getPeriodEnd(),
+                    run.getPartitionCount(), completed.getPartitions(), completed.getCustomers(), completed.getTransactions(),
+                    run.getStartedAt(), run.getFinishedAt());
+        });
+    }
+
+    // Completes once the run has finished in this process, or right away if it is not running here
+    CompletableFuture<Void> completion(Long runId) {
+        return activeRuns.getOrDefault(runId, CompletableFuture.completedFuture(null));
+    }
+
+    private StatementRun createRun(LocalDateTime startDate, LocalDateTime endDate) {
+        long partitionSize = Math.max(1, rewardProperties.getStatements().getPartitionSize());
+        StatementRun run = runRepository.save(new StatementRun(null, startDate, endDate, StatementRun.Status.RUNNING,
+                partitionSize, 0, LocalDateTime.now(clock), null));
+
+        // Bounds of every partition, from the ids that exist, so gaps in the id space cost nothing
+        PartitionBounds partitions = new PartitionBounds(run.getId(), partitionSize);
+        jdbcTemplate.query(SELECT_CUSTOMER_IDS, ps -> ps.setFetchSize(rewardProperties.getStatements().getFetchSize()), partitions);
+        partitions.close();
+        jdbcTemplate.batchUpdate(INSERT_PARTITION, partitions.rows);
+
+        run.setPartitionCount(partitions.rows.size());
+        runRepository.save(run);
+        log.info("Created statement run {} for {} to {} with {} partitions", run.getId(), startDate, endDate, run.getPartitionCount());
+        return run;
+    }
+
+    private void launch(StatementRun run) {
+        Long runId = run.getId();
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        if (activeRuns.putIfAbsent(runId, completion) != null) {
+            throw new StatementRunException("Statement run " + runId + " is already running.");
+        }
+
+        try {
+            run.setStatus(StatementRun.Status.RUNNING);
+            run.setFinishedAt(null);
+            runRepository.save(run);
+
+            List<StatementPartition> pending = partitionRepository.findByRunIdAndStatusOrderByPartitionNumber(
+                    runId, StatementPartition.Status.PENDING);
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("statement-run-" + runId + "-");
+            // Interrupted partitions stay PENDING, so shutdown need not wait for them
+            threadFactory.setDaemon(true);
+            ExecutorService pool = Executors.newFixedThreadPool(
+                    Math.max(1, rewardProperties.getStatements().getParallelism()), threadFactory);
+
+            CompletableFuture<?>[] partitions = pending.stream()
+                    .map(partition -> CompletableFuture.runAsync(() -> computePartition(run, partition), pool))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(partitions).whenComplete((ignored, failure) -> {
+                pool.shutdown();
+                try {
+                    finish(runId, failure);
+                } finally {
+                    activeRuns.remove(runId);
+                    completion.complete(null);
+                }
+            });
+        } catch (RuntimeException e) {
+            activeRuns.remove(runId);
+            completion.complete(null);
+            throw e;
+        }
+    }
+
+    private void computePartition(StatementRun run, StatementPartition partition) {
+        try {
+            PartitionStatements statements = readPartition(run, partition);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_STATEMENT, statements.rows);
+                int updated = jdbcTemplate.update(COMPLETE_PARTITION, statements.customers, statements.transactions,
+                        LocalDateTime.now(clock), partition.getId());
+                if (updated != 1) {
+                    throw new StatementRunException("Partition " + partition.getPartitionNumber() + " was completed concurrently.");
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Statement run {} partition {} failed", run.getId(), partition.getPartitionNumber(), e);
+            throw e;
+        }
+    }
+
+    private PartitionStatements readPartition(StatementRun run, StatementPartition partition) {
+        PartitionStatements statements = new PartitionStatements(run.getId(), rewardPointsTable);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(SELECT_PARTITION_TRANSACTIONS, ps -> {
+            // With useCursorFetch=true MySQL streams the rows instead of buffering the whole result
+            ps.setFetchSize(rewardProperties.getStatements().getFetchSize());
+            ps.setLong(1, partition.getFromCustomerId());
+            ps.setLong(2, partition.getToCustomerId());
+            ps.setObject(3, run.getPeriodStart());
+            ps.setObject(4, run.getPeriodEnd());
+        }, statements));
+        statements.flush();
+        return statements;
+    }
+
+    private void finish(Long runId, Throwable failure) {
+        StatementRun run = runRepository.findById(runId).orElseThrow();
+        run.setStatus(failure == null ? StatementRun.Status.COMPLETED : StatementRun.Status.FAILED);
+        run.setFinishedAt(LocalDateTime.now(clock));
+        runRepository.save(run);
+        log.info("Statement run {} {}", runId, run.getStatus());
+    }
+
+    /**
+     * Cuts the ordered customer ids into partitions of {@code partitionSize} customers, keeping
+     * only each partition's first and last id.
+     */
+    private static final class PartitionBounds implements RowCallbackHandler {
+        private final Long runId;
+        private final long partitionSize;
+        private final List<Object[]> rows = new ArrayList<>();
+        private long fromCustomerId;
+        private long toCustomerId;
+        private long customers;
+
+        PartitionBounds(Long runId, long partitionSize) {
+            this.runId = runId;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            toCustomerId = rs.getLong(1);
+            if (customers == 0) {
+                fromCustomerId = toCustomerId;
+            }
+            if (++customers == partitionSize) {
+                close();
+            }
+        }
+
+        void close() {
+            if (customers > 0) {
+                rows.add(new Object[]{runId, rows.size(), fromCustomerId, toCustomerId});
+                customers = 0;
+            }
+        }
+    }
+
+    /**
+     * Monthly statement rows of one partition. Rows arrive grouped by customer, so only the
+     * current customer's months are open at any time.
+     */
+    private static final class PartitionStatements implements RowCallbackHandler {
+        private final Long runId;
+        private final RewardPointsTable pointsTable;
+        private final List<Object[]> rows = new ArrayList<>();
+        private final Map<YearMonth, long[]> months = new TreeMap<>();
+        private long customerId = -1;
+        private long customers;
+        private long transactions;
+
+        PartitionStatements(Long runId, RewardPointsTable pointsTable) {
+            this.runId = runId;
+            this.pointsTable = pointsTable;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowCustomerId = rs.getLong(1);
+            if (rowCustomerId != customerId) {
+                flush();
+                customerId = rowCustomerId;
+                customers++;
+            }
+            long[] month = months.computeIfAbsent(YearMonth.from(rs.getObject(2, LocalDateTime.class)), m -> new long[2]);
+            month[0] += pointsTable.points(rs.getLong(3));
+            month[1]++;
+            transactions++;
+        }
+
+        void flush() {
+            months.forEach((month, totals) -> rows.add(new Object[]{
+                    runId, customerId, month.getYear(), month.getMonthValue(), totals[0], totals[1]}));
+            months.clear();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.homework.rewards.job;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the monthly partitions of the {@code transaction} table (see
+ * {@code db/vendor/mysql/V6__partition_transaction_by_month.sql}) ahead of the calendar, and moves
+ * months older than {@code rewards.partitions.retention-months} out of it.
+ * <p>
+ * Upcoming months are split off the {@code p_future} partition, so new rows always land in their
+ * own month. An expired month is first marked in {@code archived_month}, after which
+ * {@link ArchivedMonths} refuses reads of its rows. No sooner than twice
+ * {@code rewards.partitions.archive-refresh} later, when every instance has seen the mark, the month
+ * is folded into the monthly reward ledger, its partition is exchanged with an empty
+ * {@code transaction_archive_yyyyMM} table, which only swaps metadata, and dropped. Reward
+ * summaries of whole archived months are answered from the ledger, so archiving requires
+ * {@code rewards.ledger.enabled}. Archive tables can be dumped and dropped out of band.
+ * <p>
+ * Runs at startup and on {@code rewards.partitions.cron}, and does nothing unless the database is
+ * MySQL and the table is partitioned. Every step checks what is already done, so a run that failed
+ * or raced another instance is completed by the next one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "rewards.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionPartitionMaintenanceJob {
+
+    private static final String SELECT_PARTITIONS = """
+            SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transaction' AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+    private static final String COUNT_TABLES = """
+            SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+            """;
+    private static final String MARK_MONTH = """
+            INSERT INTO archived_month (period_year, period_month, marked_at) VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE marked_at = marked_at
+            """;
+    private static final String SELECT_MARKED_AT = "SELECT marked_at FROM archived_month WHERE period_year = ? AND period_month = ?";
+    private static final String COMPLETE_MONTH = """
+            UPDATE archived_month SET archived_at = ?, archived_rows = ? WHERE period_year = ? AND period_month = ?
+            """;
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p\\d{6}");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RewardLedgerService rewardLedgerService;
+    private final ArchivedMonths archivedMonths;
+    private final RewardProperties rewardProperties;
+    private final Clock clock;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rewards.partitions.cron:0 30 1 * * *}")
+    public void maintain() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equals(database) && !"MariaDB".equals(database)) {
+            log.debug("Skipping transaction partition maintenance on {}", database);
+            return;
+        }
+        List<String> partitions = jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class);
+        if (partitions.isEmpty()) {
+            log.info("Table transaction is not partitioned, skipping partition maintenance");
+            return;
+        }
+
+        RewardProperties.Partitions properties = rewardProperties.getPartitions();
+        YearMonth current = YearMonth.now(clock);
+        List<YearMonth> months = months(partitions);
+        createPartitions(upcoming(months, current, properties.getMonthsAhead()));
+
+        List<YearMonth> expired = expired(months, current, properties.getRetentionMonths());
+        if (!expired.isEmpty() && !rewardProperties.getLedger().isEnabled()) {
+            log.warn("Not archiving {} expired transaction months while rewards.ledger.enabled is off", expired.size());
+            return;
+        }
+        expired.forEach(this::archive);
+    }
+
+    // Months that have a partition of their own, in partition order
+    static List<YearMonth> months(List<String> partitions) {
+        return partitions.stream()
+                .filter(name -> MONTH_PARTITION.matcher(name).matches())
+                .map(name -> YearMonth.parse(name.substring(1), PARTITION_MONTH))
+                .toList();
+    }
+
+    // Months after the newest partition, up to monthsAhead past the current one
+    static List<YearMonth> upcoming(List<YearMonth> months, YearMonth current, int monthsAhead) {
+        YearMonth last = months.isEmpty() ? current.minusMonths(1) : months.get(months.size() - 1);
+        List<YearMonth> upcoming = new ArrayList<>();
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            upcoming.add(month);
+        }
+        return upcoming;
+    }
+
+    // Months entirely older than the retention period; none if retentionMonths is 0
+    static List<YearMonth> expired(List<YearMonth> months, YearMonth current, int retentionMonths) {
+        if (retentionMonths <= 0) {
+            return List.of();
+        }
+        return months.stream().filter(month -> month.isBefore(current.minusMonths(retentionMonths))).toList();
+    }
+
+    private void createPartitions(List<YearMonth> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute(reorganizeFuture(months));
+        log.info("Created transaction partitions {} to {}", months.get(0), months.get(months.size() - 1));
+    }
+
+    // Cheap while p_future is empty; rows already in it are moved to their month
+    static String reorganizeFuture(List<YearMonth> months) {
+        String definitions = months.stream()
+                .map(month -> "PARTITION %s VALUES LESS THAN ('%s')".formatted(partition(month), month.plusMonths(1).atDay(1)))
+                .collect(Collectors.joining(", "));
+        return "ALTER TABLE transaction REORGANIZE PARTITION p_future INTO ("
+                + definitions + ", PARTITION p_future VALUES LESS THAN (MAXVALUE))";
+    }
+
+    // Statements that give the month's rows an empty, unpartitioned table to be exchanged into
+    static List<String> createArchiveTable(YearMonth month) {
+        return List.of("CREATE TABLE " + archiveTable(month) + " LIKE transaction",
+                "ALTER TABLE " + archiveTable(month) + " REMOVE PARTITIONING");
+    }
+
+    static String exchangePartition(YearMonth month) {
+        return "ALTER TABLE transaction EXCHANGE PARTITION " + partition(month) + " WITH TABLE " + archiveTable(month);
+    }
+
+    static String dropPartition(YearMonth month) {
+        return "ALTER TABLE transaction DROP PARTITION " + partition(month);
+    }
+
+    private void archive(YearMonth month) {
+        LocalDateTime markedAt = mark(month);
+        Duration settle = rewardProperties.getPartitions().getArchiveRefresh().multipliedBy(2);
+        if (markedAt.isAfter(LocalDateTime.now(clock).minus(settle))) {
+            log.info("Marked {} as archived; its rows are moved by a run after {}", month, markedAt.plus(settle));
+            return;
+        }
+
+        String partition = partition(month);
+        String archive = archiveTable(month);
+        if (jdbcTemplate.queryForObject(COUNT_TABLES, Long.class, archive) == 0) {
+            createArchiveTable(month).forEach(jdbcTemplate::execute);
+        }
+
+        long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction PARTITION (" + partition + ")", Long.class);
+        if (rows > 0) {
+            long archived = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + archive, Long.class);
+            if (archived > 0) {
+                log.error("Not archiving {}: both partition {} and table {} hold rows", month, partition, archive);
+                return;
+            }
+            rewardLedgerService.rebuildMonth(month);
+            jdbcTemplate.execute(exchangePartition(month));
+        } else {
+            // Exchanged by an earlier run that failed before the drop
+            rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + archive, Long.class);
+        }
+        jdbcTemplate.execute(dropPartition(month));
+        jdbcTemplate.update(COMPLETE_MONTH, LocalDateTime.now(clock), rows, month.getYear(), month.getMonthValue());
+        log.info("Archived {} transactions of {} to {}", rows, month, archive);
+    }
+
+    // Keeps the first mark, so reruns measure the delay from it
+    private LocalDateTime mark(YearMonth month) {
+        jdbcTemplate.update(MARK_MONTH, month.getYear(), month.getMonthValue(), LocalDateTime.now(clock));
+        archivedMonths.refresh();
+        return jdbcTemplate.queryForObject(SELECT_MARKED_AT, LocalDateTime.class, month.getYear(), month.getMonthValue());
+    }
+
+    private static String partition(YearMonth month) {
+        return "p" + month.format(PARTITION_MONTH);
+    }
+
+    private static String archiveTable(YearMonth month) {
+        return "transaction_archive_" + month.format(PARTITION_MONTH);
+    }
+}
@@ -0,0 +1,71 @@
+package com.homework.rewards.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.rewards.dto.RewardResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * The regular JSON converter, additionally timing the serialization of {@link RewardResponse}s
+ * and counting their bytes. Responses without transactions come from the summary endpoints.
+ */
+public class InstrumentedJsonMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final RewardMetrics rewardMetrics;
+
+    public InstrumentedJsonMessageConverter(ObjectMapper objectMapper, RewardMetrics rewardMetrics) {
+        super(objectMapper);
+        this.rewardMetrics = rewardMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!(object instanceof RewardResponse response)) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        CountingOutputMessage counting = new CountingOutputMessage(outputMessage);
+        long started = System.nanoTime();
+        super.writeInternal(object, type, counting);
+        rewardMetrics.serialized(response.getTransactions() == null ? RewardMetrics.REWARDS_SUMMARY : RewardMetrics.REWARDS,
+                System.nanoTime() - started, counting.bytes);
+    }
+
+    private static final class CountingOutputMessage implements HttpOutputMessage {
+        private final HttpOutputMessage delegate;
+        private long bytes;
+
+        CountingOutputMessage(HttpOutputMessage delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return new FilterOutputStream(delegate.getBody()) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytes++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    bytes += len;
+                }
+            };
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+}
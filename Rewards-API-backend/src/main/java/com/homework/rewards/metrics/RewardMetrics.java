@@ -0,0 +1,79 @@
+package com.homework.rewards.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the stages of a reward request, tagged by endpoint:
+ * <ul>
+ *     <li>{@code rewards.fetch}: time of the database read, and {@code rewards.fetch.rows} rows it returned</li>
+ *     <li>{@code rewards.aggregation}: time spent turning those rows into a response</li>
+ *     <li>{@code rewards.serialization}: time to write the response as JSON, and {@code rewards.response.size} bytes</li>
+ * </ul>
+ * Cache hits skip fetch and aggregation, so those meters only count requests that reach the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class RewardMetrics {
+
+    // Endpoint tag values
+    public static final String REWARDS = "rewards";
+    public static final String REWARDS_SUMMARY = "rewards-summary";
+    public static final String REWARDS_BATCH = "rewards-batch";
+    public static final String REWARDS_PERIODS = "rewards-periods";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T extends Collection<?>> T fetch(String endpoint, Supplier<T> query) {
+        T rows = timer("rewards.fetch", endpoint).record(query);
+        DistributionSummary.builder("rewards.fetch.rows")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(rows == null ? 0 : rows.size());
+        return rows;
+    }
+
+    /**
+     * Times a read whose rows go to a callback instead of being returned; {@code scan} returns
+     * how many rows it read.
+     */
+    public long scan(String endpoint, LongSupplier scan) {
+        long started = System.nanoTime();
+        long rows = 0;
+        try {
+            rows = scan.getAsLong();
+            return rows;
+        } finally {
+            timer("rewards.fetch", endpoint).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("rewards.fetch.rows")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+    }
+
+    public <T> T aggregate(String endpoint, Supplier<T> aggregation) {
+        return timer("rewards.aggregation", endpoint).record(aggregation);
+    }
+
+    public void serialized(String endpoint, long nanos, long bytes) {
+        timer("rewards.serialization", endpoint).record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("rewards.response.size")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private Timer timer(String name, String endpoint) {
+        return Timer.builder(name).tag("endpoint", endpoint).register(meterRegistry);
+    }
+}
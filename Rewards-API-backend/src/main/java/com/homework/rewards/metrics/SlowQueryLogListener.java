@@ -0,0 +1,52 @@
+package com.homework.rewards.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Logs SQL that runs for at least {@code slowThreshold} at WARN, and a random {@code sampleRate}
+ * share of the remaining statements at INFO. Bind parameters are left out, since they hold
+ * customer data. Only statement execution is timed, not fetching the rows of a streamed result.
+ */
+@Slf4j
+public class SlowQueryLogListener implements QueryExecutionListener {
+
+    private final long slowThresholdMillis;
+    private final double sampleRate;
+
+    public SlowQueryLogListener(Duration slowThreshold, double sampleRate) {
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        if (elapsed >= slowThresholdMillis) {
+            log.warn("Slow query ({} ms{}): {}", elapsed, batch(execInfo), sql(queryInfoList));
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled query ({} ms{}): {}", elapsed, batch(execInfo), sql(queryInfoList));
+        }
+    }
+
+    private static String batch(ExecutionInfo execInfo) {
+        return execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "";
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream()
+                .map(query -> query.getQuery().replaceAll("\\s+", " ").strip())
+                .collect(Collectors.joining("; "));
+    }
+}
@@ -0,0 +1,47 @@
+package com.homework.rewards.migration;
+
+import com.homework.rewards.service.RewardPointsTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Recomputes the ledger months V3 listed in {@code ledger_rebuild_month}, whose amounts had
+ * sub-cent fractions before they were rounded, then drops that table. Written in Java because
+ * points come from the configured tiers; {@link com.homework.rewards.config.RewardPointsConfig}
+ * registers it as a bean, which Spring Boot hands to Flyway.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class V3_1__RebuildRoundedLedgerMonths extends BaseJavaMigration {
+
+    private static final String DELETE_MONTHS = """
+            DELETE FROM monthly_reward_summary
+            WHERE EXISTS (SELECT 1 FROM ledger_rebuild_month r
+                          WHERE r.customer_id = monthly_reward_summary.customer_id
+                            AND r.period_year = monthly_reward_summary.period_year
+                            AND r.period_month = monthly_reward_summary.period_month)
+            """;
+    private static final String INSERT_MONTHS = """
+            INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count)
+            SELECT r.customer_id, r.period_year, r.period_month, SUM(%s), COUNT(*)
+            FROM ledger_rebuild_month r
+            JOIN transaction t
+              ON t.customer_id = r.customer_id AND YEAR(t.timestamp) = r.period_year AND MONTH(t.timestamp) = r.period_month
+            GROUP BY r.customer_id, r.period_year, r.period_month
+            """;
+
+    private final RewardPointsTable rewardPointsTable;
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        jdbcTemplate.update(DELETE_MONTHS);
+        int months = jdbcTemplate.update(INSERT_MONTHS.formatted(rewardPointsTable.sqlPoints("t.amount_cents")));
+        jdbcTemplate.execute("DROP TABLE ledger_rebuild_month");
+        log.info("Recomputed {} ledger months holding amounts rounded to cents", months);
+    }
+}
@@ -0,0 +1,26 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.entity.MonthlyRewardSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface MonthlyRewardSummaryRepository extends JpaRepository<MonthlyRewardSummary, Long> {
+
+    // Months are compared as yyyyMM, e.g. 202301
+    @Query("""
+            SELECT s.periodYear AS periodYear,
+                   s.periodMonth AS periodMonth,
+                   s.points AS points,
+                   s.transactionCount AS transactionCount
+            FROM MonthlyRewardSummary s
+            WHERE s.customerId = :customerId
+              AND s.periodYear * 100 + s.periodMonth BETWEEN :fromPeriod AND :toPeriod
+            """)
+    List<MonthlyPointsRow> findMonthlyPoints(@Param("customerId") Long customerId,
+                                             @Param("fromPeriod") int fromPeriod,
+                                             @Param("toPeriod") int toPeriod);
+}
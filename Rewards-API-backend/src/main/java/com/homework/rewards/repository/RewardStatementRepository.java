@@ -0,0 +1,11 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.entity.RewardStatement;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RewardStatementRepository extends JpaRepository<RewardStatement, Long> {
+
+    List<RewardStatement> findByRunIdAndCustomerIdOrderByPeriodYearAscPeriodMonthAsc(Long runId, Long customerId);
+}
@@ -0,0 +1,24 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.dto.StatementPartitionTotals;
+import com.homework.rewards.entity.StatementPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StatementPartitionRepository extends JpaRepository<StatementPartition, Long> {
+
+    List<StatementPartition> findByRunIdAndStatusOrderByPartitionNumber(Long runId, StatementPartition.Status status);
+
+    @Query("""
+            SELECT COUNT(p) AS partitions,
+                   COALESCE(SUM(p.customerCount), 0) AS customers,
+                   COALESCE(SUM(p.transactionCount), 0) AS transactions
+            FROM StatementPartition p
+            WHERE p.runId = :runId AND p.status = :status
+            """)
+    StatementPartitionTotals sumByRunIdAndStatus(@Param("runId") Long runId,
+                                                 @Param("status") StatementPartition.Status status);
+}
@@ -0,0 +1,7 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.entity.StatementRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StatementRunRepository extends JpaRepository<StatementRun, Long> {
+}
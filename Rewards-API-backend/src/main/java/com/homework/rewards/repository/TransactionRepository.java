@@ -1,11 +1,44 @@
 package com.homework.rewards.repository;
 
 import com.homework.rewards.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionRepositoryCustom {
     List<Transaction> findByCustomerIdAndTimestampBetween(Long customerId, LocalDateTime startDate, LocalDateTime endDate);
-}
\ No newline at end of file
+
+    // First page of a keyset-paginated listing
+    List<Transaction> findByCustomerIdAndTimestampBetweenOrderByTimestampAscIdAsc(Long customerId, LocalDateTime startDate,
+                                                                                LocalDateTime endDate, Pageable pageable);
+
+    // Following pages: rows strictly after the (timestamp, id) of the last row already returned
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.customerId = :customerId
+              AND t.timestamp BETWEEN :startDate AND :endDate
+              AND (t.timestamp > :afterTimestamp OR (t.timestamp = :afterTimestamp AND t.id > :afterId))
+            ORDER BY t.timestamp, t.id
+            """)
+    List<Transaction> findPageAfter(@Param("customerId") Long customerId,
+                                    @Param("startDate") LocalDateTime startDate,
+                                    @Param("endDate") LocalDateTime endDate,
+                                    @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+
+    // Must be consumed inside a transaction; rows are fetched from a cursor as the stream advances
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Transaction> streamByCustomerIdAndTimestampBetweenOrderByTimestampAscIdAsc(Long customerId, LocalDateTime startDate,
+                                                                                    LocalDateTime endDate);
+}
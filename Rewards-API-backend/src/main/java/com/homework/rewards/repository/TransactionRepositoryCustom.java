@@ -0,0 +1,20 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.dto.CustomerMonthlyPointsRow;
+import com.homework.rewards.dto.MonthlyPointsRow;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Aggregations whose SQL depends on the configured reward tiers, so they cannot be static
+ * {@code @Query} strings.
+ */
+public interface TransactionRepositoryCustom {
+
+    List<MonthlyPointsRow> sumMonthlyPoints(Long customerId, LocalDateTime startDate, LocalDateTime endDate);
+
+    List<CustomerMonthlyPointsRow> sumMonthlyPointsByCustomer(Collection<Long> customerIds, LocalDateTime startDate,
+                                                              LocalDateTime endDate);
+}
@@ -0,0 +1,70 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.dto.CustomerMonthlyPointsRow;
+import com.homework.rewards.dto.MonthlyPoints;
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.service.RewardPointsTable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evaluates the tier rule per row before summing, with the SQL built once from
+ * {@link RewardPointsTable}.
+ */
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String sumMonthlyPointsSql;
+    private final String sumMonthlyPointsByCustomerSql;
+
+    public TransactionRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate, RewardPointsTable rewardPointsTable) {
+        this.jdbcTemplate = jdbcTemplate;
+        String points = rewardPointsTable.sqlPoints("t.amount_cents");
+        sumMonthlyPointsSql = """
+                SELECT YEAR(t.timestamp) AS periodYear,
+                       MONTH(t.timestamp) AS periodMonth,
+                       SUM(%s) AS points,
+                       COUNT(*) AS transactionCount
+                FROM transaction t
+                WHERE t.customer_id = :customerId
+                  AND t.timestamp BETWEEN :startDate AND :endDate
+                GROUP BY YEAR(t.timestamp), MONTH(t.timestamp)
+                """.formatted(points);
+        sumMonthlyPointsByCustomerSql = """
+                SELECT t.customer_id AS customerId,
+                       YEAR(t.timestamp) AS periodYear,
+                       MONTH(t.timestamp) AS periodMonth,
+                       SUM(%s) AS points,
+                       COUNT(*) AS transactionCount
+                FROM transaction t
+                WHERE t.customer_id IN (:customerIds)
+                  AND t.timestamp BETWEEN :startDate AND :endDate
+                GROUP BY t.customer_id, YEAR(t.timestamp), MONTH(t.timestamp)
+                """.formatted(points);
+    }
+
+    @Override
+    public List<MonthlyPointsRow> sumMonthlyPoints(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        return jdbcTemplate.query(sumMonthlyPointsSql, new MapSqlParameterSource()
+                        .addValue("customerId", customerId)
+                        .addValue("startDate", startDate)
+                        .addValue("endDate", endDate),
+                (rs, rowNum) -> new MonthlyPoints(null, rs.getInt("periodYear"), rs.getInt("periodMonth"),
+                        rs.getLong("points"), rs.getLong("transactionCount")));
+    }
+
+    @Override
+    public List<CustomerMonthlyPointsRow> sumMonthlyPointsByCustomer(Collection<Long> customerIds, LocalDateTime startDate,
+                                                                     LocalDateTime endDate) {
+        return jdbcTemplate.query(sumMonthlyPointsByCustomerSql, new MapSqlParameterSource()
+                        .addValue("customerIds", customerIds)
+                        .addValue("startDate", startDate)
+                        .addValue("endDate", endDate),
+                (rs, rowNum) -> new MonthlyPoints(rs.getLong("customerId"), rs.getInt("periodYear"),
+                        rs.getInt("periodMonth"), rs.getLong("points"), rs.getLong("transactionCount")));
+    }
+}
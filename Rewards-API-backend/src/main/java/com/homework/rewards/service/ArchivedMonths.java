@@ -0,0 +1,77 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * The months whose transactions the partition job moves out of the {@code transaction} table, as
+ * recorded in {@code archived_month}. Their totals stay in the monthly ledger, but a query over
+ * their rows would silently find none, so readers of transaction rows refuse periods that reach
+ * into them, and writers refuse transactions dated in them. Archiving always takes the oldest
+ * months, so the newest marked month bounds them all.
+ * <p>
+ * That month is cached for {@code rewards.partitions.archive-refresh}. The job moves a month's
+ * rows no sooner than twice that after marking it, so every instance refuses the month first.
+ */
+@Component
+@RequiredArgsConstructor
+public class ArchivedMonths {
+
+    private static final String SELECT_NEWEST = "SELECT MAX(period_year * 100 + period_month) FROM archived_month";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RewardProperties rewardProperties;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * The newest archived month, or null if no month has been archived.
+     */
+    public YearMonth newest() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current == null || now - current.loadedAt() >= rewardProperties.getPartitions().getArchiveRefresh().toNanos()) {
+            Integer period = jdbcTemplate.queryForObject(SELECT_NEWEST, Integer.class);
+            current = new Snapshot(period == null ? null : YearMonth.of(period / 100, period % 100), now);
+            snapshot = current;
+        }
+        return current.newest();
+    }
+
+    /**
+     * Fails if a period starting at {@code startDate} reaches into an archived month.
+     */
+    public void requireUnarchived(LocalDateTime startDate) {
+        YearMonth newest = newest();
+        if (newest != null && !YearMonth.from(startDate).isAfter(newest)) {
+            throw new ArchivedPeriodException("Transactions up to " + newest + " have been archived and cannot be read; "
+                    + "start the period in " + newest.plusMonths(1) + " or later.");
+        }
+    }
+
+    /**
+     * Fails if a transaction dated {@code timestamp} would land in an archived month, where it
+     * would end up in a live partition and revive the month's ledger row.
+     */
+    public void requireWritable(LocalDateTime timestamp) {
+        YearMonth newest = newest();
+        if (newest != null && !YearMonth.from(timestamp).isAfter(newest)) {
+            throw new ArchivedPeriodException("Transactions up to " + newest + " have been archived; "
+                    + "a transaction dated " + timestamp + " can no longer be recorded.");
+        }
+    }
+
+    // Called after marking a month, so this instance stops reading it right away
+    public void refresh() {
+        snapshot = null;
+    }
+
+    private record Snapshot(YearMonth newest, long loadedAt) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.CustomerMonthlyPointsRow;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reward summaries for many customers at once. Customers are aggregated in chunks of
+ * {@code rewards.batch.chunk-size}, one query per chunk, and handed to the caller as soon as
+ * their chunk is done so memory stays bounded by the chunk size rather than the request size.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchRewardService {
+
+    private final TransactionRepository transactionRepository;
+    private final RewardProperties rewardProperties;
+    private final RewardMetrics rewardMetrics;
+    private final ArchivedMonths archivedMonths;
+
+    /**
+     * Fails fast on bad input or an archived period, before any response has been committed.
+     */
+    public void validate(List<Long> customerIds, LocalDateTime startDate, LocalDateTime endDate) {
+        try {
+            if (customerIds == null || customerIds.isEmpty() || customerIds.stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("Customer IDs must be a non-empty list without nulls.");
+            }
+            RewardService.validateInputs(customerIds.get(0), startDate, endDate);
+        } catch (IllegalArgumentException e) {
+            throw new RewardCalculationException("Invalid input: " + e.getMessage(), e);
+        }
+        archivedMonths.requireUnarchived(startDate);
+    }
+
+    /**
+     * Emits one summary per distinct customer, in request order. Customers without transactions
+     * in the range get an empty summary instead of failing the whole batch.
+     */
+    public void streamRewardSummaries(List<Long> customerIds, LocalDateTime startDate, LocalDateTime endDate,
+                                      Consumer<RewardResponse> sink) {
+        validate(customerIds, startDate, endDate);
+
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(customerIds));
+        int chunkSize = Math.max(1, rewardProperties.getBatch().getChunkSize());
+
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+
+            Map<Long, RewardAggregator> aggregators;
+            try {
+                List<CustomerMonthlyPointsRow> rows = rewardMetrics.fetch(RewardMetrics.REWARDS_BATCH,
+                        () -> transactionRepository.sumMonthlyPointsByCustomer(chunk, startDate, endDate));
+                aggregators = rewardMetrics.aggregate(RewardMetrics.REWARDS_BATCH, () -> aggregateByCustomer(rows));
+            } catch (Exception e) {
+                throw new RewardCalculationException("An unexpected error occurred while calculating rewards.", e);
+            }
+
+            for (Long customerId : chunk) {
+                sink.accept(aggregators.getOrDefault(customerId, new RewardAggregator()).toResponse(customerId, null));
+            }
+        }
+    }
+
+    private static Map<Long, RewardAggregator> aggregateByCustomer(List<CustomerMonthlyPointsRow> rows) {
+        Map<Long, RewardAggregator> aggregators = new HashMap<>();
+        for (CustomerMonthlyPointsRow row : rows) {
+            aggregators.computeIfAbsent(row.getCustomerId(), id -> new RewardAggregator())
+                    .addMonth(row.getPeriodMonth(), row.getPoints(), row.getTransactionCount());
+        }
+        return aggregators;
+    }
+}
@@ -0,0 +1,312 @@
+package com.homework.rewards.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.BulkIngestException;
+import com.homework.rewards.exception.InvalidTransactionException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk write path for large CSV or NDJSON uploads.
+ * <p>
+ * Rows are parsed one at a time from the request body and written with JDBC batch inserts,
+ * bypassing Hibernate, whose {@code IDENTITY} ids rule out insert batching. Every chunk of
+ * {@code rewards.ingest.chunk-size} rows is committed in its own transaction together with its
+ * ledger increments, so a bad row fails the upload but keeps the chunks committed before it.
+ * The failure carries the number of input lines committed; a retry skips them when it names
+ * that line, or when it repeats the upload key, whose progress is stored with each chunk.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkIngestService {
+
+    // The only first line that is not read as a row, compared ignoring case
+    private static final String CSV_HEADER = "customerId,amount,timestamp";
+    private static final String INSERT_TRANSACTION = "INSERT INTO transaction (customer_id, amount_cents, timestamp) VALUES (?, ?, ?)";
+    private static final String START_UPLOAD = """
+            INSERT INTO ingest_upload (upload_key, committed_lines, committed_rows, updated_at)
+            VALUES (?, 0, 0, CURRENT_TIMESTAMP(6))
+            ON DUPLICATE KEY UPDATE committed_lines = committed_lines
+            """;
+    // Only advances from the line this request started at, so two retries of one upload cannot both write a chunk
+    private static final String ADVANCE_UPLOAD = """
+            UPDATE ingest_upload
+            SET committed_lines = ?, committed_rows = committed_rows + ?, updated_at = CURRENT_TIMESTAMP(6)
+            WHERE upload_key = ? AND committed_lines = ?
+            """;
+    private static final int MAX_UPLOAD_KEY_LENGTH = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RewardLedgerService rewardLedgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final RewardProperties rewardProperties;
+    private final ObjectMapper objectMapper;
+    private final ArchivedMonths archivedMonths;
+
+    public IngestResult ingestCsv(InputStream input) {
+        return ingestCsv(input, null, 0);
+    }
+
+    /**
+     * Ingests {@code customerId,amount,timestamp} lines, optionally after a header line of exactly
+     * those names; any other first line must be a valid row. The first
+     * {@code resumeAfterLine} lines are skipped, or more if {@code uploadKey} has committed more.
+     */
+    public IngestResult ingestCsv(InputStream input, String uploadKey, long resumeAfterLine) {
+        Upload upload = startUpload(uploadKey, resumeAfterLine);
+        BufferedReader reader = bufferedReader(input);
+        long skipped = skipLines(reader, upload.resumeAfterLine());
+        return ingest(upload, skipped, new RowReader() {
+            private long lineNumber = skipped;
+
+            @Override
+            public Transaction next() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank() || (lineNumber == 1 && CSV_HEADER.equalsIgnoreCase(line.strip()))) {
+                        continue;
+                    }
+                    return validated(parseCsvLine(line, lineNumber), lineNumber);
+                }
+                return null;
+            }
+
+            @Override
+            public long line() {
+                return lineNumber;
+            }
+        });
+    }
+
+    public IngestResult ingestNdjson(InputStream input) {
+        return ingestNdjson(input, null, 0);
+    }
+
+    /**
+     * Ingests one JSON transaction object per line, in the same shape as {@code POST /api/transactions}.
+     * Lines are skipped as for {@link #ingestCsv(InputStream, String, long)}.
+     */
+    public IngestResult ingestNdjson(InputStream input, String uploadKey, long resumeAfterLine) {
+        Upload upload = startUpload(uploadKey, resumeAfterLine);
+        BufferedReader reader = bufferedReader(input);
+        long skipped = skipLines(reader, upload.resumeAfterLine());
+        try (MappingIterator<Transaction> rows = objectMapper.readerFor(Transaction.class).readValues(reader)) {
+            return ingest(upload, skipped, new RowReader() {
+                @Override
+                public Transaction next() throws IOException {
+                    try {
+                        if (!rows.hasNextValue()) {
+                            return null;
+                        }
+                        Transaction transaction = validated(rows.nextValue(), line());
+                        transaction.setId(null);
+                        return transaction;
+                    } catch (RuntimeJsonMappingException | JsonProcessingException e) {
+                        throw new InvalidTransactionException("Line " + line() + ": malformed transaction.", e);
+                    }
+                }
+
+                @Override
+                public long line() {
+                    return skipped + rows.getCurrentLocation().getLineNr();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private IngestResult ingest(Upload upload, long skipped, RowReader reader) {
+        int chunkSize = rewardProperties.getIngest().getChunkSize();
+        long started = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        long committedLines = skipped;
+        long storedLines = upload.storedLines();
+        long lastLine = skipped;
+
+        List<Transaction> chunk = new ArrayList<>(chunkSize);
+        try {
+            Transaction transaction;
+            while ((transaction = reader.next()) != null) {
+                chunk.add(transaction);
+                lastLine = reader.line();
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, upload.key(), storedLines, lastLine);
+                    rows += chunk.size();
+                    chunks++;
+                    committedLines = storedLines = lastLine;
+                    // Listeners of the published event may still hold the previous list
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, upload.key(), storedLines, lastLine);
+                rows += chunk.size();
+                chunks++;
+                committedLines = lastLine;
+            }
+        } catch (IOException e) {
+            throw failed(committedLines, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            throw failed(committedLines, e);
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        long rowsPerSecond = rows * 1000 / Math.max(elapsedMillis, 1);
+        log.info("Ingested {} transactions in {} chunks in {} ms ({} rows/s)", rows, chunks, elapsedMillis, rowsPerSecond);
+        return new IngestResult(rows, chunks, committedLines, elapsedMillis, rowsPerSecond);
+    }
+
+    private static BulkIngestException failed(long committedLines, RuntimeException cause) {
+        log.warn("Bulk upload stopped with lines 1 to {} committed: {}", committedLines, cause.getMessage());
+        return new BulkIngestException(committedLines, cause);
+    }
+
+    // The key's progress is read outside the chunk transactions; each of them checks it is unchanged
+    private Upload startUpload(String uploadKey, long resumeAfterLine) {
+        if (resumeAfterLine < 0) {
+            throw new InvalidTransactionException("resumeAfterLine must not be negative.");
+        }
+        if (uploadKey == null) {
+            return new Upload(null, 0, resumeAfterLine);
+        }
+        if (uploadKey.isBlank() || uploadKey.length() > MAX_UPLOAD_KEY_LENGTH) {
+            throw new InvalidTransactionException("Upload key must have 1 to " + MAX_UPLOAD_KEY_LENGTH + " characters.");
+        }
+        jdbcTemplate.update(START_UPLOAD, uploadKey);
+        Long stored = jdbcTemplate.queryForObject(
+                "SELECT committed_lines FROM ingest_upload WHERE upload_key = ?", Long.class, uploadKey);
+        return new Upload(uploadKey, stored, Math.max(stored, resumeAfterLine));
+    }
+
+    private void writeChunk(List<Transaction> chunk, String uploadKey, long storedLines, long toLine) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (uploadKey != null) {
+                if (jdbcTemplate.update(ADVANCE_UPLOAD, toLine, chunk.size(), uploadKey, storedLines) != 1) {
+                    throw new OptimisticLockingFailureException(
+                            "Upload " + uploadKey + " was advanced by another request; retry it to resume.");
+                }
+            }
+            int batchSize = rewardProperties.getIngest().getJdbcBatchSize();
+            for (int from = 0; from < chunk.size(); from += batchSize) {
+                insert(chunk.subList(from, Math.min(from + batchSize, chunk.size())));
+            }
+            rewardLedgerService.apply(chunk);
+            eventPublisher.publishEvent(new TransactionsRecordedEvent(chunk));
+        });
+    }
+
+    // One JDBC batch; the generated ids are set on the rows, so listeners of the event see them like
+    // those of TransactionService. MySQL derives them from the multi-row INSERT without another round trip.
+    private void insert(List<Transaction> batch) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_TRANSACTION, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Transaction transaction = batch.get(i);
+                ps.setLong(1, transaction.getCustomerId());
+                ps.setLong(2, transaction.getAmountCents());
+                ps.setObject(3, transaction.getTimestamp());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    private static BufferedReader bufferedReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static long skipLines(BufferedReader reader, long lines) {
+        try {
+            long skipped = 0;
+            while (skipped < lines && reader.readLine() != null) {
+                skipped++;
+            }
+            return skipped;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Transaction parseCsvLine(String line, long lineNumber) {
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        if (second < 0 || line.indexOf(',', second + 1) >= 0) {
+            throw new InvalidTransactionException("Line " + lineNumber + ": expected customerId,amount,timestamp.");
+        }
+        try {
+            return new Transaction(null,
+                    Long.parseLong(line, 0, first, 10),
+                    Transaction.toCents(new BigDecimal(line.substring(first + 1, second).trim())),
+                    LocalDateTime.parse(line.substring(second + 1).trim()));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidTransactionException("Line " + lineNumber + ": " + e.getMessage(), e);
+        } catch (ArithmeticException e) {
+            throw new InvalidTransactionException("Line " + lineNumber + ": amount must be in whole cents.", e);
+        }
+    }
+
+    private Transaction validated(Transaction transaction, long lineNumber) {
+        try {
+            TransactionService.validate(transaction);
+            archivedMonths.requireWritable(transaction.getTimestamp());
+            return transaction;
+        } catch (InvalidTransactionException e) {
+            throw new InvalidTransactionException("Line " + lineNumber + ": " + e.getMessage(), e);
+        } catch (ArchivedPeriodException e) {
+            throw new ArchivedPeriodException("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    private interface RowReader {
+        // Returns null once the input is exhausted
+        Transaction next() throws IOException;
+
+        // Number of the input line the last returned row ended on
+        long line();
+    }
+
+    // resumeAfterLine is where this request starts reading, storedLines what its key had committed before
+    private record Upload(String key, long storedLines, long resumeAfterLine) {
+    }
+}
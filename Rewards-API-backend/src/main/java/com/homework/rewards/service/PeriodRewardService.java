@@ -0,0 +1,125 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.datasource.ReplicaReads;
+import com.homework.rewards.dto.PeriodRewardResponse;
+import com.homework.rewards.dto.RewardPeriod;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Points of one or more customers for many periods at once, such as each of the last twelve
+ * months plus year to date. Instead of a query per period, the transactions of all customers
+ * between the earliest start and the latest end are read once, ordered by customer and time, and
+ * assigned to their periods by a {@link PeriodSweep}. Transactions in gaps between the periods
+ * are read and skipped, so far-apart periods are better asked for separately.
+ * <p>
+ * Transactions are counted where they are stored, so periods reaching into months the partition
+ * job has archived are refused rather than answered without those months.
+ */
+@Service
+@RequiredArgsConstructor
+public class PeriodRewardService {
+
+    private static final String SELECT_TRANSACTIONS = """
+            SELECT customer_id, timestamp, amount_cents FROM transaction
+            WHERE customer_id IN (%s) AND timestamp BETWEEN ? AND ?
+            ORDER BY customer_id, timestamp
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RewardPointsTable rewardPointsTable;
+    private final RewardProperties rewardProperties;
+    private final RewardMetrics rewardMetrics;
+    private final PlatformTransactionManager transactionManager;
+    private final ArchivedMonths archivedMonths;
+
+    /**
+     * One response per distinct customer, in request order, each with the periods in request
+     * order. Customers without transactions get zero points.
+     */
+    public List<PeriodRewardResponse> calculatePeriodRewards(List<Long> customerIds, List<RewardPeriod> periods) {
+        List<Long> distinctIds;
+        PeriodSweep sweep;
+        try {
+            distinctIds = validateCustomers(customerIds);
+            validatePeriods(periods);
+            sweep = new PeriodSweep(periods, rewardPointsTable);
+        } catch (IllegalArgumentException e) {
+            throw new RewardCalculationException("Invalid input: " + e.getMessage(), e);
+        }
+        archivedMonths.requireUnarchived(sweep.startDate());
+
+        try {
+            rewardMetrics.scan(RewardMetrics.REWARDS_PERIODS, () -> scan(distinctIds, sweep));
+            return rewardMetrics.aggregate(RewardMetrics.REWARDS_PERIODS, () -> {
+                List<PeriodRewardResponse> responses = new ArrayList<>(distinctIds.size());
+                for (Long customerId : distinctIds) {
+                    responses.add(new PeriodRewardResponse(customerId, sweep.periodPoints(customerId)));
+                }
+                return responses;
+            });
+        } catch (Exception e) {
+            throw new RewardCalculationException("An unexpected error occurred while calculating rewards.", e);
+        }
+    }
+
+    // Read-only, so a replica can serve it when rewards.replicas is enabled
+    private long scan(List<Long> customerIds, PeriodSweep sweep) {
+        String sql = SELECT_TRANSACTIONS.formatted(String.join(", ", Collections.nCopies(customerIds.size(), "?")));
+        long[] rows = new long[1];
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        ReplicaReads.upTo(sweep.endDate(), () -> readOnly.execute(status -> {
+            jdbcTemplate.query(sql, ps -> {
+                // With useCursorFetch=true MySQL streams the rows instead of buffering the whole result
+                ps.setFetchSize(rewardProperties.getPeriods().getFetchSize());
+                int parameter = 1;
+                for (Long customerId : customerIds) {
+                    ps.setLong(parameter++, customerId);
+                }
+                ps.setObject(parameter++, sweep.startDate());
+                ps.setObject(parameter, sweep.endDate());
+            }, rs -> {
+                sweep.add(rs.getLong(1), rs.getObject(2, LocalDateTime.class), rs.getLong(3));
+                rows[0]++;
+            });
+            return null;
+        }));
+        return rows[0];
+    }
+
+    private List<Long> validateCustomers(List<Long> customerIds) {
+        if (customerIds == null || customerIds.isEmpty() || customerIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Customer IDs must be a non-empty list without nulls.");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(customerIds));
+        int maxCustomers = rewardProperties.getPeriods().getMaxCustomers();
+        if (distinctIds.size() > maxCustomers) {
+            throw new IllegalArgumentException("At most " + maxCustomers + " customers can be requested at once.");
+        }
+        return distinctIds;
+    }
+
+    private void validatePeriods(List<RewardPeriod> periods) {
+        if (periods == null || periods.isEmpty() || periods.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Periods must be a non-empty list without nulls.");
+        }
+        int maxPeriods = rewardProperties.getPeriods().getMaxPeriods();
+        if (periods.size() > maxPeriods) {
+            throw new IllegalArgumentException("At most " + maxPeriods + " periods can be requested at once.");
+        }
+    }
+}
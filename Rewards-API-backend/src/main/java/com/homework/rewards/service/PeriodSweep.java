@@ -0,0 +1,200 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.dto.PeriodPoints;
+import com.homework.rewards.dto.RewardPeriod;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns transactions to any number of possibly overlapping periods in one pass.
+ * <p>
+ * The period boundaries are sorted once and cut the union range into segments, each knowing
+ * which periods contain it. A customer's transactions arrive in timestamp order, so finding a
+ * transaction's segment only moves a cursor forward, and points are summed per segment. When the
+ * customer is done each segment's sums are added to all of its periods, so a transaction counts
+ * in every period that contains it at a cost independent of how many do.
+ * <p>
+ * Period ends are inclusive, like {@code BETWEEN}. Times are compared in microseconds, the
+ * precision of the {@code timestamp} column.
+ */
+final class PeriodSweep {
+
+    private final List<RewardPeriod> periods;
+    private final RewardPointsTable pointsTable;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    // Segment k covers [boundaries[k], boundaries[k + 1]) in epoch microseconds
+    private final long[] boundaries;
+    // Indexes of the periods containing each segment
+    private final int[][] segmentPeriods;
+    private final long[] segmentPoints;
+    private final long[] segmentCounts;
+    // Per customer, points and transaction counts by period index
+    private final Map<Long, long[][]> totals = new HashMap<>();
+    private long customerId;
+    private boolean customerOpen;
+    private int segment;
+    private long transactionCount;
+
+    PeriodSweep(List<RewardPeriod> periods, RewardPointsTable pointsTable) {
+        this.periods = List.copyOf(periods);
+        this.pointsTable = pointsTable;
+
+        int count = this.periods.size();
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        for (int i = 0; i < count; i++) {
+            RewardPeriod period = this.periods.get(i);
+            if (period.getStartDate() == null || period.getEndDate() == null) {
+                throw new IllegalArgumentException("Period start and end dates must not be null.");
+            }
+            if (period.getEndDate().isBefore(period.getStartDate())) {
+                throw new IllegalArgumentException("End date cannot be before start date.");
+            }
+            try {
+                starts[i] = Math.addExact(epochMicros(period.getStartDate()), period.getStartDate().getNano() % 1_000 == 0 ? 0 : 1);
+                ends[i] = Math.addExact(epochMicros(period.getEndDate()), 1);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Period dates are out of range.", e);
+            }
+            first = first == null || period.getStartDate().isBefore(first) ? period.getStartDate() : first;
+            last = last == null || period.getEndDate().isAfter(last) ? period.getEndDate() : last;
+        }
+        this.startDate = first;
+        this.endDate = last;
+
+        long[] all = new long[2 * count];
+        System.arraycopy(starts, 0, all, 0, count);
+        System.arraycopy(ends, 0, all, count, count);
+        Arrays.sort(all);
+        int distinct = 0;
+        for (long boundary : all) {
+            if (distinct == 0 || all[distinct - 1] != boundary) {
+                all[distinct++] = boundary;
+            }
+        }
+        boundaries = Arrays.copyOf(all, distinct);
+
+        // Sweep the boundaries, opening and closing periods as they are passed
+        Integer[] byStart = sortedIndexes(starts);
+        Integer[] byEnd = sortedIndexes(ends);
+        BitSet open = new BitSet(count);
+        segmentPeriods = new int[Math.max(0, distinct - 1)][];
+        for (int k = 0, nextStart = 0, nextEnd = 0; k < segmentPeriods.length; k++) {
+            while (nextEnd < count && ends[byEnd[nextEnd]] <= boundaries[k]) {
+                open.clear(byEnd[nextEnd++]);
+            }
+            while (nextStart < count && starts[byStart[nextStart]] <= boundaries[k]) {
+                int period = byStart[nextStart++];
+                // A period shorter than a microsecond ends where it starts and holds nothing
+                if (ends[period] > boundaries[k]) {
+                    open.set(period);
+                }
+            }
+            segmentPeriods[k] = open.stream().toArray();
+        }
+        segmentPoints = new long[segmentPeriods.length];
+        segmentCounts = new long[segmentPeriods.length];
+    }
+
+    // Earliest start and latest end, the range to scan
+    LocalDateTime startDate() {
+        return startDate;
+    }
+
+    LocalDateTime endDate() {
+        return endDate;
+    }
+
+    /**
+     * Adds one transaction. Transactions are expected grouped by customer and in timestamp order
+     * within a customer; anything else is still counted correctly, only more slowly. Transactions
+     * outside every period are ignored.
+     */
+    void add(long rowCustomerId, LocalDateTime timestamp, long amountCents) {
+        if (!customerOpen || rowCustomerId != customerId) {
+            flush();
+            customerId = rowCustomerId;
+            customerOpen = true;
+            segment = 0;
+        }
+        long micros = epochMicros(timestamp);
+        if (segmentPeriods.length == 0 || micros < boundaries[0] || micros >= boundaries[boundaries.length - 1]) {
+            return;
+        }
+        if (micros < boundaries[segment]) {
+            segment = 0;
+        }
+        while (micros >= boundaries[segment + 1]) {
+            segment++;
+        }
+        segmentPoints[segment] += pointsTable.points(amountCents);
+        segmentCounts[segment]++;
+        transactionCount++;
+    }
+
+    // Transactions that fell inside at least one period
+    long transactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * The customer's points for every period in the order they were given, zero for a customer
+     * without transactions. Call once all transactions have been added.
+     */
+    List<PeriodPoints> periodPoints(Long customerId) {
+        flush();
+        long[][] customerTotals = totals.get(customerId);
+        List<PeriodPoints> result = new ArrayList<>(periods.size());
+        for (int i = 0; i < periods.size(); i++) {
+            RewardPeriod period = periods.get(i);
+            result.add(new PeriodPoints(period.getLabel(), period.getStartDate(), period.getEndDate(),
+                    customerTotals == null ? 0 : Math.toIntExact(customerTotals[0][i]),
+                    customerTotals == null ? 0 : customerTotals[1][i]));
+        }
+        return result;
+    }
+
+    // Spreads the open customer's segment sums over their periods
+    private void flush() {
+        if (!customerOpen) {
+            return;
+        }
+        long[][] customerTotals = totals.computeIfAbsent(customerId, id -> new long[2][periods.size()]);
+        for (int k = 0; k < segmentPeriods.length; k++) {
+            if (segmentCounts[k] == 0) {
+                continue;
+            }
+            for (int period : segmentPeriods[k]) {
+                customerTotals[0][period] += segmentPoints[k];
+                customerTotals[1][period] += segmentCounts[k];
+            }
+        }
+        Arrays.fill(segmentPoints, 0);
+        Arrays.fill(segmentCounts, 0);
+        customerOpen = false;
+    }
+
+    private static Integer[] sortedIndexes(long[] values) {
+        Integer[] indexes = new Integer[values.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, (a, b) -> Long.compare(values[a], values[b]));
+        return indexes;
+    }
+
+    // Truncated to the microsecond
+    private static long epochMicros(LocalDateTime time) {
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000L), time.getNano() / 1_000);
+    }
+}
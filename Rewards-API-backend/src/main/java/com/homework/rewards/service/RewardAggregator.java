@@ -0,0 +1,98 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.Transaction;
+
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Single-pass monthly reward aggregation over primitive values.
+ * <p>
+ * Responses key points by month name, so the same month of different years shares a bucket.
+ * Adding a transaction only updates the {@code long[]} buckets and allocates nothing. Month
+ * names are formatted once per JVM and looked up when the response map is built. Points per
+ * transaction come from {@link RewardPointsTable}.
+ */
+final class RewardAggregator {
+
+    private static final String[] MONTH_NAMES = new String[12];
+
+    static {
+        for (Month month : Month.values()) {
+            MONTH_NAMES[month.ordinal()] = month.getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        }
+    }
+
+    private final long[] points = new long[12];
+    private final long[] transactionCounts = new long[12];
+    // Bit per month that has a row, even a zero one, so it still shows up in the response
+    private int monthsSeen;
+
+    static RewardAggregator ofTransactions(RewardPointsTable pointsTable, List<Transaction> transactions) {
+        RewardAggregator aggregator = new RewardAggregator();
+        for (Transaction transaction : transactions) {
+            aggregator.add(transaction.getTimestamp().getMonthValue(), pointsTable.points(transaction.getAmountCents()));
+        }
+        return aggregator;
+    }
+
+    static RewardAggregator ofRows(List<? extends MonthlyPointsRow> rows) {
+        RewardAggregator aggregator = new RewardAggregator();
+        for (MonthlyPointsRow row : rows) {
+            aggregator.addMonth(row.getPeriodMonth(), row.getPoints(), row.getTransactionCount());
+        }
+        return aggregator;
+    }
+
+    // One transaction; month is 1-12
+    void add(int month, int transactionPoints) {
+        int bucket = month - 1;
+        points[bucket] += transactionPoints;
+        transactionCounts[bucket]++;
+        monthsSeen |= 1 << bucket;
+    }
+
+    // Pre-aggregated month, e.g. a ledger row or a database GROUP BY row
+    void addMonth(int month, long monthPoints, long transactionCount) {
+        int bucket = month - 1;
+        points[bucket] += monthPoints;
+        transactionCounts[bucket] += transactionCount;
+        monthsSeen |= 1 << bucket;
+    }
+
+    long transactionCount() {
+        long count = 0;
+        for (long monthCount : transactionCounts) {
+            count += monthCount;
+        }
+        return count;
+    }
+
+    int totalPoints() {
+        long total = 0;
+        for (long monthPoints : points) {
+            total += monthPoints;
+        }
+        return Math.toIntExact(total);
+    }
+
+    Map<String, Integer> monthlyPoints() {
+        Map<String, Integer> monthlyPoints = new HashMap<>();
+        for (int bucket = 0; bucket < 12; bucket++) {
+            if ((monthsSeen & (1 << bucket)) != 0) {
+                monthlyPoints.put(MONTH_NAMES[bucket], Math.toIntExact(points[bucket]));
+            }
+        }
+        return monthlyPoints;
+    }
+
+    RewardResponse toResponse(Long customerId, List<Transaction> transactions) {
+        return new RewardResponse(customerId, monthlyPoints(), totalPoints(), transactions);
+    }
+}
@@ -0,0 +1,182 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.entity.MonthlyRewardSummary;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.RewardLedgerRebuiltEvent;
+import com.homework.rewards.repository.MonthlyRewardSummaryRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Maintains the {@link MonthlyRewardSummary} ledger and answers reward queries from it.
+ * <p>
+ * Whole months inside a requested range are read from the ledger, so their cost no longer
+ * depends on how many transactions they hold. Partial months at either edge of the range are
+ * still aggregated from the raw {@code transaction} table, so they must not fall in an archived
+ * month. Reads only use the ledger when {@code rewards.ledger.enabled} is set, which should happen
+ * once it has been backfilled.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RewardLedgerService {
+
+    // One statement creates or increments a month, so writers need neither a prior lookup nor a
+    // second transaction. VALUES() rather than a row alias, which MariaDB and H2 do not support.
+    private static final String UPSERT_MONTH = """
+            INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE points = points + VALUES(points), transaction_count = transaction_count + VALUES(transaction_count)
+            """;
+
+    private final MonthlyRewardSummaryRepository summaryRepository;
+    private final TransactionRepository transactionRepository;
+    private final RewardProperties rewardProperties;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RewardPointsTable rewardPointsTable;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivedMonths archivedMonths;
+
+    /**
+     * Adds freshly written transactions to their months with one batched upsert per customer and
+     * month. Runs in the caller's transaction and on its connection, so the ledger commits or rolls
+     * back together with the rows it counts.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Collection<Transaction> transactions) {
+        // Sorted so concurrent writers lock ledger rows in the same order
+        Map<LedgerKey, long[]> deltas = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            LedgerKey key = new LedgerKey(transaction.getCustomerId(), YearMonth.from(transaction.getTimestamp()));
+            long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+            delta[0] += rewardPointsTable.points(transaction.getAmountCents());
+            delta[1]++;
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> upserts = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> upserts.add(new Object[]{
+                key.customerId(), key.month().getYear(), key.month().getMonthValue(), delta[0], delta[1]}));
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_MONTH, upserts);
+    }
+
+    /**
+     * Per-month points for the range: ledger rows for whole months, raw aggregation for the edges.
+     * Falls back to aggregating the whole range when the ledger is disabled. Whole archived months
+     * are answered, partial ones are refused.
+     */
+    @Transactional(readOnly = true)
+    public List<MonthlyPointsRow> sumMonthlyPoints(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (!rewardProperties.getLedger().isEnabled()) {
+            return sumRawMonthlyPoints(customerId, startDate, endDate);
+        }
+
+        YearMonth firstFull = startDate.equals(startOfMonth(YearMonth.from(startDate)))
+                ? YearMonth.from(startDate) : YearMonth.from(startDate).plusMonths(1);
+        YearMonth lastFull = endDate.isBefore(endOfMonth(YearMonth.from(endDate)))
+                ? YearMonth.from(endDate).minusMonths(1) : YearMonth.from(endDate);
+        if (firstFull.isAfter(lastFull)) {
+            return sumRawMonthlyPoints(customerId, startDate, endDate);
+        }
+
+        List<MonthlyPointsRow> rows = new ArrayList<>(summaryRepository.findMonthlyPoints(
+                customerId, period(firstFull), period(lastFull)));
+        if (startDate.isBefore(startOfMonth(firstFull))) {
+            rows.addAll(sumRawMonthlyPoints(customerId, startDate, endOfMonth(firstFull.minusMonths(1))));
+        }
+        if (endDate.isAfter(endOfMonth(lastFull))) {
+            rows.addAll(sumRawMonthlyPoints(customerId, startOfMonth(lastFull.plusMonths(1)), endDate));
+        }
+        return rows;
+    }
+
+    private List<MonthlyPointsRow> sumRawMonthlyPoints(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        archivedMonths.requireUnarchived(startDate);
+        return transactionRepository.sumMonthlyPoints(customerId, startDate, endDate);
+    }
+
+    /**
+     * Replaces the ledger with sums recomputed from the {@code transaction} table. Archived months
+     * no longer have their rows there, so their ledger rows are kept. Writes that commit while this
+     * runs may be missed, so run it while ingest is paused.
+     */
+    @Transactional
+    public int rebuild() {
+        YearMonth archived = archivedMonths.newest();
+        LocalDateTime from = archived == null ? LocalDateTime.of(1, 1, 1, 0, 0) : startOfMonth(archived.plusMonths(1));
+        jdbcTemplate.getJdbcTemplate().update(
+                "DELETE FROM monthly_reward_summary WHERE period_year * 100 + period_month >= ?", period(YearMonth.from(from)));
+        // Every month from the raw table in one statement
+        int months = jdbcTemplate.getJdbcTemplate().update("""
+                INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count)
+                SELECT t.customer_id, YEAR(t.timestamp), MONTH(t.timestamp), SUM(%s), COUNT(*)
+                FROM transaction t
+                WHERE t.timestamp >= ?
+                GROUP BY t.customer_id, YEAR(t.timestamp), MONTH(t.timestamp)
+                """.formatted(rewardPointsTable.sqlPoints("t.amount_cents")), from);
+        log.info("Rebuilt reward ledger with {} customer months", months);
+        eventPublisher.publishEvent(new RewardLedgerRebuiltEvent(null));
+        return months;
+    }
+
+    /**
+     * Replaces one month of the ledger with sums recomputed from the {@code transaction} table,
+     * before that month's rows are archived. Only the month's partition is read.
+     */
+    @Transactional
+    public int rebuildMonth(YearMonth month) {
+        jdbcTemplate.getJdbcTemplate().update(
+                "DELETE FROM monthly_reward_summary WHERE period_year = ? AND period_month = ?",
+                month.getYear(), month.getMonthValue());
+        int customers = jdbcTemplate.getJdbcTemplate().update("""
+                INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count)
+                SELECT t.customer_id, ?, ?, SUM(%s), COUNT(*)
+                FROM transaction t
+                WHERE t.timestamp BETWEEN ? AND ?
+                GROUP BY t.customer_id
+                """.formatted(rewardPointsTable.sqlPoints("t.amount_cents")),
+                month.getYear(), month.getMonthValue(), startOfMonth(month), endOfMonth(month));
+        log.info("Rebuilt reward ledger for {} with {} customers", month, customers);
+        eventPublisher.publishEvent(new RewardLedgerRebuiltEvent(month));
+        return customers;
+    }
+
+    /**
+     * Last instant of a month at the microsecond precision timestamps are stored with, so it can
+     * be used as an inclusive upper bound without the driver rounding it into the next month.
+     */
+    public static LocalDateTime endOfMonth(YearMonth month) {
+        return startOfMonth(month.plusMonths(1)).minus(1, ChronoUnit.MICROS);
+    }
+
+    private static LocalDateTime startOfMonth(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private static int period(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private record LedgerKey(Long customerId, YearMonth month) implements Comparable<LedgerKey> {
+        @Override
+        public int compareTo(LedgerKey other) {
+            int byCustomer = customerId.compareTo(other.customerId);
+            return byCustomer != 0 ? byCustomer : month.compareTo(other.month);
+        }
+    }
+}
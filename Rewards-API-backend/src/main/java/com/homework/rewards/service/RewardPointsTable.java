@@ -0,0 +1,83 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Points per transaction from the configured {@code rewards.points.tiers}, precomputed into cent
+ * thresholds so scoring an amount takes a few integer comparisons and one multiplication.
+ * <p>
+ * Tiers are marginal: every cent above a threshold, up to the next threshold, earns that tier's
+ * rate, and the total is rounded down to whole points once. The defaults give 1 point per dollar
+ * between $50 and $100 plus 2 points per dollar above $100.
+ */
+public final class RewardPointsTable {
+
+    private final long[] thresholdCents;
+    private final long[] pointsPerDollar;
+    // Point-cents earned by the tiers below each threshold, e.g. 5000 at $100 by default
+    private final long[] basePointCents;
+
+    public RewardPointsTable(List<RewardProperties.Tier> tiers) {
+        List<RewardProperties.Tier> sorted = tiers.stream()
+                .peek(RewardPointsTable::validate)
+                .sorted(Comparator.comparing(RewardProperties.Tier::getAbove))
+                .toList();
+
+        thresholdCents = new long[sorted.size()];
+        pointsPerDollar = new long[sorted.size()];
+        basePointCents = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            thresholdCents[i] = sorted.get(i).getAbove().movePointRight(2).longValueExact();
+            pointsPerDollar[i] = sorted.get(i).getPointsPerDollar();
+            if (i > 0) {
+                if (thresholdCents[i] == thresholdCents[i - 1]) {
+                    throw new IllegalArgumentException("Reward tiers must have distinct thresholds.");
+                }
+                basePointCents[i] = basePointCents[i - 1] + (thresholdCents[i] - thresholdCents[i - 1]) * pointsPerDollar[i - 1];
+            }
+        }
+    }
+
+    public int points(long amountCents) {
+        for (int i = thresholdCents.length - 1; i >= 0; i--) {
+            if (amountCents > thresholdCents[i]) {
+                long pointCents = Math.addExact(basePointCents[i],
+                        Math.multiplyExact(amountCents - thresholdCents[i], pointsPerDollar[i]));
+                return Math.toIntExact(pointCents / 100);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The same rule as {@link #points} as a SQL expression over a cents column, for evaluating
+     * per row before summing in the database.
+     */
+    public String sqlPoints(String amountCentsColumn) {
+        if (thresholdCents.length == 0) {
+            return "0";
+        }
+        StringBuilder sql = new StringBuilder("FLOOR((CASE");
+        for (int i = thresholdCents.length - 1; i >= 0; i--) {
+            sql.append(" WHEN ").append(amountCentsColumn).append(" > ").append(thresholdCents[i])
+                    .append(" THEN ").append(basePointCents[i])
+                    .append(" + (").append(amountCentsColumn).append(" - ").append(thresholdCents[i]).append(") * ")
+                    .append(pointsPerDollar[i]);
+        }
+        return sql.append(" ELSE 0 END) / 100)").toString();
+    }
+
+    private static void validate(RewardProperties.Tier tier) {
+        BigDecimal above = tier.getAbove();
+        if (above == null || above.signum() < 0 || above.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Reward tier thresholds must be non-negative amounts in whole cents.");
+        }
+        if (tier.getPointsPerDollar() < 0) {
+            throw new IllegalArgumentException("Reward tier rates must not be negative.");
+        }
+    }
+}
@@ -1,78 +1,141 @@
 package com.homework.rewards.service;
 
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.cache.HotTransactionTier;
+import com.homework.rewards.datasource.ReplicaReads;
+import com.homework.rewards.dto.MonthlyPointsRow;
 import com.homework.rewards.dto.RewardResponse;
 import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.ArchivedPeriodException;
 import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
 import com.homework.rewards.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.time.format.TextStyle;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class RewardService {
 
     private final TransactionRepository transactionRepository;
+    private final RewardLedgerService rewardLedgerService;
+    private final RewardPointsTable rewardPointsTable;
+    private final RewardMetrics rewardMetrics;
+    private final PlatformTransactionManager transactionManager;
+    private final ArchivedMonths archivedMonths;
+    private final CustomerCacheVersions customerCacheVersions;
+    // Present with rewards.hot-tier.enabled
+    private final ObjectProvider<HotTransactionTier> hotTransactionTier;
 
     public RewardResponse calculateRewards(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
         try {
             // Validate inputs
-            if (customerId == null || startDate == null || endDate == null) {
-                throw new IllegalArgumentException("Customer ID, start date, and end date must not be null.");
-            }
-            if (endDate.isBefore(startDate)) {
-                throw new IllegalArgumentException("End date cannot be before start date.");
-            }
+            validateInputs(customerId, startDate, endDate);
+            archivedMonths.requireUnarchived(startDate);
 
-            // Fetch transactions
-            List<Transaction> transactions = transactionRepository.findByCustomerIdAndTimestampBetween(
-                    customerId, startDate, endDate
-            );
+            // Fetch transactions, from memory if the hot tier holds the period
+            HotTransactionTier hotTier = hotTransactionTier.getIfAvailable();
+            List<Transaction> transactions = rewardMetrics.fetch(RewardMetrics.REWARDS, () -> {
+                List<Transaction> recent = hotTier == null ? null : hotTier.findTransactions(customerId, startDate, endDate);
+                return recent != null ? recent
+                        : readOnly(customerId, endDate, () -> transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate));
+            });
 
             // Check if transactions exist
             if (transactions == null || transactions.isEmpty()) {
                 throw new NoSuchElementException("No transactions found for the given customer and date range.");
             }
 
-            // Calculate rewards
-            Map<String, Integer> monthlyPoints = transactions.stream()
-                    .collect(Collectors.groupingBy(
-                            t -> t.getTimestamp().getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH),
-                            Collectors.summingInt(this::calculatePoints)
-                    ));
-
-            int totalPoints = monthlyPoints.values().stream().mapToInt(Integer::intValue).sum();
-
-            // Return response with transactions included
-            return new RewardResponse(customerId, monthlyPoints, totalPoints, transactions);
+            // Calculate rewards and return response with transactions included
+            return rewardMetrics.aggregate(RewardMetrics.REWARDS,
+                    () -> RewardAggregator.ofTransactions(rewardPointsTable, transactions).toResponse(customerId, transactions));
 
         } catch (IllegalArgumentException e) {
             throw new RewardCalculationException("Invalid input: " + e.getMessage(), e);
         } catch (NoSuchElementException e) {
             throw new RewardCalculationException("Data error: " + e.getMessage(), e);
+        } catch (ArchivedPeriodException e) {
+            throw e;
         } catch (Exception e) {
             throw new RewardCalculationException("An unexpected error occurred while calculating rewards.", e);
         }
     }
 
-    private int calculatePoints(Transaction transaction) {
+    /**
+     * Same result as {@link #calculateRewards} without the transaction list. Points are summed
+     * from the hot tier's columns, per month by the database, or read from the monthly ledger for
+     * whole months, so no {@link Transaction} entities are loaded.
+     */
+    @Cacheable(cacheResolver = "rewardCachePolicy", keyGenerator = "rewardCachePolicy")
+    public RewardResponse calculateRewardSummary(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
         try {
-            double amount = transaction.getAmount();
-            int points = 0;
-            if (amount > 100) {
-                points += (amount - 100) * 2;
-                amount = 100;
+            // Validate inputs
+            validateInputs(customerId, startDate, endDate);
+
+            RewardAggregator aggregator = aggregateHotTier(customerId, startDate, endDate);
+            if (aggregator == null) {
+                // Aggregate in the database, one row per month
+                List<MonthlyPointsRow> rows = rewardMetrics.fetch(RewardMetrics.REWARDS_SUMMARY,
+                        () -> readOnly(customerId, endDate, () -> rewardLedgerService.sumMonthlyPoints(customerId, startDate, endDate)));
+                aggregator = rewardMetrics.aggregate(RewardMetrics.REWARDS_SUMMARY,
+                        () -> RewardAggregator.ofRows(rows == null ? List.of() : rows));
             }
-            if (amount > 50) {
-                points += (amount - 50);
+
+            // Check if transactions exist
+            if (aggregator.transactionCount() == 0) {
+                throw new NoSuchElementException("No transactions found for the given customer and date range.");
             }
-            return points;
+
+            return aggregator.toResponse(customerId, null);
+
+        } catch (IllegalArgumentException e) {
+            throw new RewardCalculationException("Invalid input: " + e.getMessage(), e);
+        } catch (NoSuchElementException e) {
+            throw new RewardCalculationException("Data error: " + e.getMessage(), e);
+        } catch (ArchivedPeriodException e) {
+            throw e;
         } catch (Exception e) {
-            throw new RewardCalculationException("Error while calculating points for a transaction.", e);
+            throw new RewardCalculationException("An unexpected error occurred while calculating rewards.", e);
+        }
+    }
+
+    // Null unless the hot tier holds the whole period
+    private RewardAggregator aggregateHotTier(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        HotTransactionTier hotTier = hotTransactionTier.getIfAvailable();
+        if (hotTier == null) {
+            return null;
+        }
+        RewardAggregator aggregator = new RewardAggregator();
+        boolean covered = rewardMetrics.aggregate(RewardMetrics.REWARDS_SUMMARY, () -> hotTier.forEachAmount(customerId,
+                startDate, endDate, (month, amountCents) -> aggregator.add(month, rewardPointsTable.points(amountCents))));
+        return covered ? aggregator : null;
+    }
+
+    // Read-only, so a replica can serve it when rewards.replicas is enabled, once it has the
+    // customer's latest change. Programmatic rather than @Transactional, so requests answered by
+    // the hot tier never take a connection.
+    private <T> T readOnly(Long customerId, LocalDateTime periodEnd, Supplier<T> read) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return ReplicaReads.upTo(periodEnd, customerCacheVersions.changedAt(customerId),
+                () -> transaction.execute(status -> read.get()));
+    }
+
+    static void validateInputs(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (customerId == null || startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Customer ID, start date, and end date must not be null.");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date cannot be before start date.");
         }
     }
-}
\ No newline at end of file
+}
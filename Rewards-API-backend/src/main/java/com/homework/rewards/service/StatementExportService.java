@@ -0,0 +1,220 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.datasource.ReplicaReads;
+import com.homework.rewards.dto.StatementExport;
+import com.homework.rewards.entity.TimestampMicros;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.export.ColumnBlock;
+import com.homework.rewards.export.ColumnarFormat;
+import com.homework.rewards.export.ColumnarWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Exports the monthly reward statements of every customer for a period, together with the
+ * transactions behind them, as a {@link ColumnarFormat} file.
+ * <p>
+ * Transactions are read through one cursor ordered by customer and time, and the statements are
+ * summed from the same rows, so both parts of a file agree. At most one frame of
+ * {@code rewards.export.block-rows} rows of each kind is held in memory; frames are written to
+ * the file through a {@link FileChannel}. The file is complete before it is downloaded, so a slow
+ * client never holds a database connection.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatementExportService {
+
+    // The order of idx_transaction_customer_timestamp, which also holds id, so on the partitioned
+    // table the period's partitions of that index are merged in order instead of sorting the rows.
+    // Unpartitioned, the database picks between scanning that index and a range read plus a sort.
+    private static final String SELECT_TRANSACTIONS = """
+            SELECT customer_id, id, timestamp, amount_cents FROM transaction
+            WHERE timestamp BETWEEN ? AND ? ORDER BY customer_id, timestamp, amount_cents
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RewardPointsTable rewardPointsTable;
+    private final RewardProperties rewardProperties;
+    private final ArchivedMonths archivedMonths;
+
+    public StatementExport export(LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null || endDate == null) {
+            throw new RewardCalculationException("Invalid input: Start date and end date must not be null.");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new RewardCalculationException("Invalid input: End date cannot be before start date.");
+        }
+        archivedMonths.requireUnarchived(startDate);
+
+        RewardProperties.Export properties = rewardProperties.getExport();
+        long started = System.nanoTime();
+        Path file = null;
+        try {
+            file = properties.getDirectory() == null
+                    ? Files.createTempFile("rewards-export-", ".rwc")
+                    : Files.createTempFile(Path.of(properties.getDirectory()), "rewards-export-", ".rwc");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ExportRows rows = new ExportRows(new ColumnarWriter(channel), rewardPointsTable, properties.getBlockRows());
+                TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                readOnly.setReadOnly(true);
+                ReplicaReads.upTo(endDate, () -> readOnly.execute(status -> {
+                    jdbcTemplate.query(SELECT_TRANSACTIONS, ps -> {
+                        // With useCursorFetch=true MySQL streams the rows instead of buffering the whole result
+                        ps.setFetchSize(properties.getFetchSize());
+                        ps.setObject(1, startDate);
+                        ps.setObject(2, endDate);
+                    }, rows);
+                    return null;
+                }));
+                rows.finish();
+
+                StatementExport export = new StatementExport(file, rows.transactionCount, rows.statementCount,
+                        rows.writer.bytesWritten(), (System.nanoTime() - started) / 1_000_000);
+                log.info("Exported {} statements and {} transactions from {} to {} in {} ms ({} bytes)", export.getStatements(),
+                        export.getTransactions(), startDate, endDate, export.getElapsedMillis(), export.getBytes());
+                return export;
+            }
+        } catch (IOException e) {
+            delete(file);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the export to {@code out} with {@link FileChannel#transferTo}, then deletes it.
+     */
+    public void transfer(StatementExport export, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(export.getFile(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        } finally {
+            delete(export.getFile());
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Rows arrive grouped by customer and in time order, so a statement is complete as soon as
+     * the customer or the month changes.
+     */
+    private static final class ExportRows implements RowCallbackHandler {
+        private final ColumnarWriter writer;
+        private final RewardPointsTable pointsTable;
+        private final int blockRows;
+        private final ColumnBlock transactions;
+        private final ColumnBlock statements;
+        private long customerId = -1;
+        private long month = -1;
+        private long points;
+        private long count;
+        private long transactionCount;
+        private long statementCount;
+
+        ExportRows(ColumnarWriter writer, RewardPointsTable pointsTable, int blockRows) {
+            this.writer = writer;
+            this.pointsTable = pointsTable;
+            this.blockRows = blockRows;
+            this.transactions = new ColumnBlock(blockRows);
+            this.statements = new ColumnBlock(blockRows);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowCustomerId = rs.getLong(1);
+            LocalDateTime timestamp = rs.getObject(3, LocalDateTime.class);
+            long amountCents = rs.getLong(4);
+            long rowMonth = ColumnarFormat.monthIndex(timestamp.getYear(), timestamp.getMonthValue());
+            if (rowCustomerId != customerId || rowMonth != month) {
+                closeStatement();
+                customerId = rowCustomerId;
+                month = rowMonth;
+            }
+            points += pointsTable.points(amountCents);
+            count++;
+
+            transactions.add(rowCustomerId, rs.getLong(2), TimestampMicros.of(timestamp), amountCents);
+            transactionCount++;
+            if (transactions.size() == blockRows) {
+                flushTransactions();
+            }
+        }
+
+        void finish() throws IOException {
+            closeStatement();
+            flushTransactions();
+            flushStatements();
+            writer.writeEnd(transactionCount, statementCount);
+        }
+
+        private void closeStatement() {
+            if (count == 0) {
+                return;
+            }
+            statements.add(customerId, month, points, count);
+            statementCount++;
+            points = 0;
+            count = 0;
+            if (statements.size() == blockRows) {
+                flushStatements();
+            }
+        }
+
+        private void flushTransactions() {
+            try {
+                if (transactions.size() > 0) {
+                    writer.writeTransactions(transactions);
+                    transactions.clear();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flushStatements() {
+            try {
+                if (statements.size() > 0) {
+                    writer.writeStatements(statements);
+                    statements.clear();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
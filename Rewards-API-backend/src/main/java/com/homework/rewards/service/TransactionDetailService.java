@@ -0,0 +1,108 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.dto.TransactionPage;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Transaction detail for a customer and date range, kept apart from the reward summary so large
+ * ranges are never materialized in one response. Rows are ordered by {@code (timestamp, id)}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionDetailService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ArchivedMonths archivedMonths;
+
+    /**
+     * Fails fast on bad input or an archived period, before any response has been committed.
+     */
+    public void validate(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        try {
+            RewardService.validateInputs(customerId, startDate, endDate);
+        } catch (IllegalArgumentException e) {
+            throw new RewardCalculationException("Invalid input: " + e.getMessage(), e);
+        }
+        archivedMonths.requireUnarchived(startDate);
+    }
+
+    /**
+     * One keyset page. {@code cursor} is the {@code nextCursor} of the previous page, or null for
+     * the first page.
+     */
+    public TransactionPage findPage(Long customerId, LocalDateTime startDate, LocalDateTime endDate,
+                                    String cursor, int limit) {
+        try {
+            RewardService.validateInputs(customerId, startDate, endDate);
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
+            archivedMonths.requireUnarchived(startDate);
+
+            // Fetch one extra row to know whether another page follows
+            PageRequest pageRequest = PageRequest.of(0, limit + 1);
+            List<Transaction> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = transactionRepository.findByCustomerIdAndTimestampBetweenOrderByTimestampAscIdAsc(
+                        customerId, startDate, endDate, pageRequest);
+            } else {
+                String[] parts = cursor.split(",", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Cursor must have the form <timestamp>,<id>.");
+                }
+                rows = transactionRepository.findPageAfter(customerId, startDate, endDate,
+                        LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]), pageRequest);
+            }
+
+            if (rows.size() <= limit) {
+                return new TransactionPage(rows, null);
+            }
+            List<Transaction> page = rows.subList(0, limit);
+            Transaction last = page.get(limit - 1);
+            return new TransactionPage(page, last.getTimestamp() + "," + last.getId());
+
+        } catch (DateTimeParseException e) {
+            throw new RewardCalculationException("Invalid input: malformed cursor timestamp.", e);
+        } catch (IllegalArgumentException e) {
+            throw new RewardCalculationException("Invalid input: " + e.getMessage(), e);
+        } catch (ArchivedPeriodException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RewardCalculationException("An unexpected error occurred while reading transactions.", e);
+        }
+    }
+
+    /**
+     * Hands every row to {@code sink} as it is read from the database cursor. Each entity is
+     * detached once written, so the persistence context does not grow with the range.
+     */
+    @Transactional(readOnly = true)
+    public void streamTransactions(Long customerId, LocalDateTime startDate, LocalDateTime endDate,
+                                   Consumer<Transaction> sink) {
+        validate(customerId, startDate, endDate);
+        try (Stream<Transaction> transactions = transactionRepository
+                .streamByCustomerIdAndTimestampBetweenOrderByTimestampAscIdAsc(customerId, startDate, endDate)) {
+            transactions.forEach(transaction -> {
+                sink.accept(transaction);
+                entityManager.detach(transaction);
+            });
+        }
+    }
+}
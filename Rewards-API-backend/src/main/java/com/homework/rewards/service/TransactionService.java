@@ -0,0 +1,49 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.exception.InvalidTransactionException;
+import com.homework.rewards.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Write path for transactions. Every write goes through here so the reward ledger is updated in
+ * the same database transaction as the rows it summarizes, and a {@link TransactionsRecordedEvent}
+ * is published for in-memory state.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionService {
+
+    private final TransactionRepository transactionRepository;
+    private final RewardLedgerService rewardLedgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivedMonths archivedMonths;
+
+    @Transactional
+    public Transaction record(Transaction transaction) {
+        validate(transaction);
+        archivedMonths.requireWritable(transaction.getTimestamp());
+        transaction.setId(null);
+
+        Transaction saved = transactionRepository.save(transaction);
+        rewardLedgerService.apply(List.of(saved));
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(List.of(saved)));
+        return saved;
+    }
+
+    static void validate(Transaction transaction) {
+        if (transaction == null || transaction.getCustomerId() == null
+                || transaction.getAmountCents() == null || transaction.getTimestamp() == null) {
+            throw new InvalidTransactionException("Customer ID, amount, and timestamp must not be null.");
+        }
+        if (transaction.getAmountCents() < 0) {
+            throw new InvalidTransactionException("Amount must not be negative.");
+        }
+    }
+}
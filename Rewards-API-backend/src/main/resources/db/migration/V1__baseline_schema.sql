@@ -0,0 +1,17 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE customer (
+    id    BIGINT       NOT NULL AUTO_INCREMENT,
+    name  VARCHAR(255),
+    email VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE transaction (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    customer_id BIGINT,
+    amount      DOUBLE,
+    timestamp   DATETIME(6),
+    PRIMARY KEY (id)
+);
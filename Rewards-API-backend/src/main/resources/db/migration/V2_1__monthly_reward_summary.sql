@@ -0,0 +1,12 @@
+-- The monthly reward ledger is newer than the baseline schema, so databases baselined at V1 get
+-- it here, before V3 reads it. IF NOT EXISTS, for one that ddl-auto already created.
+CREATE TABLE IF NOT EXISTS monthly_reward_summary (
+    id                BIGINT NOT NULL AUTO_INCREMENT,
+    customer_id       BIGINT,
+    period_year       INT,
+    period_month      INT,
+    points            BIGINT,
+    transaction_count BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_monthly_reward_summary_customer_period UNIQUE (customer_id, period_year, period_month)
+);
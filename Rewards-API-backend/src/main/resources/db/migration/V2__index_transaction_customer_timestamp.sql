@@ -0,0 +1,3 @@
+-- Serves every lookup by customer and date range. amount is included so the reward
+-- aggregations are answered from the index without touching table rows.
+CREATE INDEX idx_transaction_customer_timestamp ON transaction (customer_id, timestamp, amount);
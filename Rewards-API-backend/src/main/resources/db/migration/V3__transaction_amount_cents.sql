@@ -0,0 +1,25 @@
+-- Amounts become whole cents so points are computed with integer arithmetic. Existing DOUBLE
+-- amounts are rounded to the nearest cent. Ledger months holding an amount that rounding changed
+-- are listed in ledger_rebuild_month, and V3.1 recomputes them with the configured tiers.
+ALTER TABLE transaction ADD COLUMN amount_cents BIGINT;
+UPDATE transaction SET amount_cents = ROUND(amount * 100);
+
+CREATE TABLE ledger_rebuild_month (
+    customer_id  BIGINT NOT NULL,
+    period_year  INT    NOT NULL,
+    period_month INT    NOT NULL,
+    PRIMARY KEY (customer_id, period_year, period_month)
+);
+
+-- The tolerance ignores the binary representation error of amounts that were whole cents
+INSERT INTO ledger_rebuild_month (customer_id, period_year, period_month)
+SELECT DISTINCT s.customer_id, s.period_year, s.period_month
+FROM transaction t
+JOIN monthly_reward_summary s
+  ON s.customer_id = t.customer_id AND s.period_year = YEAR(t.timestamp) AND s.period_month = MONTH(t.timestamp)
+WHERE ABS(t.amount * 100 - t.amount_cents) > 0.000001;
+
+DROP INDEX idx_transaction_customer_timestamp ON transaction;
+CREATE INDEX idx_transaction_customer_timestamp ON transaction (customer_id, timestamp, amount_cents);
+
+ALTER TABLE transaction DROP COLUMN amount;
@@ -0,0 +1,40 @@
+-- Month-end statement runs. A run splits the customer id space into partitions that are
+-- computed in parallel; each partition commits its statements together with its COMPLETED
+-- status, so an interrupted run resumes with the partitions still PENDING.
+CREATE TABLE statement_run (
+    id              BIGINT      NOT NULL AUTO_INCREMENT,
+    period_start    DATETIME(6) NOT NULL,
+    period_end      DATETIME(6) NOT NULL,
+    status          VARCHAR(16) NOT NULL,
+    partition_size  BIGINT      NOT NULL,
+    partition_count INT         NOT NULL,
+    started_at      DATETIME(6),
+    finished_at     DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE statement_partition (
+    id                BIGINT      NOT NULL AUTO_INCREMENT,
+    run_id            BIGINT      NOT NULL,
+    partition_number  INT         NOT NULL,
+    from_customer_id  BIGINT      NOT NULL,
+    to_customer_id    BIGINT      NOT NULL,
+    status            VARCHAR(16) NOT NULL,
+    customer_count    BIGINT,
+    transaction_count BIGINT,
+    completed_at      DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_statement_partition_run_number UNIQUE (run_id, partition_number)
+);
+
+CREATE TABLE reward_statement (
+    id                BIGINT NOT NULL AUTO_INCREMENT,
+    run_id            BIGINT NOT NULL,
+    customer_id       BIGINT NOT NULL,
+    period_year       INT    NOT NULL,
+    period_month      INT    NOT NULL,
+    points            BIGINT NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_reward_statement_run_customer_period UNIQUE (run_id, customer_id, period_year, period_month)
+);
@@ -0,0 +1,9 @@
+-- Written on the primary by the replica router every check interval and read back from each
+-- replica; the age of the value a replica returns bounds how stale its data is.
+CREATE TABLE replication_heartbeat (
+    id          INT    NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, 0);
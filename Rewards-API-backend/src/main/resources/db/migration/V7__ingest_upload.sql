@@ -0,0 +1,10 @@
+-- Progress of bulk uploads sent with an Idempotency-Key. Each chunk advances committed_lines in
+-- the transaction that writes its rows, so a retry with the same key skips exactly the lines
+-- already stored.
+CREATE TABLE ingest_upload (
+    upload_key      VARCHAR(64) NOT NULL,
+    committed_lines BIGINT      NOT NULL,
+    committed_rows  BIGINT      NOT NULL,
+    updated_at      DATETIME(6) NOT NULL,
+    PRIMARY KEY (upload_key)
+);
@@ -0,0 +1,11 @@
+-- Months TransactionPartitionMaintenanceJob takes out of the transaction table. A month is marked
+-- first, so every instance stops reading its rows before they are moved; archived_at is set once
+-- they are. The totals of archived months stay in monthly_reward_summary.
+CREATE TABLE archived_month (
+    period_year   INT         NOT NULL,
+    period_month  INT         NOT NULL,
+    marked_at     DATETIME(6) NOT NULL,
+    archived_at   DATETIME(6),
+    archived_rows BIGINT,
+    PRIMARY KEY (period_year, period_month)
+);
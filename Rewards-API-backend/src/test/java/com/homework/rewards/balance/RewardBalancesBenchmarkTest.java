@@ -0,0 +1,151 @@
+package com.homework.rewards.balance;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardPointsTable;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Burst load on the balance pipeline without a database write path, run with
+ * {@code ./gradlew benchmarkTest --tests RewardBalancesBenchmarkTest}. Publishing threads send
+ * {@code benchmark.rows} transactions as fast as they can, either one per event like
+ * {@code POST /api/transactions} or in chunks like the bulk endpoint, and the report gives the
+ * sustained rate, the time writers were held back by a full ring and the commit-to-balance lag.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import(RewardPointsConfig.class)
+public class RewardBalancesBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5_000_000);
+    private static final int PUBLISHERS = Integer.getInteger("benchmark.publishers", 8);
+    private static final int CUSTOMERS = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RewardPointsTable rewardPointsTable;
+
+    @Test
+    void burst_SingleTransactions() throws Exception {
+        run("single transactions", 1);
+    }
+
+    @Test
+    void burst_Chunks() throws Exception {
+        run("chunks of 10,000", 10_000);
+    }
+
+    private void run(String name, int eventSize) throws Exception {
+        // Warm up the JIT before the measured run
+        measure(name, eventSize, ROWS / 10, false);
+        measure(name, eventSize, ROWS, true);
+    }
+
+    private void measure(String name, int eventSize, int rows, boolean report) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // One instance, so no refreshes and no ids to remember
+        RewardProperties properties = new RewardProperties();
+        properties.getBalances().setRefreshCron(Scheduled.CRON_DISABLED);
+        properties.getBalances().setRefreshOverlap(Duration.ZERO);
+        RewardBalances balances = new RewardBalances(jdbcTemplate, transactionManager, rewardPointsTable,
+                new ArchivedMonths(jdbcTemplate, properties), properties, registry);
+        balances.start();
+        AtomicLong nextId = new AtomicLong(1);
+        int perPublisher = rows / PUBLISHERS;
+
+        ExecutorService publishers = Executors.newFixedThreadPool(PUBLISHERS);
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PUBLISHERS; p++) {
+            long seed = p;
+            futures.add(publishers.submit(() -> publish(balances, nextId, perPublisher, eventSize, seed)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        while (balances.queued() > 0) {
+            Thread.sleep(1);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        publishers.shutdown();
+        balances.close();
+
+        long published = (long) perPublisher * PUBLISHERS;
+        assertEquals(published, sumCounts(balances));
+        if (report) {
+            Timer wait = registry.get("rewards.balances.publish.wait").timer();
+            HistogramSnapshot lag = registry.get("rewards.balances.lag").timer().takeSnapshot();
+            System.out.printf("Balance pipeline, %s from %d threads: %d transactions in %d ms (%d/s); "
+                            + "writers waited %d ms in total; lag p50 %s, p99 %s, max %.2f ms over %d batches%n",
+                    name, PUBLISHERS, published, elapsedNanos / 1_000_000, published * 1_000_000_000L / elapsedNanos,
+                    (long) wait.totalTime(TimeUnit.MILLISECONDS), millis(lag, 0.5), millis(lag, 0.99),
+                    lag.max(TimeUnit.MILLISECONDS), lag.count());
+        }
+    }
+
+    private static void publish(RewardBalances balances, AtomicLong nextId, int rows, int eventSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime timestamp = LocalDateTime.of(2023, 1, 1, 0, 0);
+        for (int sent = 0; sent < rows; ) {
+            int size = Math.min(eventSize, rows - sent);
+            List<Transaction> event = new ArrayList<>(size);
+            long id = nextId.getAndAdd(size);
+            for (int i = 0; i < size; i++) {
+                event.add(new Transaction(id + i, 1L + random.nextInt(CUSTOMERS), (long) random.nextInt(25_000), timestamp));
+            }
+            balances.onTransactionsRecorded(new TransactionsRecordedEvent(event));
+            sent += size;
+        }
+    }
+
+    private static long sumCounts(RewardBalances balances) {
+        long count = 0;
+        for (long customerId = 1; customerId <= CUSTOMERS; customerId++) {
+            count += balances.balance(customerId).getTransactionCount();
+        }
+        return count;
+    }
+
+    private static String millis(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return String.format("%.2f ms", value.value(TimeUnit.MILLISECONDS));
+            }
+        }
+        return "n/a";
+    }
+}
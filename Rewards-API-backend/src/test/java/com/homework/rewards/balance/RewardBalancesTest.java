@@ -0,0 +1,201 @@
+package com.homework.rewards.balance;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.RewardBalance;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.exception.BalancesUnavailableException;
+import com.homework.rewards.repository.MonthlyRewardSummaryRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardLedgerService;
+import com.homework.rewards.service.RewardPointsTable;
+import com.homework.rewards.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Balances are created per test and fed their events directly, the way the write path's
+ * after-commit listener would. Runs without a test transaction so the load sees committed rows.
+ */
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, TransactionService.class, RewardLedgerService.class, ArchivedMonths.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RewardBalancesTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardSummaryRepository summaryRepository;
+
+    @Autowired
+    private RewardPointsTable rewardPointsTable;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArchivedMonths archivedMonths;
+
+    private final Random random = new Random(3);
+    private final RewardProperties properties = new RewardProperties();
+    private RewardBalances balances;
+
+    @BeforeEach
+    void setUp() {
+        properties.getBalances().setRingCapacity(16);
+        properties.getBalances().setRefreshOverlap(Duration.ZERO);
+        balances = new RewardBalances(jdbcTemplate, transactionManager, rewardPointsTable, archivedMonths, properties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        balances.close();
+        transactionRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM archived_month");
+        archivedMonths.refresh();
+    }
+
+    @Test
+    @DisplayName("Transactions are counted once, whether recorded before or after the load")
+    void balances_MatchStoredTransactions() throws InterruptedException {
+        // Delivered before the load reads its bound, so the load counts them
+        List<Transaction> beforeLoad = record(100);
+        balances.onTransactionsRecorded(new TransactionsRecordedEvent(beforeLoad));
+        balances.start();
+        // Delivered late, after the load counted them
+        balances.onTransactionsRecorded(new TransactionsRecordedEvent(beforeLoad.subList(0, 10)));
+        // Bursts larger than the ring make the writer wait for the updater
+        for (int i = 0; i < 5; i++) {
+            balances.onTransactionsRecorded(new TransactionsRecordedEvent(record(50)));
+        }
+        awaitUpdates();
+
+        for (long customerId = 1; customerId <= 5; customerId++) {
+            assertEquals(expected(customerId), balances.balance(customerId));
+        }
+        assertEquals(new RewardBalance(99L, 0, 0), balances.balance(99L));
+    }
+
+    @Test
+    @DisplayName("Transactions of other instances are read by refreshes, including one that commits below a read id")
+    void refresh_CountsRowsOfOtherInstancesOnce() throws InterruptedException {
+        record(20);
+        balances.start();
+        String insert = "INSERT INTO transaction (id, customer_id, amount_cents, timestamp) VALUES (?, 9, ?, ?)";
+        jdbcTemplate.update(insert, 1_000_000L, 12_000L, LocalDateTime.of(2023, 6, 14, 10, 0));
+        balances.refresh();
+        assertEquals(expected(9L), balances.balance(9L));
+
+        // Its id was allocated before the row above, but it commits after the refresh read past it
+        jdbcTemplate.update(insert, 999_999L, 8000L, LocalDateTime.of(2023, 6, 13, 10, 0));
+        // Recorded here, so it also arrives as an event before the refresh that reads it
+        Transaction own = record(1).get(0);
+        balances.onTransactionsRecorded(new TransactionsRecordedEvent(List.of(own)));
+        awaitUpdates();
+        balances.refresh();
+        balances.refresh();
+
+        for (long customerId = 1; customerId <= 9; customerId++) {
+            assertEquals(expected(customerId), balances.balance(customerId));
+        }
+    }
+
+    @Test
+    @DisplayName("Archived months are counted from the ledger")
+    void load_ArchivedMonthsFromLedger() {
+        record(30);
+        jdbcTemplate.update("INSERT INTO archived_month (period_year, period_month, marked_at, archived_at, archived_rows) "
+                + "VALUES (2022, 12, ?, ?, 4)", LocalDateTime.now(), LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count) "
+                + "VALUES (1, 2022, 12, 500, 4)");
+        // Left behind in an archived month; the ledger already counts it
+        jdbcTemplate.update("INSERT INTO transaction (customer_id, amount_cents, timestamp) VALUES (1, 20000, ?)",
+                LocalDateTime.of(2022, 12, 5, 10, 0));
+        archivedMonths.refresh();
+        RewardBalance unarchived = expected(1L, LocalDateTime.of(2023, 1, 1, 0, 0));
+
+        balances.start();
+
+        assertEquals(new RewardBalance(1L, unarchived.getPoints() + 500, unarchived.getTransactionCount() + 4),
+                balances.balance(1L));
+    }
+
+    @Test
+    @DisplayName("Balances are not served until loaded")
+    void beforeLoad_Unavailable() {
+        assertFalse(balances.isLoaded());
+        assertThrows(BalancesUnavailableException.class, () -> balances.balance(1L));
+        assertThrows(BalancesUnavailableException.class, () -> balances.subscribe(1L));
+    }
+
+    @Test
+    @DisplayName("Subscriptions beyond max-subscribers are refused")
+    void subscribe_OverMaxSubscribers_Refused() {
+        properties.getBalances().setMaxSubscribers(1);
+        balances.start();
+
+        assertNotNull(balances.subscribe(null));
+        assertThrows(BalancesUnavailableException.class, () -> balances.subscribe(1L));
+    }
+
+    private List<Transaction> record(int count) {
+        List<Transaction> recorded = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            recorded.add(transactionService.record(new Transaction(null, 1L + random.nextInt(5), (long) random.nextInt(25_001),
+                    LocalDateTime.of(2023, 1, 1, 0, 0).plusMinutes(random.nextInt(500_000)))));
+        }
+        return recorded;
+    }
+
+    private RewardBalance expected(Long customerId) {
+        return expected(customerId, LocalDateTime.MIN);
+    }
+
+    private RewardBalance expected(Long customerId, LocalDateTime from) {
+        List<Transaction> transactions = transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getCustomerId().equals(customerId))
+                .filter(transaction -> !transaction.getTimestamp().isBefore(from))
+                .toList();
+        long points = transactions.stream().mapToLong(transaction -> rewardPointsTable.points(transaction.getAmountCents())).sum();
+        return new RewardBalance(customerId, points, transactions.size());
+    }
+
+    private void awaitUpdates() throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (balances.queued() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, balances.queued());
+    }
+}
@@ -0,0 +1,87 @@
+package com.homework.rewards.balance;
+
+import com.homework.rewards.entity.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRingBufferTest {
+
+    @Test
+    @DisplayName("Capacity is rounded up to a power of two")
+    void capacity_RoundedUp() {
+        assertEquals(1, new TransactionRingBuffer(1).capacity());
+        assertEquals(8, new TransactionRingBuffer(5).capacity());
+        assertEquals(8, new TransactionRingBuffer(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TransactionRingBuffer(0));
+    }
+
+    @Test
+    @DisplayName("Transactions are drained in publishing order across the end of the ring")
+    void drain_InOrder() throws InterruptedException {
+        TransactionRingBuffer ring = new TransactionRingBuffer(4);
+        List<Long> drained = new ArrayList<>();
+
+        ring.publish(transactions(1, 3));
+        assertEquals(3, ring.drain((id, customerId, amountCents, publishedNanos) -> drained.add(id), 0, TimeUnit.SECONDS));
+        ring.publish(transactions(4, 7));
+        assertEquals(4, ring.drain((id, customerId, amountCents, publishedNanos) -> drained.add(id), 0, TimeUnit.SECONDS));
+
+        assertEquals(LongStream.rangeClosed(1, 7).boxed().toList(), drained);
+        assertEquals(0, ring.drain((id, customerId, amountCents, publishedNanos) -> fail(), 0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A publisher waits while the ring is full and resumes once it is drained")
+    void publish_WaitsWhileFull() throws Exception {
+        TransactionRingBuffer ring = new TransactionRingBuffer(4);
+        CompletableFuture<Long> publisher = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ring.publish(transactions(1, 10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<Long> drained = new ArrayList<>();
+        while (drained.size() < 10) {
+            ring.drain((id, customerId, amountCents, publishedNanos) -> drained.add(id), 1, TimeUnit.SECONDS);
+        }
+
+        assertTrue(publisher.get(5, TimeUnit.SECONDS) >= 0);
+        assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(), drained);
+    }
+
+    @Test
+    @DisplayName("Closing releases publishers waiting on a full ring and ends the drain once empty")
+    void close_ReleasesPublishers() throws Exception {
+        TransactionRingBuffer ring = new TransactionRingBuffer(2);
+        ring.publish(transactions(1, 2));
+        CompletableFuture<Long> publisher = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ring.publish(transactions(3, 3));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        ring.close();
+
+        assertEquals(-1, publisher.get(5, TimeUnit.SECONDS));
+        assertEquals(2, ring.drain((id, customerId, amountCents, publishedNanos) -> { }, 0, TimeUnit.SECONDS));
+        assertEquals(-1, ring.drain((id, customerId, amountCents, publishedNanos) -> fail(), 0, TimeUnit.SECONDS));
+    }
+
+    private static List<Transaction> transactions(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> new Transaction(id, 1L, 10_000L, LocalDateTime.of(2023, 1, 1, 0, 0)))
+                .toList();
+    }
+}
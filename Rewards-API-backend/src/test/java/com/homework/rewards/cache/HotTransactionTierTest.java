@@ -0,0 +1,216 @@
+package com.homework.rewards.cache;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.MonthlyRewardSummaryRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardLedgerService;
+import com.homework.rewards.service.RewardService;
+import com.homework.rewards.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * "Now" is June 2023, so the three-month window starts on April 1st. Runs without a test
+ * transaction so recorded transactions commit and reach the tier the way they do in production.
+ * Without a refresh overlap, ids read by one refresh are read again by the next.
+ */
+@DataJpaTest(properties = {"rewards.hot-tier.enabled=true", "rewards.hot-tier.refresh-overlap=0s"})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, RewardService.class, RewardLedgerService.class, TransactionService.class,
+        ArchivedMonths.class, RewardMetrics.class, SimpleMeterRegistry.class, HotTransactionTier.class, CustomerCacheVersions.class,
+        HotTransactionTierTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HotTransactionTierTest {
+
+    private static final LocalDateTime WINDOW_START = LocalDateTime.of(2023, 4, 1, 0, 0);
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        Clock clock() {
+            return Clock.fixed(LocalDateTime.of(2023, 6, 15, 12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+    }
+
+    @Autowired
+    private HotTransactionTier hotTier;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardSummaryRepository summaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            transactionService.record(new Transaction(null, 1L + random.nextInt(3), (long) random.nextInt(25_001),
+                    LocalDateTime.of(2023, 1, 1, 0, 0).plusSeconds(random.nextInt(180 * 24 * 3600))));
+        }
+        hotTier.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Periods inside the window are answered like the database answers them")
+    void window_MatchesDatabase() {
+        assertEquals(transactionRepository.findAll().stream().filter(t -> !t.getTimestamp().isBefore(WINDOW_START)).count(),
+                hotTier.transactionCount());
+        for (long customerId = 1; customerId <= 3; customerId++) {
+            assertParity(customerId, WINDOW_START, LocalDateTime.of(2023, 6, 30, 23, 59, 59));
+            assertParity(customerId, LocalDateTime.of(2023, 4, 10, 8, 30), LocalDateTime.of(2023, 5, 20, 17, 45));
+            assertParity(customerId, LocalDateTime.of(2023, 6, 1, 0, 0), LocalDateTime.of(2023, 6, 1, 0, 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Periods starting before the window are left to the database")
+    void beforeWindow_NotCovered() {
+        LocalDateTime startDate = WINDOW_START.minusNanos(1000);
+
+        assertFalse(hotTier.covers(startDate));
+        assertNull(hotTier.findTransactions(1L, startDate, WINDOW_START.plusMonths(1)));
+        assertFalse(hotTier.forEachAmount(1L, startDate, WINDOW_START.plusMonths(1), (month, amountCents) -> fail()));
+    }
+
+    @Test
+    @DisplayName("Recorded transactions are added once, even when also seen by the load")
+    void recorded_AddedOnce() {
+        long before = hotTier.transactionCount();
+        Transaction recorded = transactionService.record(new Transaction(null, 9L, 12_000L, LocalDateTime.of(2023, 6, 14, 10, 0)));
+        hotTier.onTransactionsRecorded(new TransactionsRecordedEvent(List.of(recorded)));
+        transactionService.record(new Transaction(null, 9L, 8000L, LocalDateTime.of(2023, 3, 14, 10, 0)));
+
+        assertEquals(before + 1, hotTier.transactionCount());
+        assertEquals(List.of(recorded), hotTier.findTransactions(9L, WINDOW_START, LocalDateTime.of(2023, 6, 30, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("Rows written by another instance are read by a refresh, also when a lower id commits later")
+    void refresh_ReadsRowsOfOtherInstances() {
+        long before = hotTier.transactionCount();
+        LocalDateTime end = LocalDateTime.of(2023, 6, 30, 0, 0);
+        String insert = "INSERT INTO transaction (id, customer_id, amount_cents, timestamp) VALUES (?, 9, ?, ?)";
+        jdbcTemplate.update(insert, 1_000_000L, 12_000L, LocalDateTime.of(2023, 6, 14, 10, 0));
+        assertEquals(List.of(), hotTier.findTransactions(9L, WINDOW_START, end));
+
+        hotTier.refresh();
+        assertEquals(List.of(1_000_000L), ids(hotTier.findTransactions(9L, WINDOW_START, end)));
+
+        // Its id was allocated before the row above, but it commits after the refresh read past it
+        jdbcTemplate.update(insert, 999_999L, 8000L, LocalDateTime.of(2023, 6, 13, 10, 0));
+        hotTier.refresh();
+
+        assertEquals(List.of(999_999L, 1_000_000L), ids(hotTier.findTransactions(9L, WINDOW_START, end)));
+        assertEquals(before + 2, hotTier.transactionCount());
+    }
+
+    @Test
+    @DisplayName("Months that leave the window are dropped")
+    void evict_DropsOldMonths() {
+        Clock clock = mock(Clock.class);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        when(clock.instant()).thenReturn(LocalDateTime.of(2023, 6, 15, 12, 0).toInstant(ZoneOffset.UTC));
+        HotTransactionTier tier = new HotTransactionTier(jdbcTemplate, transactionManager, new RewardProperties(), clock);
+        tier.load();
+        long aprilRows = transactionRepository.findAll().stream()
+                .filter(t -> !t.getTimestamp().isBefore(WINDOW_START) && t.getTimestamp().isBefore(WINDOW_START.plusMonths(1)))
+                .count();
+
+        when(clock.instant()).thenReturn(LocalDateTime.of(2023, 7, 1, 0, 5).toInstant(ZoneOffset.UTC));
+        tier.evict();
+
+        assertFalse(tier.covers(WINDOW_START));
+        assertTrue(tier.covers(WINDOW_START.plusMonths(1)));
+        assertEquals(hotTier.transactionCount() - aprilRows, tier.transactionCount());
+    }
+
+    @Test
+    @DisplayName("A window larger than max-transactions turns the tier off")
+    void load_OverMaxTransactions_Disabled() {
+        RewardProperties properties = new RewardProperties();
+        properties.getHotTier().setMaxTransactions(10);
+        HotTransactionTier tier = new HotTransactionTier(jdbcTemplate, transactionManager, properties,
+                Clock.fixed(LocalDateTime.of(2023, 6, 15, 12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        tier.load();
+
+        assertFalse(tier.covers(WINDOW_START));
+        assertEquals(0, tier.transactionCount());
+        assertEquals(0, tier.estimatedBytes());
+    }
+
+    private void assertParity(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        assertTrue(hotTier.covers(startDate));
+        List<Transaction> expected = transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate);
+        assertEquals(expected, hotTier.findTransactions(customerId, startDate, endDate));
+        if (expected.isEmpty()) {
+            return;
+        }
+
+        RewardResponse rewards = rewardService.calculateRewards(customerId, startDate, endDate);
+        RewardResponse summary = rewardService.calculateRewardSummary(customerId, startDate, endDate);
+        Map<Integer, Long> databasePoints = rewardLedgerService.sumMonthlyPoints(customerId, startDate, endDate).stream()
+                .collect(Collectors.toMap(MonthlyPointsRow::getPeriodMonth, MonthlyPointsRow::getPoints));
+        assertEquals(databasePoints.values().stream().mapToLong(Long::longValue).sum(), summary.getTotalPoints());
+        assertEquals(databasePoints.size(), summary.getMonthlyPoints().size());
+        assertEquals(rewards.getMonthlyPoints(), summary.getMonthlyPoints());
+        assertEquals(expected, rewards.getTransactions());
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+}
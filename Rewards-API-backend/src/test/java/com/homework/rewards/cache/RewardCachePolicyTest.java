@@ -0,0 +1,164 @@
+package com.homework.rewards.cache;
+
+import com.homework.rewards.config.CacheConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.RewardLedgerRebuiltEvent;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardLedgerService;
+import com.homework.rewards.service.RewardService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(RewardCachePolicyTest.Config.class)
+public class RewardCachePolicyTest {
+
+    private static final LocalDateTime JANUARY_START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime JANUARY_END = RewardLedgerService.endOfMonth(YearMonth.of(2023, 1));
+    private static final LocalDateTime MARCH_START = LocalDateTime.of(2023, 3, 1, 0, 0);
+    private static final LocalDateTime MARCH_END = RewardLedgerService.endOfMonth(YearMonth.of(2023, 3));
+
+    @Configuration
+    @EnableConfigurationProperties(RewardProperties.class)
+    @Import({RewardPointsConfig.class, CacheConfig.class, CustomerCacheVersions.class, RewardService.class,
+            RewardMetrics.class, SimpleMeterRegistry.class})
+    static class Config {
+        // "Now" is in March 2023, so January is closed and March is open
+        @Bean
+        Clock clock() {
+            return Clock.fixed(LocalDateTime.of(2023, 3, 15, 12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        }
+    }
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private TransactionRepository transactionRepository;
+
+    @MockBean
+    private RewardLedgerService rewardLedgerService;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ArchivedMonths archivedMonths;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Mockito.reset(rewardLedgerService);
+        when(rewardLedgerService.sumMonthlyPoints(anyLong(), any(), any())).thenReturn(List.of(row(1, 90)));
+    }
+
+    @Test
+    @DisplayName("Closed periods are computed once and survive new transactions")
+    void closedPeriod_CachedAcrossWrites() {
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(
+                List.of(new Transaction(1L, 1L, 12_000L, LocalDateTime.of(2023, 3, 10, 9, 0)))));
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+
+        verify(rewardLedgerService, times(1)).sumMonthlyPoints(1L, JANUARY_START, JANUARY_END);
+    }
+
+    @Test
+    @DisplayName("Closed periods are recomputed after a late transaction dated before the current month")
+    void closedPeriod_InvalidatedByLateWrite() {
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(
+                List.of(new Transaction(1L, 1L, 12_000L, LocalDateTime.of(2023, 1, 20, 9, 0)))));
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+
+        verify(rewardLedgerService, times(2)).sumMonthlyPoints(1L, JANUARY_START, JANUARY_END);
+    }
+
+    @Test
+    @DisplayName("Rebuilding the ledger invalidates cached summaries of every customer")
+    void ledgerRebuild_InvalidatesAll() {
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+        rewardService.calculateRewardSummary(2L, MARCH_START, MARCH_END);
+        eventPublisher.publishEvent(new RewardLedgerRebuiltEvent(YearMonth.of(2023, 1)));
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+        rewardService.calculateRewardSummary(2L, MARCH_START, MARCH_END);
+
+        verify(rewardLedgerService, times(2)).sumMonthlyPoints(1L, JANUARY_START, JANUARY_END);
+        verify(rewardLedgerService, times(2)).sumMonthlyPoints(2L, MARCH_START, MARCH_END);
+    }
+
+    @Test
+    @DisplayName("Open periods are recomputed after a transaction for the same customer")
+    void openPeriod_InvalidatedByWrite() {
+        rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END);
+        rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END);
+        verify(rewardLedgerService, times(1)).sumMonthlyPoints(1L, MARCH_START, MARCH_END);
+
+        // Another customer's write leaves the entry alone
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(
+                List.of(new Transaction(2L, 2L, 12_000L, LocalDateTime.of(2023, 3, 10, 9, 0)))));
+        rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END);
+        verify(rewardLedgerService, times(1)).sumMonthlyPoints(1L, MARCH_START, MARCH_END);
+
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(
+                List.of(new Transaction(3L, 1L, 12_000L, LocalDateTime.of(2023, 3, 10, 9, 0)))));
+        rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END);
+        verify(rewardLedgerService, times(2)).sumMonthlyPoints(1L, MARCH_START, MARCH_END);
+    }
+
+    @Test
+    @DisplayName("Closed and open periods land in separate caches")
+    void periods_SplitAcrossCaches() {
+        rewardService.calculateRewardSummary(1L, JANUARY_START, JANUARY_END);
+        rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END);
+
+        assertEquals(1, nativeSize(RewardCachePolicy.CLOSED_PERIODS));
+        assertEquals(1, nativeSize(RewardCachePolicy.OPEN_PERIODS));
+    }
+
+    private long nativeSize(String cacheName) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(cacheName).getNativeCache()).estimatedSize();
+    }
+
+    private static MonthlyPointsRow row(int month, long points) {
+        return new MonthlyPointsRow() {
+            public Integer getPeriodYear() { return 2023; }
+            public Integer getPeriodMonth() { return month; }
+            public Long getPoints() { return points; }
+            public Long getTransactionCount() { return 1L; }
+        };
+    }
+}
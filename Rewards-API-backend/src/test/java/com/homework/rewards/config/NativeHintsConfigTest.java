@@ -0,0 +1,39 @@
+package com.homework.rewards.config;
+
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.Transaction;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBindingProcessor;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    @DisplayName("Vendor migrations and the slow query log's JDBC proxies are registered")
+    void registersResourcesAndProxies() {
+        new NativeHintsConfig.RewardRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.resource().forResource("db/vendor/mysql/V6__partition_transaction_by_month.sql").test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, Connection.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, PreparedStatement.class).test(hints));
+    }
+
+    @Test
+    @DisplayName("Types serialized outside controller signatures are registered for binding")
+    void registersBindingTypes() throws NoSuchMethodException {
+        new RegisterReflectionForBindingProcessor().registerReflectionHints(hints.reflection(), NativeHintsConfig.class);
+
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Transaction.class.getMethod("getAmount")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(RewardResponse.class.getMethod("getMonthlyPoints")).test(hints));
+    }
+}
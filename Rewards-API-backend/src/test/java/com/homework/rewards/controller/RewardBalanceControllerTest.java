@@ -0,0 +1,67 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.balance.RewardBalances;
+import com.homework.rewards.dto.RewardBalance;
+import com.homework.rewards.exception.BalancesUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = RewardBalanceController.class, properties = "rewards.balances.enabled=true")
+class RewardBalanceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RewardBalances rewardBalances;
+
+    @Test
+    void testGetBalance() throws Exception {
+        Mockito.when(rewardBalances.balance(12345L)).thenReturn(new RewardBalance(12345L, 250, 3));
+
+        mockMvc.perform(get("/api/balances/12345"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerId").value(12345))
+                .andExpect(jsonPath("$.points").value(250))
+                .andExpect(jsonPath("$.transactionCount").value(3));
+    }
+
+    @Test
+    void testGetBalanceWhileLoading() throws Exception {
+        Mockito.when(rewardBalances.balance(12345L)).thenThrow(new BalancesUnavailableException("Reward balances are still loading."));
+
+        mockMvc.perform(get("/api/balances/12345"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testStreamBalances() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        Mockito.when(rewardBalances.subscribe(12345L)).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/api/balances/stream")
+                        .param("customerId", "12345")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("balance").data(new RewardBalance(12345L, 250, 3), MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("event:balance")))
+                .andExpect(content().string(containsString("\"points\":250")));
+    }
+}
@@ -1,22 +1,48 @@
 package com.homework.rewards.controller;
 
+import com.homework.rewards.config.WebConfig;
+import com.homework.rewards.dto.PeriodPoints;
+import com.homework.rewards.dto.PeriodRewardResponse;
+import com.homework.rewards.dto.RewardPeriod;
 import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.dto.TransactionPage;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.export.ColumnarFormat;
+import com.homework.rewards.export.ColumnarReader;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.service.BatchRewardService;
+import com.homework.rewards.service.PeriodRewardService;
+import com.homework.rewards.service.RewardLedgerService;
 import com.homework.rewards.service.RewardService;
+import com.homework.rewards.service.TransactionDetailService;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.http.MediaType;
 
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(RewardController.class)
+@Import(WebConfig.class)
 class RewardControllerTest {
 
     @Autowired
@@ -25,10 +51,22 @@ class RewardControllerTest {
     @MockBean
     private RewardService rewardService;
 
+    @MockBean
+    private BatchRewardService batchRewardService;
+
+    @MockBean
+    private PeriodRewardService periodRewardService;
+
+    @MockBean
+    private TransactionDetailService transactionDetailService;
+
+    @MockBean
+    private RewardMetrics rewardMetrics;
+
     @Test
     void testGetRewards() throws Exception {
-        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, List.of());
-        Mockito.when(rewardService.calculateRewards(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
+        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, null);
+        Mockito.when(rewardService.calculateRewardSummary(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
 
         mockMvc.perform(get("/api/rewards")
                         .param("customerId", "12345")
@@ -38,13 +76,14 @@ class RewardControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.customerId").value(12345))
                 .andExpect(jsonPath("$.monthlyPoints.January").value(150))
-                .andExpect(jsonPath("$.totalPoints").value(150));
+                .andExpect(jsonPath("$.totalPoints").value(150))
+                .andExpect(jsonPath("$.transactions").doesNotExist());
     }
 
     @Test
     void testGetRewardsByMonth() throws Exception {
-        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, List.of());
-        Mockito.when(rewardService.calculateRewards(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
+        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, null);
+        Mockito.when(rewardService.calculateRewardSummary(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
 
         mockMvc.perform(get("/api/rewards/2023/01")
                         .param("customerId", "12345")
@@ -52,6 +91,157 @@ class RewardControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.customerId").value(12345))
                 .andExpect(jsonPath("$.monthlyPoints.January").value(150))
+                .andExpect(jsonPath("$.totalPoints").value(150))
+                .andExpect(jsonPath("$.transactions").doesNotExist());
+    }
+
+    @Test
+    void testGetRewardsWithTransactions() throws Exception {
+        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, List.of());
+        Mockito.when(rewardService.calculateRewards(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/rewards")
+                        .param("customerId", "12345")
+                        .param("startDate", "2023-01-01T00:00:00")
+                        .param("endDate", "2023-01-31T23:59:59")
+                        .param("includeTransactions", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPoints").value(150))
+                .andExpect(jsonPath("$.transactions").isArray());
+
+        Mockito.verify(rewardService, Mockito.never()).calculateRewardSummary(Mockito.anyLong(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void testGetRewardsColumnar() throws Exception {
+        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150,
+                List.of(new Transaction(1L, 12345L, 15_000L, LocalDateTime.of(2023, 1, 5, 10, 0))));
+        Mockito.when(rewardService.calculateRewards(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
+
+        MvcResult result = mockMvc.perform(get("/api/rewards")
+                        .param("customerId", "12345")
+                        .param("startDate", "2023-01-01T00:00:00")
+                        .param("endDate", "2023-01-31T23:59:59")
+                        .param("includeTransactions", "true")
+                        .accept(ColumnarFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ColumnarFormat.MEDIA_TYPE))
+                .andReturn();
+
+        assertEquals(mockResponse, ColumnarReader.readResponse(ByteBuffer.wrap(result.getResponse().getContentAsByteArray())));
+    }
+
+    @Test
+    void testGetRewardsAsync() throws Exception {
+        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, null);
+        Mockito.when(rewardService.calculateRewardSummary(Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(mockResponse);
+
+        MvcResult result = mockMvc.perform(get("/api/rewards/async")
+                        .param("customerId", "12345")
+                        .param("startDate", "2023-01-01T00:00:00")
+                        .param("endDate", "2023-01-31T23:59:59"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerId").value(12345))
                 .andExpect(jsonPath("$.totalPoints").value(150));
     }
+
+    @Test
+    void testGetRewardsByMonthAsync() throws Exception {
+        RewardResponse mockResponse = new RewardResponse(12345L, Map.of("January", 150), 150, null);
+        Mockito.when(rewardService.calculateRewardSummary(12345L,
+                LocalDateTime.of(2023, 1, 1, 0, 0), RewardLedgerService.endOfMonth(YearMonth.of(2023, 1)))).thenReturn(mockResponse);
+
+        MvcResult result = mockMvc.perform(get("/api/rewards/2023/01/async")
+                        .param("customerId", "12345"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.monthlyPoints.January").value(150));
+    }
+
+    @Test
+    void testGetRewardsAsync_ServiceFailure() throws Exception {
+        Mockito.when(rewardService.calculateRewardSummary(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+                .thenThrow(new RewardCalculationException("Data error: No transactions found for the given customer and date range."));
+
+        MvcResult result = mockMvc.perform(get("/api/rewards/async")
+                        .param("customerId", "12345")
+                        .param("startDate", "2023-01-01T00:00:00")
+                        .param("endDate", "2023-01-31T23:59:59"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThrows(RewardCalculationException.class, () -> {
+            try {
+                mockMvc.perform(asyncDispatch(result));
+            } catch (ServletException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    void testGetRewardsBatch() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<RewardResponse> sink = invocation.getArgument(3);
+            sink.accept(new RewardResponse(1L, Map.of("January", 90), 90, null));
+            sink.accept(new RewardResponse(2L, Map.of(), 0, null));
+            return null;
+        }).when(batchRewardService).streamRewardSummaries(Mockito.anyList(), Mockito.any(), Mockito.any(), Mockito.any());
+
+        MvcResult result = mockMvc.perform(post("/api/rewards/batch")
+                        .content("{\"customerIds\":[1,2],\"startDate\":\"2023-01-01T00:00:00\",\"endDate\":\"2023-01-31T23:59:59\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"customerId\":1,\"monthlyPoints\":{\"January\":90},\"totalPoints\":90}\n"
+                                + "{\"customerId\":2,\"monthlyPoints\":{},\"totalPoints\":0}\n"));
+    }
+
+    @Test
+    void testGetPeriodRewards() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2023, 1, 31, 23, 59, 59);
+        Mockito.when(periodRewardService.calculatePeriodRewards(List.of(1L), List.of(new RewardPeriod("January", start, end))))
+                .thenReturn(List.of(new PeriodRewardResponse(1L, List.of(new PeriodPoints("January", start, end, 90, 1)))));
+
+        mockMvc.perform(post("/api/rewards/periods")
+                        .content("{\"customerIds\":[1],\"periods\":[{\"label\":\"January\","
+                                + "\"startDate\":\"2023-01-01T00:00:00\",\"endDate\":\"2023-01-31T23:59:59\"}]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].customerId").value(1))
+                .andExpect(jsonPath("$[0].periods[0].label").value("January"))
+                .andExpect(jsonPath("$[0].periods[0].points").value(90))
+                .andExpect(jsonPath("$[0].periods[0].transactionCount").value(1));
+    }
+
+    @Test
+    void testGetTransactionsPage() throws Exception {
+        TransactionPage mockPage = new TransactionPage(
+                List.of(new Transaction(7L, 12345L, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0))), "2023-01-15T10:00,7");
+        Mockito.when(transactionDetailService.findPage(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.isNull(), Mockito.eq(1)))
+                .thenReturn(mockPage);
+
+        mockMvc.perform(get("/api/rewards/transactions")
+                        .param("customerId", "12345")
+                        .param("startDate", "2023-01-01T00:00:00")
+                        .param("endDate", "2023-01-31T23:59:59")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value("2023-01-15T10:00,7"));
+    }
 }
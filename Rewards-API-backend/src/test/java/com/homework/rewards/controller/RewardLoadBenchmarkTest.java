@@ -0,0 +1,133 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.RewardsApplication;
+import com.homework.rewards.load.ClosedLoopLoad;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.BulkIngestService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Closed-loop HTTP load on the rewards endpoints, comparing thread-per-request Tomcat with the
+ * {@code virtual-threads} profile. Run with
+ * {@code ./gradlew benchmarkTest --tests RewardLoadBenchmarkTest}. Uses in-memory H2 unless
+ * pointed at a real database with the {@code benchmark.datasource.*} properties described in
+ * {@link com.homework.rewards.service.BulkIngestBenchmarkTest}. H2 answers in microseconds, so
+ * only a networked database shows how much time requests spend blocked.
+ */
+@Tag("benchmark")
+public class RewardLoadBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.duration-seconds", 20));
+    private static final int CUSTOMERS = 1_000;
+    private static final int TRANSACTIONS = Integer.getInteger("benchmark.rows", 100_000);
+
+    // Cache disabled so every request reaches the database
+    private static final String[] ARGS = {
+            "--server.port=0",
+            "--spring.datasource.url=" + System.getProperty("benchmark.datasource.url",
+                    "jdbc:h2:mem:load-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+            "--spring.datasource.driverClassName=" + System.getProperty("benchmark.datasource.driver", "org.h2.Driver"),
+            "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"),
+            "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""),
+            "--spring.jpa.show-sql=false",
+            "--rewards.cache.enabled=false"
+    };
+
+    private static final List<String> PATHS = List.of(
+            "/api/rewards?startDate=2023-01-01T00:00:00&endDate=2023-12-31T23:59:59&customerId=",
+            "/api/rewards/async?startDate=2023-01-01T00:00:00&endDate=2023-12-31T23:59:59&customerId=",
+            "/api/rewards/2023/6/async?customerId=");
+
+    private static ClosedLoopLoad httpLoad;
+
+    @BeforeAll
+    static void setUp() {
+        httpLoad = new ClosedLoopLoad(CLIENTS);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        httpLoad.close();
+    }
+
+    @Test
+    void rewards_ThreadPerRequestVersusVirtualThreads() throws Exception {
+        List<String> report = new ArrayList<>();
+        long errors = 0;
+        report.add(String.format("%-40s %-62s %10s %9s %9s %7s",
+                "Mode", "Endpoint", "req/s", "p50 ms", "p99 ms", "errors"));
+
+        for (String profile : List.of("default", "virtual-threads")) {
+            try (ConfigurableApplicationContext context = start(profile)) {
+                String mode = profile.equals("default") ? "thread-per-request" : "virtual-threads";
+                assertEquals(!profile.equals("default"), Threading.VIRTUAL.isActive(context.getEnvironment()), mode);
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+                for (String path : PATHS) {
+                    load("http://localhost:" + port + path, WARMUP);
+                    ClosedLoopLoad.Result result = load("http://localhost:" + port + path, DURATION);
+                    report.add(String.format("%-40s %-62s %10d %9.2f %9.2f %7d", mode, path.substring(0, path.indexOf('?')),
+                            result.requestsPerSecond(), result.percentileMillis(0.50), result.percentileMillis(0.99), result.errors()));
+                    errors += result.errors();
+                }
+            }
+        }
+
+        System.out.printf("Reward load: %d clients, %d s per endpoint, %d transactions%n",
+                CLIENTS, DURATION.toSeconds(), TRANSACTIONS);
+        report.forEach(System.out::println);
+        assertEquals(0, errors);
+    }
+
+    private static ConfigurableApplicationContext start(String profile) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RewardsApplication.class)
+                .profiles(profile)
+                // Command line arguments, so they win over application.properties
+                .run(ARGS);
+        // Both modes share the database, so it is only loaded once
+        if (context.getBean(TransactionRepository.class).count() == 0) {
+            context.getBean(BulkIngestService.class).ingestCsv(new ByteArrayInputStream(csv()));
+        }
+        return context;
+    }
+
+    private static ClosedLoopLoad.Result load(String url, Duration duration) throws Exception {
+        return httpLoad.run(duration, () -> HttpRequest.newBuilder(
+                URI.create(url + (1 + ThreadLocalRandom.current().nextInt(CUSTOMERS)))).GET().build());
+    }
+
+    private static byte[] csv() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        StringBuilder csv = new StringBuilder(TRANSACTIONS * 40);
+        // Every customer gets transactions in every month, so no request ends in "no transactions found"
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            csv.append(1 + i % CUSTOMERS).append(',')
+                    .append(random.nextInt(25_000) / 100.0).append(',')
+                    .append(start.plusMonths(i / CUSTOMERS % 12).plusSeconds(random.nextInt(28 * 24 * 3600))).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,299 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.RewardsApplication;
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.load.ClosedLoopLoad;
+import com.homework.rewards.load.SyntheticTransactions;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.BulkIngestService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Repeatable load baseline for the reward endpoints. The application is started on an empty
+ * database, which is seeded through {@link BulkIngestService} with a {@link SyntheticTransactions}
+ * history (sized by the {@code benchmark.customers}, {@code benchmark.rows}, {@code benchmark.years}
+ * and {@code benchmark.skew} properties), then each scenario runs {@code benchmark.clients}
+ * closed-loop clients against one endpoint, and {@code mixed} against all of them by weight.
+ * Customers are drawn with the same skew as the data.
+ * <p>
+ * Run with {@code ./gradlew benchmarkTest --tests RewardScenarioBenchmarkTest}, optionally
+ * restricted with {@code -Dbenchmark.scenarios=summary,periods}. Each run writes its results to
+ * {@code build/reports/load/scenarios-<time>.csv}; pass one of those files as
+ * {@code -Dbenchmark.baseline} to print the change against it. The clients run in the
+ * application's JVM, so the GC and heap columns include their share. A database given with the
+ * {@code benchmark.datasource.*} properties is only seeded while it has no transactions; the
+ * response cache stays off unless {@code -Dbenchmark.cache=true}.
+ */
+@Tag("benchmark")
+public class RewardScenarioBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 64);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.duration-seconds", 15));
+    private static final String BASELINE = System.getProperty("benchmark.baseline");
+    private static final Path REPORT_DIRECTORY = Path.of(System.getProperty("benchmark.report-dir", "build/reports/load"));
+    private static final int BATCH_CUSTOMERS = 100;
+    private static final String CSV_HEADER = "scenario,requests_per_second,p50_ms,p99_ms,errors,gc_count,gc_millis,peak_heap_mb";
+
+    private static final String[] ARGS = {
+            "--server.port=0",
+            "--spring.datasource.url=" + System.getProperty("benchmark.datasource.url",
+                    "jdbc:h2:mem:scenario-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+            "--spring.datasource.driverClassName=" + System.getProperty("benchmark.datasource.driver", "org.h2.Driver"),
+            "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"),
+            "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""),
+            "--spring.jpa.show-sql=false",
+            "--rewards.cache.enabled=" + Boolean.getBoolean("benchmark.cache")
+    };
+
+    private static final SyntheticTransactions DATA = SyntheticTransactions.fromSystemProperties();
+
+    private static ConfigurableApplicationContext context;
+    private static ClosedLoopLoad httpLoad;
+    private static String baseUrl;
+    // Customers with transactions in the last month of the history, indexed by id
+    private static boolean[] active;
+
+    // Windows at the end of the history, so requests read its busiest and most recent months
+    private static final YearMonth LAST_MONTH = YearMonth.from(DATA.lastDay());
+    private static final LocalDateTime END = DATA.lastDay().atTime(23, 59, 59);
+    private static final LocalDateTime YEAR_START = DATA.lastDay().minusYears(1).plusDays(1).atStartOfDay();
+    private static final LocalDateTime QUARTER_START = LAST_MONTH.minusMonths(2).atDay(1).atStartOfDay();
+
+    private record Scenario(String name, int weight, Function<Random, HttpRequest> request) {
+    }
+
+    private static final List<Scenario> SCENARIOS = List.of(
+            new Scenario("summary", 30, random -> get("/api/rewards?customerId=" + activeCustomer(random)
+                    + "&startDate=" + YEAR_START + "&endDate=" + END)),
+            new Scenario("month", 25, random -> get("/api/rewards/" + LAST_MONTH.getYear() + "/" + LAST_MONTH.getMonthValue()
+                    + "?customerId=" + activeCustomer(random))),
+            new Scenario("periods", 15, random -> post("/api/rewards/periods", periodsBody(activeCustomer(random)))),
+            new Scenario("detail", 10, random -> get("/api/rewards?customerId=" + activeCustomer(random)
+                    + "&startDate=" + QUARTER_START + "&endDate=" + END + "&includeTransactions=true")),
+            new Scenario("transactions", 10, random -> get("/api/rewards/transactions?customerId=" + DATA.sampleCustomer(random)
+                    + "&startDate=" + QUARTER_START + "&endDate=" + END + "&limit=100")),
+            new Scenario("batch", 2, random -> post("/api/rewards/batch", batchBody(random))),
+            new Scenario("record", 8, random -> post("/api/transactions", "{\"customerId\":" + DATA.sampleCustomer(random)
+                    + ",\"amount\":" + (1 + random.nextInt(25_000)) / 100.0 + ",\"timestamp\":\"" + END + "\"}")));
+
+    @BeforeAll
+    static void setUp() {
+        context = new SpringApplicationBuilder(RewardsApplication.class)
+                // Command line arguments, so they win over application.properties
+                .run(ARGS);
+        baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        if (context.getBean(TransactionRepository.class).count() == 0) {
+            seed(jdbcTemplate);
+        }
+
+        active = new boolean[DATA.customers() + 1];
+        jdbcTemplate.query("SELECT DISTINCT customer_id FROM transaction WHERE timestamp BETWEEN ? AND ?",
+                rs -> {
+                    long customerId = rs.getLong(1);
+                    if (customerId > 0 && customerId < active.length) {
+                        active[(int) customerId] = true;
+                    }
+                }, LAST_MONTH.atDay(1).atStartOfDay(), END);
+        httpLoad = new ClosedLoopLoad(CLIENTS);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (httpLoad != null) {
+            httpLoad.close();
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void scenarios_Baseline() throws Exception {
+        List<Scenario> selected = new ArrayList<>(SCENARIOS);
+        selected.add(new Scenario("mixed", 0, RewardScenarioBenchmarkTest::mixedRequest));
+        String only = System.getProperty("benchmark.scenarios");
+        if (only != null && !only.isBlank()) {
+            List<String> names = Arrays.asList(only.split(","));
+            selected.removeIf(scenario -> !names.contains(scenario.name()));
+        }
+
+        List<String> rows = new ArrayList<>();
+        long errors = 0;
+        for (Scenario scenario : selected) {
+            httpLoad.run(WARMUP, () -> scenario.request().apply(ThreadLocalRandom.current()));
+
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            long[] gcBefore = gcTotals();
+            ClosedLoopLoad.Result result = httpLoad.run(DURATION, () -> scenario.request().apply(ThreadLocalRandom.current()));
+            long[] gcAfter = gcTotals();
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+            rows.add(String.format("%s,%d,%.2f,%.2f,%d,%d,%d,%d", scenario.name(), result.requestsPerSecond(),
+                    result.percentileMillis(0.50), result.percentileMillis(0.99), result.errors(),
+                    gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1], peakHeap >> 20));
+            errors += result.errors();
+        }
+
+        Path report = writeReport(rows);
+        Map<String, String[]> baseline = BASELINE == null ? Map.of() : readReport(Path.of(BASELINE));
+        System.out.printf("Reward scenarios: %s, %d clients, %d s per scenario, cache %s, heap max %d MB%n", DATA, CLIENTS,
+                DURATION.toSeconds(), Boolean.getBoolean("benchmark.cache") ? "on" : "off",
+                Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-13s %9s %9s %9s %7s %6s %8s %10s%s%n", "Scenario", "req/s", "p50 ms", "p99 ms", "errors",
+                "GCs", "GC ms", "peak MB", baseline.isEmpty() ? "" : "   vs baseline req/s, p99");
+        for (String row : rows) {
+            String[] values = row.split(",");
+            String[] before = baseline.get(values[0]);
+            System.out.printf("%-13s %9s %9s %9s %7s %6s %8s %10s%s%n", (Object[]) append(values, before == null ? ""
+                    : String.format("   %+.1f%%, %+.1f%%", change(before[1], values[1]), change(before[3], values[3]))));
+        }
+        System.out.println("Written to " + report.toAbsolutePath());
+        assertEquals(0, errors);
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        List<Object[]> customers = LongStream.rangeClosed(1, DATA.customers())
+                .mapToObj(id -> new Object[]{id, "Customer " + id, "customer" + id + "@example.com"})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO customer (id, name, email) VALUES (?, ?, ?)", customers);
+        IngestResult result = context.getBean(BulkIngestService.class).ingestCsv(DATA.csv());
+        System.out.printf("Seeded %s in %d ms (%d rows/s)%n", DATA, result.getElapsedMillis(), result.getRowsPerSecond());
+    }
+
+    // A scenario picked by weight for every request
+    private static HttpRequest mixedRequest(Random random) {
+        int totalWeight = SCENARIOS.stream().mapToInt(Scenario::weight).sum();
+        int pick = random.nextInt(totalWeight);
+        for (Scenario scenario : SCENARIOS) {
+            pick -= scenario.weight();
+            if (pick < 0) {
+                return scenario.request().apply(random);
+            }
+        }
+        throw new IllegalStateException("Scenario weights changed while picking.");
+    }
+
+    // Summaries of a period without transactions answer 500, so those ask about active customers only
+    private static long activeCustomer(Random random) {
+        while (true) {
+            long customerId = DATA.sampleCustomer(random);
+            if (active[(int) customerId]) {
+                return customerId;
+            }
+        }
+    }
+
+    // Each of the last twelve months and year to date, the account overview of the UI
+    private static String periodsBody(long customerId) {
+        StringJoiner periods = new StringJoiner(",");
+        for (int i = 11; i >= 0; i--) {
+            YearMonth month = LAST_MONTH.minusMonths(i);
+            periods.add(period(month.toString(), month.atDay(1).atStartOfDay(), month.atEndOfMonth().atTime(23, 59, 59)));
+        }
+        periods.add(period("YTD", LocalDate.of(LAST_MONTH.getYear(), 1, 1).atStartOfDay(), END));
+        return "{\"customerIds\":[" + customerId + "],\"periods\":[" + periods + "]}";
+    }
+
+    private static String period(String label, LocalDateTime start, LocalDateTime end) {
+        return "{\"label\":\"" + label + "\",\"startDate\":\"" + start + "\",\"endDate\":\"" + end + "\"}";
+    }
+
+    private static String batchBody(Random random) {
+        StringJoiner ids = new StringJoiner(",");
+        for (int i = 0; i < BATCH_CUSTOMERS; i++) {
+            ids.add(Long.toString(DATA.sampleCustomer(random)));
+        }
+        return "{\"customerIds\":[" + ids + "],\"startDate\":\"" + YEAR_START + "\",\"endDate\":\"" + END + "\"}";
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private static HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    // Collections and milliseconds spent in them, over all collectors
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionCount());
+            totals[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return totals;
+    }
+
+    private static Path writeReport(List<String> rows) throws IOException {
+        Files.createDirectories(REPORT_DIRECTORY);
+        Path report = REPORT_DIRECTORY.resolve("scenarios-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        List<String> lines = new ArrayList<>(rows.size() + 1);
+        lines.add(CSV_HEADER);
+        lines.addAll(rows);
+        Files.write(report, lines);
+        return report;
+    }
+
+    private static Map<String, String[]> readReport(Path report) throws IOException {
+        Map<String, String[]> rows = new HashMap<>();
+        for (String line : Files.readAllLines(report)) {
+            if (!line.equals(CSV_HEADER) && !line.isBlank()) {
+                String[] values = line.split(",");
+                rows.put(values[0], values);
+            }
+        }
+        return rows;
+    }
+
+    private static double change(String before, String after) {
+        return (Double.parseDouble(after) / Double.parseDouble(before) - 1) * 100;
+    }
+
+    private static String[] append(String[] values, String value) {
+        String[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+}
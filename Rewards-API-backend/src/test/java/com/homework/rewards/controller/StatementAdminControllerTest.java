@@ -0,0 +1,111 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.dto.StatementExport;
+import com.homework.rewards.dto.StatementRunProgress;
+import com.homework.rewards.entity.StatementRun;
+import com.homework.rewards.exception.StatementRunException;
+import com.homework.rewards.export.ColumnarFormat;
+import com.homework.rewards.job.StatementRecalculationJob;
+import com.homework.rewards.service.StatementExportService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StatementAdminController.class)
+class StatementAdminControllerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 1, 31, 23, 59, 59);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatementRecalculationJob statementRecalculationJob;
+
+    @MockBean
+    private StatementExportService statementExportService;
+
+    @Test
+    void testStartRun() throws Exception {
+        Mockito.when(statementRecalculationJob.start(START, END)).thenReturn(progress(StatementRun.Status.RUNNING, 0));
+
+        mockMvc.perform(post("/api/admin/statements")
+                        .content("{\"startDate\":\"2023-01-01T00:00:00\",\"endDate\":\"2023-01-31T23:59:59\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.runId").value(1))
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.partitions").value(10));
+    }
+
+    @Test
+    void testGetProgress() throws Exception {
+        Mockito.when(statementRecalculationJob.progress(1L)).thenReturn(Optional.of(progress(StatementRun.Status.RUNNING, 4)));
+        Mockito.when(statementRecalculationJob.progress(2L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/admin/statements/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completedPartitions").value(4));
+        mockMvc.perform(get("/api/admin/statements/2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testResumeRun() throws Exception {
+        Mockito.when(statementRecalculationJob.resume(1L)).thenReturn(Optional.of(progress(StatementRun.Status.RUNNING, 4)));
+        Mockito.when(statementRecalculationJob.resume(2L)).thenThrow(new StatementRunException("Statement run 2 has already completed."));
+
+        mockMvc.perform(post("/api/admin/statements/1/resume"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.completedPartitions").value(4));
+        mockMvc.perform(post("/api/admin/statements/2/resume"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testExport() throws Exception {
+        StatementExport export = new StatementExport(Path.of("export.rwc"), 2, 1, 3, 5);
+        Mockito.when(statementExportService.export(START, END)).thenReturn(export);
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(statementExportService).transfer(Mockito.eq(export), Mockito.any());
+
+        MvcResult result = mockMvc.perform(get("/api/admin/statements/export")
+                        .param("startDate", "2023-01-01T00:00:00")
+                        .param("endDate", "2023-01-31T23:59:59")
+                        .accept(ColumnarFormat.MEDIA_TYPE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ColumnarFormat.MEDIA_TYPE))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"rewards-2023-01-01-2023-01-31.rwc\""))
+                .andExpect(content().bytes(new byte[]{1, 2, 3}));
+    }
+
+    private static StatementRunProgress progress(StatementRun.Status status, long completedPartitions) {
+        return new StatementRunProgress(1L, status, START, END, 10, completedPartitions, 0, 0, START, null);
+    }
+}
@@ -0,0 +1,124 @@
+package com.homework.rewards.controller;
+
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.BulkIngestException;
+import com.homework.rewards.exception.InvalidTransactionException;
+import com.homework.rewards.service.BulkIngestService;
+import com.homework.rewards.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransactionController.class)
+class TransactionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private BulkIngestService bulkIngestService;
+
+    @Test
+    void testRecordTransaction() throws Exception {
+        Transaction saved = new Transaction(42L, 12345L, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0));
+        Mockito.when(transactionService.record(Mockito.any())).thenReturn(saved);
+
+        mockMvc.perform(post("/api/transactions")
+                        .content("{\"customerId\":12345,\"amount\":120.0,\"timestamp\":\"2023-01-15T10:00:00\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(42));
+    }
+
+    @Test
+    void testRecordTransaction_InvalidInput() throws Exception {
+        Mockito.when(transactionService.record(Mockito.any())).thenThrow(new InvalidTransactionException("Amount must not be negative."));
+
+        mockMvc.perform(post("/api/transactions")
+                        .content("{\"customerId\":12345,\"amount\":-1.0,\"timestamp\":\"2023-01-15T10:00:00\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testIngestCsv() throws Exception {
+        Mockito.when(bulkIngestService.ingestCsv(Mockito.any(), Mockito.isNull(), Mockito.eq(0L)))
+                .thenReturn(new IngestResult(2, 1, 3, 5, 400));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                        .content("customerId,amount,timestamp\n1,120.0,2023-01-15T10:00:00\n1,80.0,2023-01-20T10:00:00\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rows").value(2))
+                .andExpect(jsonPath("$.chunks").value(1))
+                .andExpect(jsonPath("$.committedLines").value(3));
+    }
+
+    @Test
+    void testIngestCsv_Resumed() throws Exception {
+        Mockito.when(bulkIngestService.ingestCsv(Mockito.any(), Mockito.eq("upload-1"), Mockito.eq(2L)))
+                .thenReturn(new IngestResult(1, 1, 3, 5, 200));
+
+        mockMvc.perform(post("/api/transactions/bulk?resumeAfterLine=2")
+                        .header("Idempotency-Key", "upload-1")
+                        .content("customerId,amount,timestamp\n1,120.0,2023-01-15T10:00:00\n1,80.0,2023-01-20T10:00:00\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rows").value(1));
+    }
+
+    @Test
+    void testIngestNdjson_InvalidRow() throws Exception {
+        Mockito.when(bulkIngestService.ingestNdjson(Mockito.any(), Mockito.isNull(), Mockito.eq(0L)))
+                .thenThrow(new BulkIngestException(0, new InvalidTransactionException("Line 1: Amount must not be negative.")));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                        .content("{\"customerId\":1,\"amount\":-1.0,\"timestamp\":\"2023-01-15T10:00:00\"}\n")
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Line 1: Amount must not be negative."))
+                .andExpect(jsonPath("$.committedLines").value(0));
+    }
+
+    @Test
+    void testIngestCsv_ArchivedMonthRow() throws Exception {
+        Mockito.when(bulkIngestService.ingestCsv(Mockito.any(), Mockito.isNull(), Mockito.eq(0L)))
+                .thenThrow(new BulkIngestException(0, new ArchivedPeriodException("Line 1: Transactions up to 2022-12 have been archived.")));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                        .content("1,120.0,2022-12-15T10:00:00\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.detail").value("Line 1: Transactions up to 2022-12 have been archived."))
+                .andExpect(jsonPath("$.committedLines").value(0));
+    }
+
+    @Test
+    void testIngestCsv_FailedAfterChunks() throws Exception {
+        Mockito.when(bulkIngestService.ingestCsv(Mockito.any(), Mockito.isNull(), Mockito.eq(0L)))
+                .thenThrow(new BulkIngestException(10_000, new UncheckedIOException(new IOException("Connection reset"))));
+
+        mockMvc.perform(post("/api/transactions/bulk")
+                        .content("1,120.0,2023-01-15T10:00:00\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.detail").value("Upload failed."))
+                .andExpect(jsonPath("$.committedLines").value(10_000));
+    }
+}
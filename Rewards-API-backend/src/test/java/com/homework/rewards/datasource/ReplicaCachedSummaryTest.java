@@ -0,0 +1,170 @@
+package com.homework.rewards.datasource;
+
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.config.CacheConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.MonthlyPointsRow;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardLedgerService;
+import com.homework.rewards.service.RewardService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * A cached summary must not be filled by a replica that lacks the write its key follows. In-memory
+ * H2 databases stand in for the primary and a replica, as in {@link ReplicaRoutingDataSourceTest};
+ * the mocked ledger answers with the points stored in whichever database the read was routed to.
+ */
+@SpringJUnitConfig(ReplicaCachedSummaryTest.Config.class)
+public class ReplicaCachedSummaryTest {
+
+    private static final LocalDateTime MARCH_START = LocalDateTime.of(2023, 3, 1, 0, 0);
+    private static final LocalDateTime MARCH_END = RewardLedgerService.endOfMonth(YearMonth.of(2023, 3));
+    // "Now" is in March 2023, so March is the current month; moved by the test
+    private static final AtomicReference<Instant> NOW =
+            new AtomicReference<>(LocalDateTime.of(2023, 3, 15, 12, 0).toInstant(ZoneOffset.UTC));
+    private static final HikariDataSource PRIMARY = database("primary");
+    private static final HikariDataSource REPLICA = database("replica");
+
+    @Configuration
+    @EnableConfigurationProperties(RewardProperties.class)
+    @Import({RewardPointsConfig.class, CacheConfig.class, CustomerCacheVersions.class, RewardService.class,
+            RewardMetrics.class, SimpleMeterRegistry.class})
+    static class Config {
+        @Bean
+        Clock clock() {
+            Clock clock = mock(Clock.class);
+            when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+            when(clock.instant()).thenAnswer(invocation -> NOW.get());
+            when(clock.millis()).thenAnswer(invocation -> NOW.get().toEpochMilli());
+            return clock;
+        }
+
+        @Bean
+        ReplicaRoutingDataSource dataSource(RewardProperties rewardProperties, Clock clock) {
+            return new ReplicaRoutingDataSource(PRIMARY, List.of(new ReplicaRoutingDataSource.Replica("replica", REPLICA)),
+                    rewardProperties.getReplicas(), clock);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(ReplicaRoutingDataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private ReplicaRoutingDataSource router;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private TransactionRepository transactionRepository;
+
+    @MockBean
+    private RewardLedgerService rewardLedgerService;
+
+    @MockBean
+    private ArchivedMonths archivedMonths;
+
+    @BeforeEach
+    void setUp() {
+        when(rewardLedgerService.sumMonthlyPoints(anyLong(), any(), any())).thenAnswer(invocation ->
+                List.of(row(new JdbcTemplate(router).queryForObject("SELECT points FROM node", Long.class))));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        PRIMARY.close();
+        REPLICA.close();
+    }
+
+    @Test
+    @DisplayName("A summary read after the customer's write skips a replica without it, so the old summary is never cached")
+    void readAfterWrite_NotCachedFromLaggingReplica() {
+        replicate();
+        assertEquals(90, rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END).getTotalPoints());
+
+        // One second later, well within current-month-max-lag, customer 1 earns 30 points the replica has not received
+        NOW.set(NOW.get().plusSeconds(1));
+        new JdbcTemplate(PRIMARY).update("UPDATE node SET points = 120");
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(
+                List.of(new Transaction(1L, 1L, 9_000L, LocalDateTime.of(2023, 3, 10, 9, 0)))));
+
+        assertEquals(120, rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END).getTotalPoints());
+        // Other customers still read from the replica
+        assertEquals(90, rewardService.calculateRewardSummary(2L, MARCH_START, MARCH_END).getTotalPoints());
+
+        // The cached entry is the primary's, also once the replica has caught up
+        new JdbcTemplate(REPLICA).update("UPDATE node SET points = 120");
+        replicate();
+        assertEquals(120, rewardService.calculateRewardSummary(1L, MARCH_START, MARCH_END).getTotalPoints());
+        verify(rewardLedgerService, times(2)).sumMonthlyPoints(eq(1L), any(), any());
+    }
+
+    // Writes the heartbeat on the primary and lets the replica receive it at once
+    private void replicate() {
+        router.checkReplicas();
+        Long beat = new JdbcTemplate(PRIMARY).queryForObject("SELECT beat_millis FROM replication_heartbeat", Long.class);
+        new JdbcTemplate(REPLICA).update("UPDATE replication_heartbeat SET beat_millis = ?", beat);
+        router.checkReplicas();
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(4);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute("CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT)");
+        jdbcTemplate.execute("INSERT INTO replication_heartbeat VALUES (1, 0)");
+        jdbcTemplate.execute("CREATE TABLE node (points BIGINT)");
+        jdbcTemplate.execute("INSERT INTO node VALUES (90)");
+        return pool;
+    }
+
+    private static MonthlyPointsRow row(long points) {
+        return new MonthlyPointsRow() {
+            public Integer getPeriodYear() { return 2023; }
+            public Integer getPeriodMonth() { return 3; }
+            public Long getPoints() { return points; }
+            public Long getTransactionCount() { return 1L; }
+        };
+    }
+}
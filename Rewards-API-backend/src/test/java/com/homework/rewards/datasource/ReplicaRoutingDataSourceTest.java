@@ -0,0 +1,187 @@
+package com.homework.rewards.datasource;
+
+import com.homework.rewards.config.RewardProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Separate in-memory H2 databases stand in for the primary and the replicas. Each answers
+ * {@code SELECT name FROM node} with its own name; replication is simulated by copying the
+ * heartbeat from the primary.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    // "Now" is in March 2023, so January is closed and March is the current month
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 3, 15, 12, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    private static final LocalDateTime JANUARY_END = LocalDateTime.of(2023, 1, 31, 23, 59, 59);
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private HikariDataSource primary;
+    private RewardProperties.Replicas properties;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        properties = new RewardProperties.Replicas();
+        properties.setMaxLag(Duration.ofSeconds(30));
+        properties.setCurrentMonthMaxLag(Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    @DisplayName("Read-only transactions go to the replica, read-write transactions to the primary")
+    void readOnly_RoutedToReplica() {
+        HikariDataSource replica = database("replica-a");
+        ReplicaRoutingDataSource router = router(replica);
+        replicate(router, replica, 0);
+
+        assertEquals("replica-a", read(router, true));
+        assertEquals("primary", read(router, false));
+    }
+
+    @Test
+    @DisplayName("A lagging replica serves closed months but not the current month")
+    void staleReplica_OnlyServesClosedMonths() {
+        HikariDataSource replica = database("replica-a");
+        ReplicaRoutingDataSource router = router(replica);
+        replicate(router, replica, 10_000);
+
+        assertEquals("replica-a", ReplicaReads.upTo(JANUARY_END, () -> read(router, true)));
+        assertEquals("primary", ReplicaReads.upTo(NOW, () -> read(router, true)));
+        // A read that does not declare its period gets the current month's bound
+        assertEquals("primary", read(router, true));
+
+        replicate(router, replica, 60_000);
+        assertEquals("primary", ReplicaReads.upTo(JANUARY_END, () -> read(router, true)));
+    }
+
+    @Test
+    @DisplayName("A read that must see a change only goes to a replica with a heartbeat written after it")
+    void changedRead_NeedsLaterHeartbeat() {
+        HikariDataSource replica = database("replica-a");
+        ReplicaRoutingDataSource router = router(replica);
+        replicate(router, replica, 0);
+
+        assertEquals("replica-a", ReplicaReads.upTo(NOW, CLOCK.millis() - 1, () -> read(router, true)));
+        assertEquals("primary", ReplicaReads.upTo(NOW, CLOCK.millis(), () -> read(router, true)));
+        assertEquals("replica-a", ReplicaReads.upTo(NOW, () -> read(router, true)));
+    }
+
+    @Test
+    @DisplayName("Reads fall back to the primary while a replica is unhealthy")
+    void unhealthyReplica_FallsBackToPrimary() {
+        HikariDataSource replica = database("replica-a");
+        ReplicaRoutingDataSource router = router(replica);
+        replicate(router, replica, 0);
+
+        // The heartbeat can no longer be read
+        new JdbcTemplate(replica).execute("DROP TABLE replication_heartbeat");
+        router.checkReplicas();
+        assertEquals("primary", read(router, true));
+
+        // Connections can no longer be opened, noticed before the next heartbeat
+        new JdbcTemplate(replica).execute("CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT)");
+        new JdbcTemplate(replica).update("INSERT INTO replication_heartbeat VALUES (1, ?)", CLOCK.millis());
+        router.checkReplicas();
+        assertEquals("replica-a", read(router, true));
+        replica.close();
+        assertEquals("primary", read(router, true));
+    }
+
+    @Test
+    @DisplayName("Round robin spreads reads over all recent replicas")
+    void roundRobin_UsesEveryReplica() {
+        HikariDataSource replicaA = database("replica-a");
+        HikariDataSource replicaB = database("replica-b");
+        ReplicaRoutingDataSource router = router(replicaA, replicaB);
+        replicate(router, replicaA, 0);
+        replicate(router, replicaB, 0);
+
+        Set<String> served = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            served.add(read(router, true));
+        }
+        assertEquals(Set.of("replica-a", "replica-b"), served);
+    }
+
+    @Test
+    @DisplayName("Least loaded picks the replica with fewer connections in use")
+    void leastLoaded_AvoidsBusyReplica() throws Exception {
+        properties.setStrategy(RewardProperties.Replicas.Strategy.LEAST_LOADED);
+        HikariDataSource replicaA = database("replica-a");
+        HikariDataSource replicaB = database("replica-b");
+        ReplicaRoutingDataSource router = router(replicaA, replicaB);
+        replicate(router, replicaA, 0);
+        replicate(router, replicaB, 0);
+
+        // Keep one replica's connection busy while reading again
+        try (var busy = replicaA.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("replica-b", read(router, true));
+            }
+        }
+    }
+
+    private HikariDataSource database(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(4);
+        pool.setConnectionTimeout(250);
+        pools.add(pool);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute("CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT)");
+        jdbcTemplate.execute("INSERT INTO replication_heartbeat VALUES (1, 0)");
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(32))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return pool;
+    }
+
+    private ReplicaRoutingDataSource router(HikariDataSource... replicas) {
+        List<ReplicaRoutingDataSource.Replica> nodes = new ArrayList<>();
+        for (HikariDataSource replica : replicas) {
+            nodes.add(new ReplicaRoutingDataSource.Replica(replica.getPoolName(), replica));
+        }
+        return new ReplicaRoutingDataSource(primary, nodes, properties, CLOCK);
+    }
+
+    // Writes the heartbeat on the primary and lets the replica receive it lagMillis late
+    private void replicate(ReplicaRoutingDataSource router, DataSource replica, long lagMillis) {
+        router.checkReplicas();
+        Long beat = new JdbcTemplate(primary).queryForObject("SELECT beat_millis FROM replication_heartbeat", Long.class);
+        new JdbcTemplate(replica).update("UPDATE replication_heartbeat SET beat_millis = ?", beat - lagMillis);
+        router.checkReplicas();
+    }
+
+    private static String read(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+}
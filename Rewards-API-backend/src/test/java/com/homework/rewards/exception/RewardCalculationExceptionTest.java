@@ -1,7 +1,11 @@
 package com.homework.rewards.exception;
 
 import com.homework.rewards.controller.RewardController;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.service.BatchRewardService;
+import com.homework.rewards.service.PeriodRewardService;
 import com.homework.rewards.service.RewardService;
+import com.homework.rewards.service.TransactionDetailService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -21,6 +25,18 @@ public class RewardCalculationExceptionTest {
     @MockBean
     private RewardService rewardService;
 
+    @MockBean
+    private BatchRewardService batchRewardService;
+
+    @MockBean
+    private PeriodRewardService periodRewardService;
+
+    @MockBean
+    private TransactionDetailService transactionDetailService;
+
+    @MockBean
+    private RewardMetrics rewardMetrics;
+
 
     @Test
     void testGetRewards_InvalidInput() throws Exception {
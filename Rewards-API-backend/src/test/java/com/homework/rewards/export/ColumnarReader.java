@@ -0,0 +1,164 @@
+package com.homework.rewards.export;
+
+import com.homework.rewards.dto.MonthlyPoints;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.TimestampMicros;
+import com.homework.rewards.entity.Transaction;
+
+import java.nio.ByteBuffer;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decodes {@link ColumnarFormat} streams written by {@link ColumnarWriter}, so tests can check
+ * what was written. Frames with unknown tags are skipped.
+ */
+public final class ColumnarReader {
+
+    private ColumnarReader() {
+    }
+
+    public static RewardResponse readResponse(ByteBuffer buffer) {
+        readMagic(buffer);
+        RewardResponse response = null;
+        List<Transaction> transactions = null;
+        while (buffer.hasRemaining()) {
+            byte tag = buffer.get();
+            ByteBuffer body = frameBody(buffer);
+            if (tag == ColumnarFormat.RESPONSE) {
+                Long customerId = getZigZag(body);
+                int totalPoints = Math.toIntExact(getZigZag(body));
+                long months = getVarLong(body);
+                Map<String, Integer> monthlyPoints = new HashMap<>();
+                for (int i = 0; i < months; i++) {
+                    String month = Month.of(body.get()).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+                    monthlyPoints.put(month, Math.toIntExact(getZigZag(body)));
+                }
+                response = new RewardResponse(customerId, monthlyPoints, totalPoints, null);
+            } else if (tag == ColumnarFormat.TRANSACTIONS) {
+                transactions = new ArrayList<>();
+                readTransactions(body, transactions::add);
+            }
+        }
+        if (response == null) {
+            throw new IllegalArgumentException("No reward response frame.");
+        }
+        response.setTransactions(transactions);
+        return response;
+    }
+
+    /**
+     * Hands every transaction and statement of an export to the consumers, in file order, and
+     * checks the totals of the end frame.
+     */
+    public static void readExport(ByteBuffer buffer, Consumer<Transaction> transactions, Consumer<MonthlyPoints> statements) {
+        readMagic(buffer);
+        long transactionCount = 0;
+        long statementCount = 0;
+        while (buffer.hasRemaining()) {
+            byte tag = buffer.get();
+            ByteBuffer body = frameBody(buffer);
+            if (tag == ColumnarFormat.TRANSACTIONS) {
+                transactionCount += readTransactions(body, transactions);
+            } else if (tag == ColumnarFormat.STATEMENTS) {
+                ColumnBlock block = readColumns(body, ColumnarFormat.STATEMENT_COLUMNS);
+                for (int row = 0; row < block.size(); row++) {
+                    long month = block.get(1, row);
+                    statements.accept(new MonthlyPoints(block.get(0, row), (int) Math.floorDiv(month, 12),
+                            (int) Math.floorMod(month, 12) + 1, block.get(2, row), block.get(3, row)));
+                }
+                statementCount += block.size();
+            } else if (tag == ColumnarFormat.END) {
+                if (getVarLong(body) != transactionCount || getVarLong(body) != statementCount) {
+                    throw new IllegalArgumentException("Export totals do not match its frames.");
+                }
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Export has no end frame; it may be truncated.");
+    }
+
+    private static int readTransactions(ByteBuffer body, Consumer<Transaction> transactions) {
+        ColumnBlock block = readColumns(body, ColumnarFormat.TRANSACTION_COLUMNS);
+        for (int row = 0; row < block.size(); row++) {
+            transactions.accept(new Transaction(block.get(1, row), block.get(0, row), block.get(3, row),
+                    TimestampMicros.toLocalDateTime(block.get(2, row))));
+        }
+        return block.size();
+    }
+
+    private static ColumnBlock readColumns(ByteBuffer body, ColumnarFormat.Encoding[] encodings) {
+        int size = Math.toIntExact(getVarLong(body));
+        long[][] columns = new long[ColumnBlock.COLUMNS][size];
+        for (int column = 0; column < ColumnBlock.COLUMNS; column++) {
+            long[] values = columns[column];
+            switch (encodings[column]) {
+                case RUNS -> {
+                    long runs = getVarLong(body);
+                    long value = 0;
+                    for (int run = 0, row = 0; run < runs; run++) {
+                        value += getZigZag(body);
+                        for (long length = getVarLong(body); length > 0; length--) {
+                            values[row++] = value;
+                        }
+                    }
+                }
+                case DELTA -> {
+                    long value = 0;
+                    for (int row = 0; row < size; row++) {
+                        value += getZigZag(body);
+                        values[row] = value;
+                    }
+                }
+                case PLAIN -> {
+                    for (int row = 0; row < size; row++) {
+                        values[row] = getVarLong(body);
+                    }
+                }
+            }
+        }
+        ColumnBlock block = new ColumnBlock(size);
+        for (int row = 0; row < size; row++) {
+            block.add(columns[0][row], columns[1][row], columns[2][row], columns[3][row]);
+        }
+        return block;
+    }
+
+    private static void readMagic(ByteBuffer buffer) {
+        byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, ColumnarFormat.MAGIC)) {
+            throw new IllegalArgumentException("Not a rewards columnar stream.");
+        }
+    }
+
+    private static ByteBuffer frameBody(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer body = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return body;
+    }
+
+    private static long getVarLong(ByteBuffer body) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = body.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long getZigZag(ByteBuffer body) {
+        long value = getVarLong(body);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.homework.rewards.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.homework.rewards.dto.MonthlyPoints;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.TimestampMicros;
+import com.homework.rewards.entity.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarWriterTest {
+
+    @Test
+    @DisplayName("A response without transactions round-trips")
+    void summary_RoundTrips() throws IOException {
+        RewardResponse response = new RewardResponse(12345L, Map.of("January", 150, "February", 0, "December", 90), 240, null);
+
+        RewardResponse read = ColumnarReader.readResponse(ByteBuffer.wrap(write(response)));
+
+        assertEquals(response, read);
+        assertNull(read.getTransactions());
+    }
+
+    @Test
+    @DisplayName("A response with transactions round-trips and is smaller than its JSON")
+    void transactions_RoundTripSmallerThanJson() throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        Random random = new Random(7);
+        LocalDateTime timestamp = LocalDateTime.of(2023, 1, 1, 0, 0);
+        for (long id = 1; id <= 1000; id++) {
+            timestamp = timestamp.plusSeconds(random.nextInt(3600)).plusNanos(random.nextInt(1000) * 1000L);
+            transactions.add(new Transaction(id * 3, 42L, (long) random.nextInt(25_001), timestamp));
+        }
+        RewardResponse response = new RewardResponse(42L, Map.of("January", 3000), 3000, transactions);
+
+        byte[] columnar = write(response);
+        byte[] json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsBytes(response);
+
+        assertEquals(response, ColumnarReader.readResponse(ByteBuffer.wrap(columnar)));
+        assertTrue(columnar.length * 5 < json.length, columnar.length + " bytes against " + json.length + " bytes of JSON");
+    }
+
+    @Test
+    @DisplayName("Export frames are read back with their totals checked")
+    void export_RoundTrips() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarWriter writer = new ColumnarWriter(Channels.newChannel(out));
+        ColumnBlock transactions = new ColumnBlock(2);
+        transactions.add(1L, 10L, TimestampMicros.of(LocalDateTime.of(2023, 1, 5, 9, 0)), 12_000L);
+        transactions.add(1L, 11L, TimestampMicros.of(LocalDateTime.of(2023, 2, 5, 9, 0)), 5_000L);
+        writer.writeTransactions(transactions);
+        ColumnBlock statements = new ColumnBlock(2);
+        statements.add(1L, ColumnarFormat.monthIndex(2023, 1), 90L, 1L);
+        statements.add(1L, ColumnarFormat.monthIndex(2023, 2), 0L, 1L);
+        writer.writeStatements(statements);
+        writer.writeEnd(2, 2);
+        assertEquals(out.size(), writer.bytesWritten());
+
+        List<Transaction> readTransactions = new ArrayList<>();
+        List<MonthlyPoints> readStatements = new ArrayList<>();
+        ColumnarReader.readExport(ByteBuffer.wrap(out.toByteArray()), readTransactions::add, readStatements::add);
+
+        assertEquals(List.of(new Transaction(10L, 1L, 12_000L, LocalDateTime.of(2023, 1, 5, 9, 0)),
+                new Transaction(11L, 1L, 5_000L, LocalDateTime.of(2023, 2, 5, 9, 0))), readTransactions);
+        assertEquals(List.of(new MonthlyPoints(1L, 2023, 1, 90L, 1L), new MonthlyPoints(1L, 2023, 2, 0L, 1L)), readStatements);
+    }
+
+    @Test
+    @DisplayName("A truncated export is rejected")
+    void export_TruncatedRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarWriter writer = new ColumnarWriter(Channels.newChannel(out));
+        ColumnBlock transactions = new ColumnBlock(1);
+        transactions.add(1L, 10L, 0L, 100L);
+        writer.writeTransactions(transactions);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnarReader.readExport(ByteBuffer.wrap(out.toByteArray()), t -> { }, s -> { }));
+    }
+
+    private static byte[] write(RewardResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ColumnarWriter(Channels.newChannel(out)).writeResponse(response);
+        return out.toByteArray();
+    }
+}
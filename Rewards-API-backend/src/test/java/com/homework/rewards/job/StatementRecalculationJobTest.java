@@ -0,0 +1,180 @@
+package com.homework.rewards.job;
+
+import com.homework.rewards.config.ClockConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.CustomerMonthlyPointsRow;
+import com.homework.rewards.dto.StatementRunProgress;
+import com.homework.rewards.entity.RewardStatement;
+import com.homework.rewards.entity.StatementPartition;
+import com.homework.rewards.entity.StatementRun;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.StatementRunException;
+import com.homework.rewards.repository.RewardStatementRepository;
+import com.homework.rewards.repository.StatementPartitionRepository;
+import com.homework.rewards.repository.StatementRunRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import com.homework.rewards.service.ArchivedMonths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, since partitions are computed on the job's own threads.
+ */
+@DataJpaTest(properties = {"rewards.statements.partition-size=7", "rewards.statements.parallelism=4"})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({ClockConfig.class, RewardPointsConfig.class, StatementRecalculationJob.class, ArchivedMonths.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StatementRecalculationJobTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private StatementRecalculationJob job;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private StatementRunRepository runRepository;
+
+    @Autowired
+    private StatementPartitionRepository partitionRepository;
+
+    @Autowired
+    private RewardStatementRepository statementRepository;
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        statementRepository.deleteAllInBatch();
+        partitionRepository.deleteAllInBatch();
+        runRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("A run writes the same monthly points as the database aggregation, for every customer")
+    void start_MatchesDatabaseAggregation() {
+        saveTransactions();
+
+        StatementRunProgress started = job.start(START, END);
+        job.completion(started.getRunId()).join();
+
+        StatementRunProgress progress = job.progress(started.getRunId()).orElseThrow();
+        assertEquals(StatementRun.Status.COMPLETED, progress.getStatus());
+        assertEquals(6, progress.getPartitions()); // 41 customers in partitions of 7
+        assertEquals(6, progress.getCompletedPartitions());
+        assertEquals(expectedStatements().size(), progress.getCustomers());
+        assertNotNull(progress.getFinishedAt());
+
+        assertEquals(expectedStatements(), statements(started.getRunId()));
+    }
+
+    @Test
+    @DisplayName("Partitions follow the customer ids that exist, however far apart")
+    void start_SparseCustomerIds() {
+        List<Long> customerIds = List.of(3L, 9L, 1_000_000L, 1_000_001L, 7_000_000_000L, 7_000_000_005L,
+                50_000_000_000_000L, 50_000_000_000_001L, Long.MAX_VALUE - 1);
+        transactionRepository.saveAll(customerIds.stream()
+                .map(customerId -> new Transaction(null, customerId, 12_000L, LocalDateTime.of(2023, 3, 1, 12, 0)))
+                .toList());
+
+        Long runId = job.start(START, END).getRunId();
+        job.completion(runId).join();
+
+        StatementRunProgress progress = job.progress(runId).orElseThrow();
+        assertEquals(StatementRun.Status.COMPLETED, progress.getStatus());
+        assertEquals(2, progress.getPartitions());
+        assertEquals(9, progress.getCustomers());
+        List<StatementPartition> partitions = partitionRepository.findByRunIdAndStatusOrderByPartitionNumber(
+                runId, StatementPartition.Status.COMPLETED);
+        assertEquals(List.of(3L, 50_000_000_000_001L), partitions.stream().map(StatementPartition::getFromCustomerId).toList());
+        assertEquals(List.of(50_000_000_000_000L, Long.MAX_VALUE - 1), partitions.stream().map(StatementPartition::getToCustomerId).toList());
+        assertEquals(customerIds, List.copyOf(statements(runId).keySet()));
+    }
+
+    @Test
+    @DisplayName("Resuming a run only computes its pending partitions")
+    void resume_SkipsCompletedPartitions() {
+        saveTransactions();
+        Long runId = job.start(START, END).getRunId();
+        job.completion(runId).join();
+
+        // Partition 0 stays completed but loses its rows; partition 1 is reset as if it had failed
+        List<StatementPartition> partitions = partitionRepository.findAll();
+        StatementPartition first = partitions.stream().filter(p -> p.getPartitionNumber() == 0).findFirst().orElseThrow();
+        StatementPartition second = partitions.stream().filter(p -> p.getPartitionNumber() == 1).findFirst().orElseThrow();
+        second.setStatus(StatementPartition.Status.PENDING);
+        partitionRepository.save(second);
+        statementRepository.deleteAllInBatch(statementRepository.findAll().stream()
+                .filter(s -> s.getCustomerId() <= second.getToCustomerId()).toList());
+        StatementRun run = runRepository.findById(runId).orElseThrow();
+        run.setStatus(StatementRun.Status.FAILED);
+        runRepository.save(run);
+
+        job.resume(runId).orElseThrow();
+        job.completion(runId).join();
+
+        Map<Long, List<String>> statements = statements(runId);
+        assertTrue(LongStream.rangeClosed(first.getFromCustomerId(), first.getToCustomerId()).noneMatch(statements::containsKey));
+        Map<Long, List<String>> expected = expectedStatements();
+        expected.keySet().removeIf(customerId -> customerId <= first.getToCustomerId());
+        assertEquals(expected, statements);
+        assertEquals(StatementRun.Status.COMPLETED, runRepository.findById(runId).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Completed runs cannot be resumed and unknown runs are empty")
+    void resume_CompletedOrUnknownRun() {
+        Long runId = job.start(START, END).getRunId();
+        job.completion(runId).join();
+
+        // No transactions at all, so the run has nothing to do
+        assertEquals(0, job.progress(runId).orElseThrow().getPartitions());
+        assertThrows(StatementRunException.class, () -> job.resume(runId));
+        assertTrue(job.resume(runId + 1).isEmpty());
+    }
+
+    // 40 random customers plus customer 100, with some transactions outside the run's year
+    private void saveTransactions() {
+        Random random = new Random(5);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            transactions.add(new Transaction(null, 1L + random.nextInt(40), (long) random.nextInt(25_001),
+                    LocalDateTime.of(2022, 12, 1, 0, 0).plusMinutes(random.nextInt(400 * 24 * 60))));
+        }
+        transactions.add(new Transaction(null, 100L, 12_000L, LocalDateTime.of(2023, 6, 1, 12, 0)));
+        transactionRepository.saveAll(transactions);
+    }
+
+    private Map<Long, List<String>> expectedStatements() {
+        List<Long> customerIds = LongStream.rangeClosed(1, 100).boxed().toList();
+        return transactionRepository.sumMonthlyPointsByCustomer(customerIds, START, END).stream()
+                .collect(Collectors.groupingBy(CustomerMonthlyPointsRow::getCustomerId, TreeMap::new, Collectors.mapping(
+                        row -> row.getPeriodYear() + "-" + row.getPeriodMonth() + ":" + row.getPoints() + "/" + row.getTransactionCount(),
+                        Collectors.collectingAndThen(Collectors.toList(), rows -> rows.stream().sorted().toList()))));
+    }
+
+    private Map<Long, List<String>> statements(Long runId) {
+        return statementRepository.findAll().stream()
+                .filter(s -> s.getRunId().equals(runId))
+                .collect(Collectors.groupingBy(RewardStatement::getCustomerId, TreeMap::new, Collectors.mapping(
+                        s -> s.getPeriodYear() + "-" + s.getPeriodMonth() + ":" + s.getPoints() + "/" + s.getTransactionCount(),
+                        Collectors.collectingAndThen(Collectors.toList(), rows -> rows.stream().sorted().toList()))));
+    }
+}
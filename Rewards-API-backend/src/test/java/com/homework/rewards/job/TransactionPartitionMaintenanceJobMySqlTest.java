@@ -0,0 +1,160 @@
+package com.homework.rewards.job;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.migration.V3_1__RebuildRoundedLedgerMonths;
+import com.homework.rewards.service.ArchivedMonths;
+import com.homework.rewards.service.RewardLedgerService;
+import com.homework.rewards.service.RewardPointsTable;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs V6 and the partition job against a real MySQL or MariaDB server, in a scratch database that
+ * is dropped afterwards. Tagged so the regular test run skips it; run it with
+ * {@code ./gradlew mysqlTest -Dmysql.url=jdbc:mysql://localhost:3306/ -Dmysql.user=root -Dmysql.password=...},
+ * where the URL names the server without a database.
+ */
+@Tag("mysql")
+public class TransactionPartitionMaintenanceJobMySqlTest {
+
+    private static final int RETENTION_MONTHS = 24;
+    private static final int HISTORY_MONTHS = 27;
+    private static final int ROWS_PER_MONTH = 40;
+
+    private final RewardProperties properties = new RewardProperties();
+    private final RewardPointsTable rewardPointsTable = new RewardPointsTable(properties.getPoints().getTiers());
+    private final YearMonth current = YearMonth.now();
+    // Points and rows seeded per month
+    private final Map<YearMonth, long[]> seeded = new TreeMap<>();
+
+    private String database;
+    private JdbcTemplate server;
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getProperty("mysql.url", "jdbc:mysql://localhost:3306/");
+        String user = System.getProperty("mysql.user", "root");
+        String password = System.getProperty("mysql.password", "");
+        database = "rewards_partition_test_" + System.currentTimeMillis();
+        server = new JdbcTemplate(new DriverManagerDataSource(url, user, password));
+        server.execute("CREATE DATABASE " + database);
+        dataSource = new DriverManagerDataSource(url + database, user, password);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Rows before partitioning, so V6 starts its partitions at the oldest month
+        flyway("5").migrate();
+        Random random = new Random(6);
+        List<Object[]> rows = new ArrayList<>();
+        for (YearMonth month = current.minusMonths(HISTORY_MONTHS); month.isBefore(current); month = month.plusMonths(1)) {
+            long[] totals = seeded.computeIfAbsent(month, m -> new long[2]);
+            for (int i = 0; i < ROWS_PER_MONTH; i++) {
+                long amountCents = random.nextInt(25_001);
+                totals[0] += rewardPointsTable.points(amountCents);
+                totals[1]++;
+                rows.add(new Object[]{1L + random.nextInt(5), amountCents,
+                        month.atDay(1 + random.nextInt(month.lengthOfMonth())).atTime(random.nextInt(24), random.nextInt(60))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transaction (customer_id, amount_cents, timestamp) VALUES (?, ?, ?)", rows);
+        flyway(null).migrate();
+
+        properties.getLedger().setEnabled(true);
+        properties.getPartitions().setRetentionMonths(RETENTION_MONTHS);
+        properties.getPartitions().setMonthsAhead(5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.execute("DROP DATABASE IF EXISTS " + database);
+    }
+
+    @Test
+    @DisplayName("V6 partitions by month; expired months are marked, then exchanged, dropped and kept in the ledger")
+    void maintain_MarksThenArchivesExpiredMonths() {
+        List<YearMonth> expired = new ArrayList<>();
+        for (YearMonth month = current.minusMonths(HISTORY_MONTHS); month.isBefore(current.minusMonths(RETENTION_MONTHS));
+             month = month.plusMonths(1)) {
+            expired.add(month);
+        }
+        List<YearMonth> partitioned = TransactionPartitionMaintenanceJob.months(partitions());
+        assertEquals(current.minusMonths(HISTORY_MONTHS), partitioned.get(0));
+        assertEquals(current.plusMonths(3), partitioned.get(partitioned.size() - 1));
+
+        // The first run creates the partitions ahead and only marks the expired months
+        ArchivedMonths archivedMonths = new ArchivedMonths(jdbcTemplate, properties);
+        job(archivedMonths, Clock.systemDefaultZone()).maintain();
+
+        partitioned = TransactionPartitionMaintenanceJob.months(partitions());
+        assertEquals(current.plusMonths(5), partitioned.get(partitioned.size() - 1));
+        assertTrue(partitioned.containsAll(expired));
+        assertEquals(expired.get(expired.size() - 1), archivedMonths.newest());
+        assertEquals(expired.size(), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM archived_month WHERE archived_at IS NULL", Integer.class));
+        assertEquals(HISTORY_MONTHS * ROWS_PER_MONTH, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+
+        // Once every instance has seen the marks, the next run moves the rows; a further run has nothing to do
+        Clock later = Clock.offset(Clock.systemDefaultZone(), Duration.ofMinutes(5));
+        job(archivedMonths, later).maintain();
+        job(archivedMonths, later).maintain();
+
+        partitioned = TransactionPartitionMaintenanceJob.months(partitions());
+        assertEquals(current.minusMonths(RETENTION_MONTHS), partitioned.get(0));
+        assertEquals((HISTORY_MONTHS - expired.size()) * ROWS_PER_MONTH,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+        for (YearMonth month : expired) {
+            long[] totals = seeded.get(month);
+            String archive = "transaction_archive_" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+            assertEquals(totals[1], jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + archive, Long.class));
+            assertEquals(totals[1], jdbcTemplate.queryForObject(
+                    "SELECT archived_rows FROM archived_month WHERE period_year = ? AND period_month = ? AND archived_at IS NOT NULL",
+                    Long.class, month.getYear(), month.getMonthValue()));
+            assertEquals(totals[0], jdbcTemplate.queryForObject(
+                    "SELECT SUM(points) FROM monthly_reward_summary WHERE period_year = ? AND period_month = ?",
+                    Long.class, month.getYear(), month.getMonthValue()));
+        }
+    }
+
+    private TransactionPartitionMaintenanceJob job(ArchivedMonths archivedMonths, Clock clock) {
+        RewardLedgerService rewardLedgerService = new RewardLedgerService(null, null, properties,
+                new NamedParameterJdbcTemplate(dataSource), rewardPointsTable, event -> {
+        }, archivedMonths);
+        return new TransactionPartitionMaintenanceJob(jdbcTemplate, rewardLedgerService, archivedMonths, properties, clock);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transaction' ORDER BY PARTITION_ORDINAL_POSITION
+                """, String.class);
+    }
+
+    private Flyway flyway(String target) {
+        FluentConfiguration configuration = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/mysql")
+                .javaMigrations(new V3_1__RebuildRoundedLedgerMonths(rewardPointsTable));
+        return (target == null ? configuration : configuration.target(target)).load();
+    }
+}
@@ -0,0 +1,68 @@
+package com.homework.rewards.job;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Which months the partition DDL is run for, and the statements it runs. They are executed against
+ * MySQL by {@link TransactionPartitionMaintenanceJobMySqlTest}.
+ */
+public class TransactionPartitionMaintenanceJobTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+
+    @Test
+    @DisplayName("Only monthly partitions are read as months")
+    void months_SkipsCatchAllPartitions() {
+        assertEquals(List.of(YearMonth.of(2023, 12), YearMonth.of(2024, 1)),
+                TransactionPartitionMaintenanceJob.months(List.of("p_old", "p202312", "p202401", "p_future")));
+    }
+
+    @Test
+    @DisplayName("Upcoming partitions continue after the newest one, up to months-ahead")
+    void upcoming_FillsUpToMonthsAhead() {
+        assertEquals(List.of(YearMonth.of(2024, 5), YearMonth.of(2024, 6)),
+                TransactionPartitionMaintenanceJob.upcoming(List.of(YearMonth.of(2024, 3), YearMonth.of(2024, 4)), MARCH, 3));
+        assertEquals(List.of(),
+                TransactionPartitionMaintenanceJob.upcoming(List.of(YearMonth.of(2024, 6)), MARCH, 3));
+        // Nothing partitioned by month yet: start with the current month
+        assertEquals(List.of(MARCH, YearMonth.of(2024, 4)),
+                TransactionPartitionMaintenanceJob.upcoming(List.of(), MARCH, 1));
+    }
+
+    @Test
+    @DisplayName("Months older than the retention period expire, none without retention")
+    void expired_OlderThanRetention() {
+        List<YearMonth> months = List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2), YearMonth.of(2023, 3), MARCH);
+
+        assertEquals(List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2)),
+                TransactionPartitionMaintenanceJob.expired(months, MARCH, 12));
+        assertEquals(List.of(), TransactionPartitionMaintenanceJob.expired(months, MARCH, 0));
+    }
+
+    @Test
+    @DisplayName("New partitions are split off p_future, each bounded by the first day of the next month")
+    void reorganizeFuture_OnePartitionPerMonth() {
+        assertEquals("ALTER TABLE transaction REORGANIZE PARTITION p_future INTO ("
+                        + "PARTITION p202403 VALUES LESS THAN ('2024-04-01'), "
+                        + "PARTITION p202404 VALUES LESS THAN ('2024-05-01'), "
+                        + "PARTITION p_future VALUES LESS THAN (MAXVALUE))",
+                TransactionPartitionMaintenanceJob.reorganizeFuture(List.of(MARCH, YearMonth.of(2024, 4))));
+    }
+
+    @Test
+    @DisplayName("An expired month is exchanged with an unpartitioned copy of the table, then dropped")
+    void archiveStatements_ExchangeThenDrop() {
+        assertEquals(List.of("CREATE TABLE transaction_archive_202403 LIKE transaction",
+                        "ALTER TABLE transaction_archive_202403 REMOVE PARTITIONING"),
+                TransactionPartitionMaintenanceJob.createArchiveTable(MARCH));
+        assertEquals("ALTER TABLE transaction EXCHANGE PARTITION p202403 WITH TABLE transaction_archive_202403",
+                TransactionPartitionMaintenanceJob.exchangePartition(MARCH));
+        assertEquals("ALTER TABLE transaction DROP PARTITION p202403", TransactionPartitionMaintenanceJob.dropPartition(MARCH));
+    }
+}
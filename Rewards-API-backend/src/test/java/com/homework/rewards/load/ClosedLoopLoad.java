@@ -0,0 +1,124 @@
+package com.homework.rewards.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop HTTP load: each client thread sends its next request as soon as the previous one is
+ * answered, so throughput is what the server sustains at that concurrency. Responses other than
+ * 2xx and I/O failures count as errors and are left out of the latencies.
+ */
+public final class ClosedLoopLoad implements AutoCloseable {
+
+    private final int clients;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    public ClosedLoopLoad(int clients) {
+        this.clients = clients;
+        this.executor = Executors.newFixedThreadPool(clients);
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    public int clients() {
+        return clients;
+    }
+
+    /**
+     * Runs every client for {@code duration}; {@code requests} is called from the client threads
+     * for each request.
+     */
+    public Result run(Duration duration, Supplier<HttpRequest> requests) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<ClientResult>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                ClientResult result = new ClientResult();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = requests.get();
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() / 100 == 2) {
+                            result.record(System.nanoTime() - started);
+                        } else {
+                            result.errors++;
+                        }
+                    } catch (IOException e) {
+                        result.errors++;
+                    }
+                }
+                return result;
+            }));
+        }
+
+        Result total = new Result(duration);
+        for (Future<ClientResult> future : futures) {
+            total.add(future.get());
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Latencies of one client thread, in nanoseconds
+    private static final class ClientResult {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    public static final class Result {
+        private final Duration duration;
+        private long[] latencies = new long[0];
+        private long errors;
+
+        Result(Duration duration) {
+            this.duration = duration;
+        }
+
+        void add(ClientResult client) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + client.count);
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            errors += client.errors;
+        }
+
+        public long requestsPerSecond() {
+            return latencies.length / Math.max(duration.toSeconds(), 1);
+        }
+
+        public double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1_000_000.0;
+        }
+
+        public long errors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.homework.rewards.load;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic transaction history shaped like production data rather than uniform noise:
+ * <ul>
+ *     <li>customer activity follows a Zipf distribution of exponent {@code skew}, so a few customers
+ *     have thousands of transactions and most have a handful</li>
+ *     <li>daily volume grows 30% a year over {@code years} years, peaks in November and December
+ *     and is higher at weekends, and most transactions fall between 8:00 and 22:00</li>
+ *     <li>amounts are log-normal around $45 with a long tail capped at $5,000, so every point tier
+ *     occurs</li>
+ * </ul>
+ * Rows are generated in timestamp order while the CSV is read, so a history of any size streams
+ * into {@code BulkIngestService} without being held in memory. The same settings always produce
+ * the same rows, which is what makes results comparable between builds.
+ */
+public final class SyntheticTransactions {
+
+    private static final double YEARLY_GROWTH = 1.3;
+    private static final double MEDIAN_AMOUNT_CENTS = 4_500;
+    private static final double AMOUNT_SIGMA = 0.9;
+    private static final long MAX_AMOUNT_CENTS = 500_000;
+
+    private final int customers;
+    private final long transactions;
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+    private final long seed;
+    // Customer ids by activity rank, shuffled so busy customers are spread over the id range
+    private final long[] customerByRank;
+    // Cumulative Zipf weights by rank, the last one being 1
+    private final double[] cumulativeWeights;
+    // Transactions on each day from firstDay
+    private final long[] dailyCounts;
+
+    public SyntheticTransactions(int customers, long transactions, int years, double skew, long seed, LocalDate lastDay) {
+        if (customers < 1 || transactions < 0 || years < 1 || skew < 0) {
+            throw new IllegalArgumentException("Customers and years must be positive, transactions and skew not negative.");
+        }
+        this.customers = customers;
+        this.transactions = transactions;
+        this.lastDay = lastDay;
+        this.firstDay = lastDay.minusYears(years).plusDays(1);
+        this.seed = seed;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        customerByRank = new long[customers];
+        for (int rank = 0; rank < customers; rank++) {
+            customerByRank[rank] = rank + 1;
+        }
+        for (int i = customers - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = customerByRank[i];
+            customerByRank[i] = customerByRank[j];
+            customerByRank[j] = swap;
+        }
+        cumulativeWeights = new double[customers];
+        double total = 0;
+        for (int rank = 0; rank < customers; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulativeWeights[rank] = total;
+        }
+        for (int rank = 0; rank < customers; rank++) {
+            cumulativeWeights[rank] /= total;
+        }
+
+        int days = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        double[] dayWeights = new double[days];
+        double totalWeight = 0;
+        for (int day = 0; day < days; day++) {
+            dayWeights[day] = dayWeight(firstDay.plusDays(day), day / 365.0);
+            totalWeight += dayWeights[day];
+        }
+        // Rounded cumulatively, so the days add up to exactly the requested number of transactions
+        dailyCounts = new long[days];
+        double cumulative = 0;
+        long assigned = 0;
+        for (int day = 0; day < days; day++) {
+            cumulative += dayWeights[day];
+            long upTo = Math.round(transactions * cumulative / totalWeight);
+            dailyCounts[day] = upTo - assigned;
+            assigned = upTo;
+        }
+    }
+
+    /**
+     * Settings from {@code benchmark.customers} (20,000), {@code benchmark.rows} (2,000,000),
+     * {@code benchmark.years} (3), {@code benchmark.skew} (1.0), {@code benchmark.seed} (42) and
+     * {@code benchmark.last-day} (2025-12-31). The last day is fixed rather than today so a
+     * baseline can be reproduced later.
+     */
+    public static SyntheticTransactions fromSystemProperties() {
+        return new SyntheticTransactions(
+                Integer.getInteger("benchmark.customers", 20_000),
+                Long.getLong("benchmark.rows", 2_000_000),
+                Integer.getInteger("benchmark.years", 3),
+                Double.parseDouble(System.getProperty("benchmark.skew", "1.0")),
+                Long.getLong("benchmark.seed", 42),
+                LocalDate.parse(System.getProperty("benchmark.last-day", "2025-12-31")));
+    }
+
+    public int customers() {
+        return customers;
+    }
+
+    public long transactions() {
+        return transactions;
+    }
+
+    public LocalDate firstDay() {
+        return firstDay;
+    }
+
+    public LocalDate lastDay() {
+        return lastDay;
+    }
+
+    /**
+     * A customer id drawn with the same skew as the transactions, so busy customers are also the
+     * ones asked about most.
+     */
+    public long sampleCustomer(Random random) {
+        return customerByRank[rank(random.nextDouble())];
+    }
+
+    /**
+     * The history as {@code customerId,amount,timestamp} lines with a header, the format of
+     * {@code POST /api/transactions/bulk}.
+     */
+    public InputStream csv() {
+        return new CsvStream();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d transactions of %,d customers from %s to %s", transactions, customers, firstDay, lastDay);
+    }
+
+    private int rank(double uniform) {
+        int rank = Arrays.binarySearch(cumulativeWeights, uniform);
+        return Math.min(rank >= 0 ? rank : -rank - 1, customers - 1);
+    }
+
+    private static double dayWeight(LocalDate date, double yearsFromStart) {
+        double season = switch (date.getMonth()) {
+            case NOVEMBER -> 1.3;
+            case DECEMBER -> 1.6;
+            case JANUARY -> 0.8;
+            default -> 1.0;
+        };
+        double weekday = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY ? 1.2 : 1.0;
+        return Math.pow(YEARLY_GROWTH, yearsFromStart) * season * weekday;
+    }
+
+    // Generates one day of lines at a time as they are read
+    private final class CsvStream extends InputStream {
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private byte[] buffer = "customerId,amount,timestamp\n".getBytes(StandardCharsets.US_ASCII);
+        private int position;
+        private int day;
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() {
+            while (position == buffer.length) {
+                if (day == dailyCounts.length) {
+                    return false;
+                }
+                buffer = nextDay();
+                position = 0;
+            }
+            return true;
+        }
+
+        private byte[] nextDay() {
+            LocalDateTime midnight = firstDay.plusDays(day).atStartOfDay();
+            int count = (int) dailyCounts[day++];
+            int[] seconds = new int[count];
+            for (int i = 0; i < count; i++) {
+                // 85% between 8:00 and 22:00, the rest at any time of day
+                seconds[i] = random.nextInt(100) < 85 ? 8 * 3600 + random.nextInt(14 * 3600) : random.nextInt(24 * 3600);
+            }
+            Arrays.sort(seconds);
+
+            StringBuilder lines = new StringBuilder(count * 40);
+            for (int second : seconds) {
+                long cents = Math.max(1, Math.min(MAX_AMOUNT_CENTS,
+                        Math.round(MEDIAN_AMOUNT_CENTS * Math.exp(AMOUNT_SIGMA * random.nextGaussian()))));
+                lines.append(customerByRank[rank(random.nextDouble())]).append(',')
+                        .append(cents / 100).append('.').append(cents % 100 < 10 ? "0" : "").append(cents % 100).append(',')
+                        .append(midnight.plusSeconds(second)).append('\n');
+            }
+            return lines.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
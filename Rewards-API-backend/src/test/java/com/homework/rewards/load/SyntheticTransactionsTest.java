@@ -0,0 +1,63 @@
+package com.homework.rewards.load;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyntheticTransactionsTest {
+
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 12, 31);
+
+    @Test
+    @DisplayName("The same settings produce the same rows, in timestamp order and within the history")
+    void csv_DeterministicAndOrdered() throws IOException {
+        SyntheticTransactions data = new SyntheticTransactions(500, 20_000, 2, 1.0, 7, LAST_DAY);
+        String csv = new String(data.csv().readAllBytes(), StandardCharsets.US_ASCII);
+
+        assertEquals(csv, new String(data.csv().readAllBytes(), StandardCharsets.US_ASCII));
+        assertNotEquals(csv, new String(new SyntheticTransactions(500, 20_000, 2, 1.0, 8, LAST_DAY).csv().readAllBytes(),
+                StandardCharsets.US_ASCII));
+
+        List<String> lines = csv.lines().toList();
+        assertEquals("customerId,amount,timestamp", lines.get(0));
+        assertEquals(20_001, lines.size());
+        LocalDateTime previous = data.firstDay().atStartOfDay();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            long customerId = Long.parseLong(fields[0]);
+            assertTrue(customerId >= 1 && customerId <= 500, line);
+            assertTrue(Double.parseDouble(fields[1]) > 0, line);
+            LocalDateTime timestamp = LocalDateTime.parse(fields[2]);
+            assertFalse(timestamp.isBefore(previous), line);
+            previous = timestamp;
+        }
+        assertFalse(previous.toLocalDate().isAfter(LAST_DAY));
+    }
+
+    @Test
+    @DisplayName("Activity is skewed towards a few customers, and volume grows from year to year")
+    void csv_SkewedAndGrowing() throws IOException {
+        SyntheticTransactions data = new SyntheticTransactions(1_000, 50_000, 3, 1.0, 42, LAST_DAY);
+        long[] perCustomer = new long[1_001];
+        long[] perYear = new long[3];
+        new String(data.csv().readAllBytes(), StandardCharsets.US_ASCII).lines().skip(1).forEach(line -> {
+            String[] fields = line.split(",");
+            perCustomer[Integer.parseInt(fields[0])]++;
+            perYear[LocalDateTime.parse(fields[2]).getYear() - 2023]++;
+        });
+
+        long[] sorted = perCustomer.clone();
+        Arrays.sort(sorted);
+        // With exponent 1 and 1,000 customers the busiest has about 13% of the transactions, the median one 0.03%
+        assertTrue(sorted[sorted.length - 1] > 50 * sorted[sorted.length / 2]);
+        assertTrue(perYear[0] < perYear[1] && perYear[1] < perYear[2]);
+    }
+}
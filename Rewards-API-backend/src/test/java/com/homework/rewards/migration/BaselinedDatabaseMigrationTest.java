@@ -0,0 +1,48 @@
+package com.homework.rewards.migration;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.service.RewardPointsTable;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BaselinedDatabaseMigrationTest {
+
+    @Test
+    @DisplayName("A database created by ddl-auto before the ledger is baselined at V1 and migrated to the current schema")
+    void migrate_PreLedgerDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The tables the application created before it used Flyway
+        jdbcTemplate.execute("""
+                CREATE TABLE customer (id BIGINT NOT NULL AUTO_INCREMENT, name VARCHAR(255), email VARCHAR(255), PRIMARY KEY (id));
+                CREATE TABLE transaction (id BIGINT NOT NULL AUTO_INCREMENT, customer_id BIGINT, amount DOUBLE,
+                    timestamp DATETIME(6), PRIMARY KEY (id));
+                INSERT INTO transaction (customer_id, amount, timestamp) VALUES (1, 120.0, '2023-01-10 10:00:00');
+                """);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .javaMigrations(new V3_1__RebuildRoundedLedgerMonths(
+                        new RewardPointsTable(new RewardProperties().getPoints().getTiers())))
+                .load()
+                .migrate();
+
+        assertEquals(12_000L, jdbcTemplate.queryForObject("SELECT amount_cents FROM transaction", Long.class));
+        jdbcTemplate.update("""
+                INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count)
+                VALUES (1, 2023, 1, 90, 1)
+                """);
+        assertEquals(90L, jdbcTemplate.queryForObject("SELECT points FROM monthly_reward_summary", Long.class));
+    }
+}
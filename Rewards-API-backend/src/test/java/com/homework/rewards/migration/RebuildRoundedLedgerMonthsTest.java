@@ -0,0 +1,61 @@
+package com.homework.rewards.migration;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.service.RewardPointsTable;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RebuildRoundedLedgerMonthsTest {
+
+    @Test
+    @DisplayName("V3 and V3.1 recompute the ledger months whose amounts were rounded to cents, and only those")
+    void migrate_RebuildsRoundedMonths() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        flyway(dataSource, "2.1").migrate();
+
+        jdbcTemplate.update("""
+                INSERT INTO transaction (customer_id, amount, timestamp) VALUES
+                (1, 120.004, '2023-01-10 10:00:00'), (1, 75.0, '2023-01-20 10:00:00'),
+                (2, 120.07, '2023-02-10 10:00:00'),
+                (3, 99.995, '2023-03-10 10:00:00')
+                """);
+        // Customer 1's January was scored from the unrounded amount, customer 3 was never backfilled
+        jdbcTemplate.update("""
+                INSERT INTO monthly_reward_summary (customer_id, period_year, period_month, points, transaction_count) VALUES
+                (1, 2023, 1, 114, 2), (2, 2023, 2, 777, 1)
+                """);
+
+        flyway(dataSource, "3.1").migrate();
+
+        List<Map<String, Object>> months = jdbcTemplate.queryForList(
+                "SELECT customer_id, points, transaction_count FROM monthly_reward_summary ORDER BY customer_id");
+        assertEquals(2, months.size());
+        assertEquals(115L, ((Number) months.get(0).get("points")).longValue());
+        assertEquals(2L, ((Number) months.get(0).get("transaction_count")).longValue());
+        // Whole-cent amounts keep their ledger rows as they were
+        assertEquals(777L, ((Number) months.get(1).get("points")).longValue());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'ledger_rebuild_month'", Integer.class));
+    }
+
+    private static Flyway flyway(DriverManagerDataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .javaMigrations(new V3_1__RebuildRoundedLedgerMonths(
+                        new RewardPointsTable(new RewardProperties().getPoints().getTiers())))
+                .target(target)
+                .load();
+    }
+}
@@ -0,0 +1,32 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The application no longer validates its mappings on startup; this context does, against the
+ * schema built by the Flyway migrations, and fails to start if they disagree.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@EnableConfigurationProperties(RewardProperties.class)
+@Import(RewardPointsConfig.class)
+class SchemaValidationTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Entity mappings match the schema built by the migrations")
+    void mappings_MatchMigratedSchema() {
+        assertFalse(entityManagerFactory.getMetamodel().getEntities().isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+package com.homework.rewards.repository;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations against H2 in MySQL compatibility mode and checks that the
+ * customer/date-range lookups are planned on the composite index. The statements explained are
+ * the ones the repository sends, captured from the DataSource with their parameters.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:index-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, TransactionIndexTest.StatementCapture.class})
+public class TransactionIndexTest {
+
+    private static final String INDEX = "idx_transaction_customer_timestamp";
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 3, 31, 23, 59, 59);
+    private static final List<CapturedStatement> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Customer and date-range lookup uses the composite index")
+    void findByCustomerIdAndTimestampBetween_UsesCompositeIndex() {
+        assertUsesIndex(() -> transactionRepository.findByCustomerIdAndTimestampBetween(1L, START, END));
+    }
+
+    @Test
+    @DisplayName("Monthly points aggregation uses the composite index")
+    void sumMonthlyPoints_UsesCompositeIndex() {
+        assertUsesIndex(() -> transactionRepository.sumMonthlyPoints(1L, START, END));
+    }
+
+    @Test
+    @DisplayName("Monthly points aggregation for several customers uses the composite index")
+    void sumMonthlyPointsByCustomer_UsesCompositeIndex() {
+        assertUsesIndex(() -> transactionRepository.sumMonthlyPointsByCustomer(List.of(1L, 2L, 3L), START, END));
+    }
+
+    @Test
+    @DisplayName("Keyset pages and the transaction stream use the composite index")
+    void transactionPages_UseCompositeIndex() {
+        assertUsesIndex(() -> transactionRepository.findByCustomerIdAndTimestampBetweenOrderByTimestampAscIdAsc(
+                1L, START, END, PageRequest.of(0, 100)));
+        assertUsesIndex(() -> transactionRepository.findPageAfter(1L, START, END, START.plusDays(3), 42L, PageRequest.of(0, 100)));
+        assertUsesIndex(() -> {
+            try (Stream<?> rows = transactionRepository.streamByCustomerIdAndTimestampBetweenOrderByTimestampAscIdAsc(1L, START, END)) {
+                rows.count();
+            }
+        });
+    }
+
+    // Runs the repository call, then explains every SELECT it issued with the same parameters
+    private void assertUsesIndex(Runnable repositoryCall) {
+        STATEMENTS.clear();
+        repositoryCall.run();
+        List<CapturedStatement> selects = STATEMENTS.stream()
+                .filter(statement -> statement.sql().stripLeading().toLowerCase().startsWith("select"))
+                .toList();
+        STATEMENTS.clear();
+
+        assertFalse(selects.isEmpty(), "No query was issued");
+        for (CapturedStatement select : selects) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + select.sql(), String.class, select.parameters().toArray())
+                    .toLowerCase();
+            assertTrue(plan.contains(INDEX), select.sql() + "\n" + plan);
+        }
+    }
+
+    private record CapturedStatement(String sql, List<Object> parameters) {
+    }
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        // Wraps the DataSource like the slow query log does, recording each statement as executed
+        @Bean
+        static BeanPostProcessor statementCapturingDataSource() {
+            QueryExecutionListener listener = new QueryExecutionListener() {
+                @Override
+                public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                }
+
+                @Override
+                public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                    for (QueryInfo query : queryInfoList) {
+                        List<Object> parameters = new ArrayList<>();
+                        if (!query.getParametersList().isEmpty()) {
+                            query.getParametersList().get(0).stream()
+                                    .sorted(Comparator.comparing(operation -> (Integer) operation.getArgs()[0]))
+                                    .map(ParameterSetOperation::getArgs)
+                                    .forEach(args -> parameters.add(args[1]));
+                        }
+                        STATEMENTS.add(new CapturedStatement(query.getQuery(), parameters));
+                    }
+                }
+            };
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? ProxyDataSourceBuilder.create(beanName, dataSource).listener(listener).build()
+                            : bean;
+                }
+            };
+        }
+    }
+}
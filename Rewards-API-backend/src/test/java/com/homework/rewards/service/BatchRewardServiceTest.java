@@ -0,0 +1,100 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.config.ClockConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, RewardService.class, RewardLedgerService.class, ArchivedMonths.class, RewardMetrics.class,
+        SimpleMeterRegistry.class, CustomerCacheVersions.class, ClockConfig.class})
+public class BatchRewardServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private RewardMetrics rewardMetrics;
+
+    @Autowired
+    private ArchivedMonths archivedMonths;
+
+    private BatchRewardService batchRewardService;
+
+    @BeforeEach
+    void setUp() {
+        RewardProperties properties = new RewardProperties();
+        properties.getBatch().setChunkSize(2);
+        batchRewardService = new BatchRewardService(transactionRepository, properties, rewardMetrics, archivedMonths);
+    }
+
+    @Test
+    @DisplayName("Batch summaries match single-customer summaries across chunks")
+    void streamRewardSummaries_MatchesSingleCustomerSummaries() {
+        Random random = new Random(7);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            transactions.add(new Transaction(null, 1L + random.nextInt(5), (long) random.nextInt(25_001),
+                    START.plusMinutes(random.nextInt(365 * 24 * 60))));
+        }
+        transactionRepository.saveAll(transactions);
+
+        List<RewardResponse> responses = new ArrayList<>();
+        batchRewardService.streamRewardSummaries(List.of(5L, 3L, 1L, 3L, 2L, 4L), START, END, responses::add);
+
+        assertEquals(List.of(5L, 3L, 1L, 2L, 4L), responses.stream().map(RewardResponse::getCustomerId).toList());
+        for (RewardResponse response : responses) {
+            RewardResponse expected = rewardService.calculateRewardSummary(response.getCustomerId(), START, END);
+            assertEquals(expected.getMonthlyPoints(), response.getMonthlyPoints());
+            assertEquals(expected.getTotalPoints(), response.getTotalPoints());
+        }
+    }
+
+    @Test
+    @DisplayName("Customers without transactions get an empty summary")
+    void streamRewardSummaries_NoTransactions_EmptySummary() {
+        transactionRepository.save(new Transaction(null, 1L, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0)));
+
+        List<RewardResponse> responses = new ArrayList<>();
+        batchRewardService.streamRewardSummaries(List.of(1L, 9L), START, END, responses::add);
+
+        assertEquals(90, responses.get(0).getTotalPoints());
+        assertEquals(9L, responses.get(1).getCustomerId());
+        assertTrue(responses.get(1).getMonthlyPoints().isEmpty());
+        assertEquals(0, responses.get(1).getTotalPoints());
+    }
+
+    @Test
+    @DisplayName("Throw RewardCalculationException when customer IDs are missing")
+    void validate_EmptyCustomerIds_ThrowsException() {
+        assertThrows(RewardCalculationException.class, () -> batchRewardService.validate(List.of(), START, END));
+        assertThrows(RewardCalculationException.class, () -> batchRewardService.validate(null, START, END));
+    }
+}
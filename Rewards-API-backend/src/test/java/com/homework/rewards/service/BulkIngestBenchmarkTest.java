@@ -0,0 +1,94 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.repository.MonthlyRewardSummaryRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk ingest throughput, run with {@code ./gradlew benchmarkTest}. Uses in-memory H2 unless
+ * pointed at a real database, e.g.
+ * {@code -Dbenchmark.datasource.url=jdbc:mysql://localhost:3306/rewards?rewriteBatchedStatements=true
+ * -Dbenchmark.datasource.driver=com.mysql.cj.jdbc.Driver -Dbenchmark.datasource.username=root
+ * -Dbenchmark.datasource.password=root}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.datasource.url=${benchmark.datasource.url:jdbc:h2:mem:ingest-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE}",
+        "spring.datasource.driverClassName=${benchmark.datasource.driver:org.h2.Driver}",
+        "spring.datasource.username=${benchmark.datasource.username:sa}",
+        "spring.datasource.password=${benchmark.datasource.password:}",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnableConfigurationProperties(RewardProperties.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({RewardPointsConfig.class, BulkIngestService.class, RewardLedgerService.class, ArchivedMonths.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BulkIngestBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int CUSTOMERS = 10_000;
+
+    @Autowired
+    private BulkIngestService bulkIngestService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardSummaryRepository summaryRepository;
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void ingestCsv_Throughput() {
+        // Warm up the JIT and connection pool before the measured run
+        bulkIngestService.ingestCsv(new ByteArrayInputStream(csv(50_000, 1)));
+        tearDown();
+
+        byte[] body = csv(ROWS, 2);
+        IngestResult result = bulkIngestService.ingestCsv(new ByteArrayInputStream(body));
+
+        System.out.printf("Bulk ingest: %d rows, %d chunks, %d ms, %d rows/s%n",
+                result.getRows(), result.getChunks(), result.getElapsedMillis(), result.getRowsPerSecond());
+        assertEquals(ROWS, result.getRows());
+        assertEquals(ROWS, transactionRepository.count());
+    }
+
+    private static byte[] csv(int rows, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        StringBuilder csv = new StringBuilder(rows * 40).append("customerId,amount,timestamp\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(1 + random.nextInt(CUSTOMERS)).append(',')
+                    .append(random.nextInt(25_000) / 100.0).append(',')
+                    .append(start.plusSeconds(random.nextInt(365 * 24 * 3600))).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,293 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.IngestResult;
+import com.homework.rewards.entity.MonthlyRewardSummary;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.event.TransactionsRecordedEvent;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.BulkIngestException;
+import com.homework.rewards.exception.InvalidTransactionException;
+import com.homework.rewards.repository.MonthlyRewardSummaryRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction because every chunk commits on its own.
+ */
+@DataJpaTest(properties = {"rewards.ingest.chunk-size=3", "rewards.ingest.jdbc-batch-size=2"})
+@EnableConfigurationProperties(RewardProperties.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({RewardPointsConfig.class, BulkIngestService.class, RewardLedgerService.class, ArchivedMonths.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+public class BulkIngestServiceTest {
+
+    private static final String CORRECTED_UPLOAD = """
+            customerId,amount,timestamp
+            1,10.0,2023-01-01T00:00:00
+            1,20.0,2023-01-02T00:00:00
+            1,30.0,2023-01-03T00:00:00
+            1,40.0,2023-01-04T00:00:00
+            1,50.0,2023-01-05T00:00:00
+            """;
+
+    @Autowired
+    private BulkIngestService bulkIngestService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardSummaryRepository summaryRepository;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ArchivedMonths archivedMonths;
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM ingest_upload");
+        jdbcTemplate.update("DELETE FROM archived_month");
+        archivedMonths.refresh();
+    }
+
+    @Test
+    @DisplayName("CSV upload is written in chunks and counted in the ledger")
+    void ingestCsv_WritesChunksAndLedger() {
+        IngestResult result = bulkIngestService.ingestCsv(body("""
+                customerId,amount,timestamp
+                1,120.0,2023-01-15T10:00:00
+                1,80.0,2023-01-20T10:00:00
+
+                1,45.5,2023-02-01T00:00:00
+                2,200.0,2023-02-10T12:30:00.123456
+                """));
+
+        assertEquals(4, result.getRows());
+        assertEquals(2, result.getChunks());
+
+        List<Transaction> saved = transactionRepository.findAll();
+        assertEquals(4, saved.size());
+        assertTrue(saved.stream().anyMatch(t -> t.getTimestamp().equals(LocalDateTime.of(2023, 2, 10, 12, 30, 0, 123_456_000))));
+
+        List<MonthlyRewardSummary> months = summaryRepository.findAll().stream()
+                .sorted(Comparator.comparing(MonthlyRewardSummary::getCustomerId)
+                        .thenComparing(MonthlyRewardSummary::getPeriodMonth))
+                .toList();
+        assertEquals(3, months.size());
+        assertEquals(120L, months.get(0).getPoints());
+        assertEquals(2L, months.get(0).getTransactionCount());
+        assertEquals(0L, months.get(1).getPoints());
+        assertEquals(250L, months.get(2).getPoints());
+    }
+
+    @Test
+    @DisplayName("Only the exact header is skipped; any other first line is read as a row")
+    void ingestCsv_FirstLineHeaderOrRow() {
+        IngestResult result = bulkIngestService.ingestCsv(body("""
+                +1,120.0,2023-01-15T10:00:00
+                2,80.0,2023-01-20T10:00:00
+                """));
+        assertEquals(2, result.getRows());
+        assertEquals(2, result.getCommittedLines());
+
+        BulkIngestException exception = assertThrows(BulkIngestException.class, () -> bulkIngestService.ingestCsv(body("""
+                customer,amount,time
+                1,120.0,2023-01-15T10:00:00
+                """)));
+        assertTrue(exception.getMessage().startsWith("Line 1:"), exception.getMessage());
+        assertEquals(2, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("NDJSON upload accepts the single transaction JSON shape")
+    void ingestNdjson_WritesRows() {
+        IngestResult result = bulkIngestService.ingestNdjson(body("""
+                {"customerId":7,"amount":120.0,"timestamp":"2023-01-15T10:00:00"}
+                {"id":99,"customerId":7,"amount":60.0,"timestamp":"2023-01-16T10:00:00"}
+                """));
+
+        assertEquals(2, result.getRows());
+        assertEquals(1, result.getChunks());
+        assertEquals(2, transactionRepository.count());
+        assertEquals(100L, summaryRepository.findAll().get(0).getPoints());
+    }
+
+    @Test
+    @DisplayName("Published transactions carry their generated ids")
+    void ingestCsv_PublishesGeneratedIds() {
+        bulkIngestService.ingestCsv(body("""
+                1,10.0,2023-01-01T00:00:00
+                1,20.0,2023-01-02T00:00:00
+                2,30.0,2023-01-03T00:00:00
+                2,40.0,2023-01-04T00:00:00
+                """));
+
+        List<Long> published = applicationEvents.stream(TransactionsRecordedEvent.class)
+                .flatMap(event -> event.transactions().stream())
+                .map(Transaction::getId)
+                .sorted()
+                .toList();
+        List<Long> stored = transactionRepository.findAll().stream().map(Transaction::getId).sorted().toList();
+        assertEquals(stored, published);
+    }
+
+    @Test
+    @DisplayName("A bad row fails the upload but keeps the chunks committed before it")
+    void ingestCsv_InvalidRow() {
+        BulkIngestException exception = assertThrows(BulkIngestException.class,
+                () -> bulkIngestService.ingestCsv(body("""
+                        1,10.0,2023-01-01T00:00:00
+                        1,20.0,2023-01-02T00:00:00
+                        1,30.0,2023-01-03T00:00:00
+                        1,40.0,2023-01-04T00:00:00
+                        1,-5.0,2023-01-05T00:00:00
+                        """)));
+
+        assertInstanceOf(InvalidTransactionException.class, exception.getCause());
+        assertEquals("Line 5: Amount must not be negative.", exception.getMessage());
+        assertEquals(3, exception.getCommittedLines());
+        assertEquals(3, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("A row dated in an archived month fails the upload like a bad row")
+    void ingestCsv_ArchivedMonthRow() {
+        jdbcTemplate.update("INSERT INTO archived_month (period_year, period_month, marked_at) VALUES (2022, 12, ?)",
+                LocalDateTime.of(2023, 1, 1, 0, 0));
+        archivedMonths.refresh();
+
+        BulkIngestException exception = assertThrows(BulkIngestException.class,
+                () -> bulkIngestService.ingestCsv(body("""
+                        1,10.0,2023-01-01T00:00:00
+                        1,20.0,2023-01-02T00:00:00
+                        1,30.0,2023-01-03T00:00:00
+                        1,40.0,2022-12-31T23:00:00
+                        """)));
+
+        assertInstanceOf(ArchivedPeriodException.class, exception.getCause());
+        assertTrue(exception.getMessage().startsWith("Line 4: Transactions up to 2022-12 have been archived"));
+        assertEquals(3, exception.getCommittedLines());
+        assertEquals(3, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("Resuming after the committed lines writes only the rest of the upload")
+    void ingestCsv_ResumeAfterLine() {
+        IngestResult result = bulkIngestService.ingestCsv(body(CORRECTED_UPLOAD), null, 4);
+
+        assertEquals(2, result.getRows());
+        assertEquals(6, result.getCommittedLines());
+        assertEquals(List.of(4000L, 5000L), transactionRepository.findAll().stream()
+                .map(Transaction::getAmountCents).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("A retry with the same upload key skips what the failed attempt committed")
+    void ingestCsv_RetryWithUploadKey() {
+        BulkIngestException failure = assertThrows(BulkIngestException.class, () -> bulkIngestService.ingestCsv(body("""
+                customerId,amount,timestamp
+                1,10.0,2023-01-01T00:00:00
+                1,20.0,2023-01-02T00:00:00
+                1,-30.0,2023-01-03T00:00:00
+                """), "upload-1", 0));
+        assertEquals(0, failure.getCommittedLines());
+
+        BulkIngestException second = assertThrows(BulkIngestException.class, () -> bulkIngestService.ingestCsv(body("""
+                customerId,amount,timestamp
+                1,10.0,2023-01-01T00:00:00
+                1,20.0,2023-01-02T00:00:00
+                1,30.0,2023-01-03T00:00:00
+                1,-40.0,2023-01-04T00:00:00
+                """), "upload-1", 0));
+        assertEquals(4, second.getCommittedLines());
+
+        IngestResult result = bulkIngestService.ingestCsv(body(CORRECTED_UPLOAD), "upload-1", 0);
+        assertEquals(2, result.getRows());
+        assertEquals(6, result.getCommittedLines());
+
+        IngestResult repeated = bulkIngestService.ingestCsv(body(CORRECTED_UPLOAD), "upload-1", 0);
+        assertEquals(0, repeated.getRows());
+        assertEquals(5, transactionRepository.count());
+        assertEquals(5L, summaryRepository.findAll().get(0).getTransactionCount());
+    }
+
+    @Test
+    @DisplayName("Two requests cannot advance the same upload key")
+    void ingestCsv_ConcurrentUploadKey() {
+        InputStream racing = new SequenceInputStream(new InputStream() {
+            @Override
+            public int read() {
+                // Another request commits a chunk after this one has read the key's progress
+                jdbcTemplate.update("UPDATE ingest_upload SET committed_lines = 3 WHERE upload_key = 'upload-2'");
+                return -1;
+            }
+        }, body(CORRECTED_UPLOAD));
+
+        BulkIngestException exception = assertThrows(BulkIngestException.class,
+                () -> bulkIngestService.ingestCsv(racing, "upload-2", 0));
+
+        assertInstanceOf(OptimisticLockingFailureException.class, exception.getCause());
+        assertEquals(0, exception.getCommittedLines());
+        assertEquals(0, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("Malformed NDJSON reports its line")
+    void ingestNdjson_Malformed() {
+        BulkIngestException exception = assertThrows(BulkIngestException.class,
+                () -> bulkIngestService.ingestNdjson(body("""
+                        {"customerId":7,"amount":120.0,"timestamp":"2023-01-15T10:00:00"}
+                        {"customerId":7,"amount":"lots","timestamp":"2023-01-16T10:00:00"}
+                        """)));
+
+        assertTrue(exception.getMessage().startsWith("Line 2:"), exception.getMessage());
+        assertEquals(0, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("CSV lines need exactly three fields and a whole-cent amount")
+    void parseCsvLine_WrongFieldCount() {
+        assertThrows(InvalidTransactionException.class, () -> BulkIngestService.parseCsvLine("1,120.0", 1));
+        assertThrows(InvalidTransactionException.class, () -> BulkIngestService.parseCsvLine("1,120.0,2023-01-15T10:00:00,x", 1));
+        assertThrows(InvalidTransactionException.class, () -> BulkIngestService.parseCsvLine("x,120.0,2023-01-15T10:00:00", 1));
+        assertThrows(InvalidTransactionException.class, () -> BulkIngestService.parseCsvLine("1,120.005,2023-01-15T10:00:00", 1));
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
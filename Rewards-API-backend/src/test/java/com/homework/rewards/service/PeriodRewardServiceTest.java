@@ -0,0 +1,131 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.config.ClockConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.PeriodPoints;
+import com.homework.rewards.dto.PeriodRewardResponse;
+import com.homework.rewards.dto.RewardPeriod;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, RewardService.class, RewardLedgerService.class, ArchivedMonths.class, RewardMetrics.class,
+        SimpleMeterRegistry.class, CustomerCacheVersions.class, ClockConfig.class})
+public class PeriodRewardServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RewardPointsTable rewardPointsTable;
+
+    @Autowired
+    private RewardMetrics rewardMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArchivedMonths archivedMonths;
+
+    private PeriodRewardService periodRewardService;
+
+    @BeforeEach
+    void setUp() {
+        RewardProperties properties = new RewardProperties();
+        properties.getPeriods().setMaxCustomers(5);
+        periodRewardService = new PeriodRewardService(jdbcTemplate, rewardPointsTable, properties, rewardMetrics, transactionManager,
+                archivedMonths);
+    }
+
+    @Test
+    @DisplayName("Each month and year to date match the single-period summaries")
+    void calculatePeriodRewards_MatchesSummaries() {
+        Random random = new Random(3);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            transactions.add(new Transaction(null, 1L + random.nextInt(3), (long) random.nextInt(25_001),
+                    START.plusMinutes(random.nextInt(365 * 24 * 60))));
+        }
+        transactionRepository.saveAll(transactions);
+
+        List<RewardPeriod> periods = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            YearMonth yearMonth = YearMonth.of(2023, month);
+            periods.add(new RewardPeriod(yearMonth.toString(), yearMonth.atDay(1).atStartOfDay(),
+                    RewardLedgerService.endOfMonth(yearMonth)));
+        }
+        periods.add(new RewardPeriod("YTD", START, LocalDateTime.of(2023, 9, 30, 23, 59, 59)));
+
+        List<PeriodRewardResponse> responses = periodRewardService.calculatePeriodRewards(List.of(3L, 1L, 2L, 1L), periods);
+
+        assertEquals(List.of(3L, 1L, 2L), responses.stream().map(PeriodRewardResponse::getCustomerId).toList());
+        for (PeriodRewardResponse response : responses) {
+            for (int i = 0; i < periods.size(); i++) {
+                RewardPeriod period = periods.get(i);
+                PeriodPoints points = response.getPeriods().get(i);
+                assertEquals(period.getLabel(), points.getLabel());
+                assertEquals(rewardService.calculateRewardSummary(response.getCustomerId(), period.getStartDate(),
+                        period.getEndDate()).getTotalPoints(), points.getPoints(), period.getLabel());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Customers without transactions get zero points")
+    void calculatePeriodRewards_NoTransactions_Zero() {
+        transactionRepository.save(new Transaction(null, 1L, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0)));
+
+        List<PeriodRewardResponse> responses = periodRewardService.calculatePeriodRewards(List.of(1L, 9L),
+                List.of(new RewardPeriod(null, START, LocalDateTime.of(2023, 1, 31, 23, 59, 59))));
+
+        assertEquals(90, responses.get(0).getPeriods().get(0).getPoints());
+        assertEquals(0, responses.get(1).getPeriods().get(0).getPoints());
+        assertEquals(0, responses.get(1).getPeriods().get(0).getTransactionCount());
+    }
+
+    @Test
+    @DisplayName("Throw RewardCalculationException for missing periods, bad dates or too many customers")
+    void calculatePeriodRewards_InvalidInput_ThrowsException() {
+        RewardPeriod january = new RewardPeriod(null, START, LocalDateTime.of(2023, 1, 31, 23, 59, 59));
+
+        assertThrows(RewardCalculationException.class, () -> periodRewardService.calculatePeriodRewards(List.of(1L), List.of()));
+        assertThrows(RewardCalculationException.class, () -> periodRewardService.calculatePeriodRewards(List.of(), List.of(january)));
+        assertThrows(RewardCalculationException.class, () -> periodRewardService.calculatePeriodRewards(List.of(1L),
+                List.of(new RewardPeriod(null, START, START.minusDays(1)))));
+        RewardCalculationException tooMany = assertThrows(RewardCalculationException.class,
+                () -> periodRewardService.calculatePeriodRewards(List.of(1L, 2L, 3L, 4L, 5L, 6L), List.of(january)));
+        assertTrue(tooMany.getMessage().startsWith("Invalid input"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.PeriodPoints;
+import com.homework.rewards.dto.RewardPeriod;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PeriodSweepTest {
+
+    private final RewardPointsTable pointsTable = new RewardPointsTable(new RewardProperties().getPoints().getTiers());
+
+    @Test
+    @DisplayName("A transaction counts in every period containing it, and period ends are inclusive")
+    void add_AssignsToOverlappingPeriods() {
+        PeriodSweep sweep = new PeriodSweep(List.of(
+                period("January", "2023-01-01T00:00:00", "2023-01-31T23:59:59"),
+                period("February", "2023-02-01T00:00:00", "2023-02-28T23:59:59"),
+                period("YTD", "2023-01-01T00:00:00", "2023-12-31T23:59:59")), pointsTable);
+
+        sweep.add(1L, LocalDateTime.parse("2023-01-01T00:00:00"), 12_000L);
+        sweep.add(1L, LocalDateTime.parse("2023-01-31T23:59:59"), 7_550L);
+        sweep.add(1L, LocalDateTime.parse("2023-02-01T00:00:00"), 2_000L);
+        sweep.add(1L, LocalDateTime.parse("2023-06-15T12:00:00"), 12_000L);
+
+        List<PeriodPoints> points = sweep.periodPoints(1L);
+        assertEquals(List.of(115, 0, 205), points.stream().map(PeriodPoints::getPoints).toList());
+        assertEquals(List.of(2L, 1L, 4L), points.stream().map(PeriodPoints::getTransactionCount).toList());
+        assertEquals("YTD", points.get(2).getLabel());
+        assertEquals(4, sweep.transactionCount());
+    }
+
+    @Test
+    @DisplayName("Customers are kept apart, and a customer without transactions gets zeros")
+    void periodPoints_PerCustomer() {
+        PeriodSweep sweep = new PeriodSweep(List.of(period(null, "2023-01-01T00:00:00", "2023-01-31T23:59:59")), pointsTable);
+        sweep.add(1L, LocalDateTime.parse("2023-01-10T00:00:00"), 12_000L);
+        sweep.add(2L, LocalDateTime.parse("2023-01-10T00:00:00"), 7_550L);
+        // Outside every period
+        sweep.add(2L, LocalDateTime.parse("2023-02-10T00:00:00"), 7_550L);
+
+        assertEquals(90, sweep.periodPoints(1L).get(0).getPoints());
+        assertEquals(25, sweep.periodPoints(2L).get(0).getPoints());
+        assertEquals(1, sweep.periodPoints(2L).get(0).getTransactionCount());
+        assertEquals(0, sweep.periodPoints(3L).get(0).getTransactionCount());
+        assertEquals(LocalDateTime.parse("2023-01-31T23:59:59"), sweep.endDate());
+    }
+
+    @Test
+    @DisplayName("Random periods and unordered transactions match a per-period count")
+    void add_MatchesBruteForce() {
+        Random random = new Random(11);
+        LocalDateTime origin = LocalDateTime.of(2023, 1, 1, 0, 0);
+        List<RewardPeriod> periods = random.ints(30, 0, 365 * 24).mapToObj(startHour -> {
+            LocalDateTime start = origin.plusHours(startHour);
+            return new RewardPeriod(null, start, start.plusHours(random.nextInt(60 * 24)));
+        }).toList();
+        PeriodSweep sweep = new PeriodSweep(periods, pointsTable);
+
+        long[] expectedPoints = new long[periods.size()];
+        long[] expectedCounts = new long[periods.size()];
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime timestamp = origin.plusMinutes(random.nextInt(400 * 24 * 60));
+            long amountCents = random.nextInt(25_001);
+            sweep.add(1L, timestamp, amountCents);
+            for (int p = 0; p < periods.size(); p++) {
+                if (!timestamp.isBefore(periods.get(p).getStartDate()) && !timestamp.isAfter(periods.get(p).getEndDate())) {
+                    expectedPoints[p] += pointsTable.points(amountCents);
+                    expectedCounts[p]++;
+                }
+            }
+        }
+
+        List<PeriodPoints> points = sweep.periodPoints(1L);
+        for (int p = 0; p < periods.size(); p++) {
+            assertEquals(expectedPoints[p], points.get(p).getPoints(), "points of period " + p);
+            assertEquals(expectedCounts[p], points.get(p).getTransactionCount(), "transactions of period " + p);
+        }
+    }
+
+    @Test
+    @DisplayName("Periods ending before they start are rejected")
+    void constructor_RejectsInvertedPeriod() {
+        assertThrows(IllegalArgumentException.class, () -> new PeriodSweep(
+                List.of(period(null, "2023-02-01T00:00:00", "2023-01-01T00:00:00")), pointsTable));
+    }
+
+    private static RewardPeriod period(String label, String start, String end) {
+        return new RewardPeriod(label, LocalDateTime.parse(start), LocalDateTime.parse(end));
+    }
+}
@@ -0,0 +1,42 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.entity.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RewardAggregatorTest {
+
+    private final RewardPointsTable pointsTable = new RewardPointsTable(new RewardProperties().getPoints().getTiers());
+
+    @Test
+    @DisplayName("Same month of different years shares a bucket and months without points are kept")
+    void ofTransactions_MergesMonthsByName() {
+        RewardAggregator aggregator = RewardAggregator.ofTransactions(pointsTable, List.of(
+                new Transaction(1L, 1L, 12_000L, LocalDateTime.of(2022, 1, 10, 0, 0)),
+                new Transaction(2L, 1L, 7_550L, LocalDateTime.of(2023, 1, 10, 0, 0)),
+                new Transaction(3L, 1L, 2_000L, LocalDateTime.of(2023, 2, 10, 0, 0))));
+
+        assertEquals(Map.of("January", 115, "February", 0), aggregator.monthlyPoints());
+        assertEquals(115, aggregator.totalPoints());
+        assertEquals(3, aggregator.transactionCount());
+    }
+
+    @Test
+    @DisplayName("Pre-aggregated months add up with single transactions")
+    void addMonth_CombinesWithTransactions() {
+        RewardAggregator aggregator = new RewardAggregator();
+        aggregator.addMonth(3, 200, 4);
+        aggregator.add(3, 90);
+
+        assertEquals(Map.of("March", 290), aggregator.monthlyPoints());
+        assertEquals(290, aggregator.totalPoints());
+        assertEquals(5, aggregator.transactionCount());
+    }
+}
@@ -0,0 +1,239 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.config.ClockConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.MonthlyRewardSummary;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.InvalidTransactionException;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.MonthlyRewardSummaryRepository;
+import com.homework.rewards.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction so ledger writes commit the way they do in production. The pool
+ * is smaller than the number of concurrent writers, so a write needing a second connection would
+ * time out.
+ */
+@DataJpaTest(properties = {"rewards.ledger.enabled=true", "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=2000"})
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, RewardService.class, RewardLedgerService.class, TransactionService.class,
+        ArchivedMonths.class, RewardMetrics.class, SimpleMeterRegistry.class, CustomerCacheVersions.class, ClockConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RewardLedgerServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Autowired
+    private RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MonthlyRewardSummaryRepository summaryRepository;
+
+    @Autowired
+    private ArchivedMonths archivedMonths;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        for (int i = 0; i < 120; i++) {
+            transactionService.record(new Transaction(null, 1L + random.nextInt(2), (long) random.nextInt(25_001),
+                    LocalDateTime.of(2023, 1, 1, 0, 0).plusMinutes(random.nextInt(365 * 24 * 60))));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM archived_month");
+        archivedMonths.refresh();
+    }
+
+    @Test
+    @DisplayName("Recording a transaction increments its month in the ledger")
+    void record_IncrementsLedgerMonth() {
+        transactionService.record(new Transaction(null, 9L, 12_000L, LocalDateTime.of(2023, 5, 1, 10, 0)));
+        transactionService.record(new Transaction(null, 9L, 8000L, LocalDateTime.of(2023, 5, 20, 10, 0)));
+
+        List<MonthlyRewardSummary> months = summaryRepository.findAll().stream()
+                .filter(s -> s.getCustomerId() == 9L).toList();
+        assertEquals(1, months.size());
+        assertEquals(120L, months.get(0).getPoints());
+        assertEquals(2L, months.get(0).getTransactionCount());
+    }
+
+    @Test
+    @DisplayName("Concurrent writers creating the same month all count, each on one connection")
+    void record_ConcurrentNewMonth_CountsEveryTransaction() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Transaction>> writes = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                writes.add(executor.submit(() -> transactionService.record(
+                        new Transaction(null, 10L, 12_000L, LocalDateTime.of(2024, 2, 1, 10, 0)))));
+            }
+            for (Future<Transaction> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MonthlyRewardSummary month = summaryRepository.findAll().stream()
+                .filter(s -> s.getCustomerId() == 10L).findFirst().orElseThrow();
+        assertEquals(80 * 90L, month.getPoints());
+        assertEquals(80L, month.getTransactionCount());
+    }
+
+    @Test
+    @DisplayName("Ledger-backed summaries match the full calculation for whole and partial months")
+    void summary_FromLedger_MatchesFullCalculation() {
+        for (long customerId = 1; customerId <= 2; customerId++) {
+            assertParity(customerId, LocalDateTime.of(2023, 1, 1, 0, 0), RewardLedgerService.endOfMonth(YearMonth.of(2023, 12)));
+            assertParity(customerId, LocalDateTime.of(2023, 3, 1, 0, 0), RewardLedgerService.endOfMonth(YearMonth.of(2023, 3)));
+            assertParity(customerId, LocalDateTime.of(2023, 2, 14, 9, 0), LocalDateTime.of(2023, 7, 3, 18, 30));
+            assertParity(customerId, LocalDateTime.of(2023, 6, 10, 0, 0), LocalDateTime.of(2023, 6, 20, 0, 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Rebuilding the ledger reproduces the incrementally maintained rows")
+    void rebuild_MatchesIncrementalLedger() {
+        Comparator<MonthlyRewardSummary> order = Comparator.comparing(MonthlyRewardSummary::getCustomerId)
+                .thenComparing(MonthlyRewardSummary::getPeriodYear)
+                .thenComparing(MonthlyRewardSummary::getPeriodMonth);
+        List<MonthlyRewardSummary> incremental = summaryRepository.findAll().stream().sorted(order).toList();
+
+        rewardLedgerService.rebuild();
+        List<MonthlyRewardSummary> rebuilt = summaryRepository.findAll().stream().sorted(order).toList();
+
+        assertEquals(incremental.size(), rebuilt.size());
+        for (int i = 0; i < incremental.size(); i++) {
+            assertEquals(incremental.get(i).getPoints(), rebuilt.get(i).getPoints());
+            assertEquals(incremental.get(i).getTransactionCount(), rebuilt.get(i).getTransactionCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Rebuilding one month restores its ledger rows and leaves other months alone")
+    void rebuildMonth_RestoresOnlyThatMonth() {
+        Comparator<MonthlyRewardSummary> order = Comparator.comparing(MonthlyRewardSummary::getCustomerId)
+                .thenComparing(MonthlyRewardSummary::getPeriodYear)
+                .thenComparing(MonthlyRewardSummary::getPeriodMonth);
+        List<MonthlyRewardSummary> incremental = summaryRepository.findAll().stream().sorted(order).toList();
+        summaryRepository.findAll().forEach(month -> {
+            month.setPoints(month.getPeriodMonth() == 4 ? -1L : month.getPoints());
+            summaryRepository.save(month);
+        });
+
+        rewardLedgerService.rebuildMonth(YearMonth.of(2023, 4));
+        List<MonthlyRewardSummary> rebuilt = summaryRepository.findAll().stream().sorted(order).toList();
+
+        assertEquals(incremental.size(), rebuilt.size());
+        for (int i = 0; i < incremental.size(); i++) {
+            assertEquals(incremental.get(i).getPoints(), rebuilt.get(i).getPoints());
+            assertEquals(incremental.get(i).getTransactionCount(), rebuilt.get(i).getTransactionCount());
+        }
+    }
+
+    @Test
+    @DisplayName("After months are archived, whole ones are read from the ledger, partial ones and their rows are refused")
+    void archivedMonths_LedgerOnly() {
+        LocalDateTime january = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime june = RewardLedgerService.endOfMonth(YearMonth.of(2023, 6));
+        RewardResponse before = rewardService.calculateRewardSummary(1L, january, june);
+
+        // What the partition job leaves behind after archiving January to March
+        jdbcTemplate.update("DELETE FROM transaction WHERE timestamp < ?", LocalDateTime.of(2023, 4, 1, 0, 0));
+        jdbcTemplate.update("INSERT INTO archived_month (period_year, period_month, marked_at) VALUES (2023, 3, ?)", january);
+        archivedMonths.refresh();
+        rewardLedgerService.rebuild();
+
+        RewardResponse after = rewardService.calculateRewardSummary(1L, january, june);
+        assertEquals(before.getMonthlyPoints(), after.getMonthlyPoints());
+        assertEquals(before.getTotalPoints(), after.getTotalPoints());
+        assertThrows(ArchivedPeriodException.class,
+                () -> rewardService.calculateRewardSummary(1L, LocalDateTime.of(2023, 3, 15, 0, 0), june));
+        assertThrows(ArchivedPeriodException.class,
+                () -> rewardService.calculateRewardSummary(1L, january, LocalDateTime.of(2023, 3, 15, 0, 0)));
+        assertThrows(ArchivedPeriodException.class, () -> rewardService.calculateRewards(1L, january, june));
+        assertParity(1L, LocalDateTime.of(2023, 4, 1, 0, 0), june);
+    }
+
+    @Test
+    @DisplayName("A transaction dated in an archived month is refused and stored nowhere")
+    void record_ArchivedMonth_Refused() {
+        jdbcTemplate.update("INSERT INTO archived_month (period_year, period_month, marked_at) VALUES (2023, 3, ?)",
+                LocalDateTime.of(2023, 1, 1, 0, 0));
+        archivedMonths.refresh();
+
+        assertThrows(ArchivedPeriodException.class, () ->
+                transactionService.record(new Transaction(null, 9L, 12_000L, LocalDateTime.of(2023, 3, 31, 23, 59))));
+        assertTrue(transactionRepository.findByCustomerIdAndTimestampBetween(9L,
+                LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 0, 0)).isEmpty());
+        assertTrue(summaryRepository.findAll().stream().noneMatch(s -> s.getCustomerId() == 9L));
+
+        transactionService.record(new Transaction(null, 9L, 12_000L, LocalDateTime.of(2023, 4, 1, 0, 0)));
+        assertEquals(1, transactionRepository.findByCustomerIdAndTimestampBetween(9L,
+                LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 0, 0)).size());
+    }
+
+    @Test
+    @DisplayName("Throw InvalidTransactionException when a required field is missing")
+    void record_MissingAmount_ThrowsException() {
+        assertThrows(InvalidTransactionException.class, () ->
+                transactionService.record(new Transaction(null, 1L, null, LocalDateTime.of(2023, 1, 1, 0, 0))));
+    }
+
+    private void assertParity(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate).isEmpty()) {
+            assertThrows(RewardCalculationException.class, () -> rewardService.calculateRewardSummary(customerId, startDate, endDate));
+            return;
+        }
+        RewardResponse expected = rewardService.calculateRewards(customerId, startDate, endDate);
+        RewardResponse actual = rewardService.calculateRewardSummary(customerId, startDate, endDate);
+
+        assertEquals(expected.getMonthlyPoints(), actual.getMonthlyPoints());
+        assertEquals(expected.getTotalPoints(), actual.getTotalPoints());
+    }
+}
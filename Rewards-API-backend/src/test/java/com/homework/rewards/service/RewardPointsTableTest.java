@@ -0,0 +1,105 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardProperties;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.LongRange;
+import net.jqwik.api.statistics.Statistics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests for the cent-based tier table against the original {@code Double} rule and an
+ * exact {@link BigDecimal} reference.
+ */
+public class RewardPointsTableTest {
+
+    private final RewardPointsTable defaults = new RewardPointsTable(new RewardProperties().getPoints().getTiers());
+
+    @Property
+    void matchesLegacyRuleWhereItWasExact(@ForAll @LongRange(max = 100_000_000) long amountCents) {
+        int legacy = legacyPoints(amountCents / 100.0);
+        boolean legacyExact = legacy == exactPoints(amountCents);
+        Statistics.collect(legacyExact ? "legacy exact" : "legacy inexact");
+
+        Assume.that(legacyExact);
+        assertEquals(legacy, defaults.points(amountCents));
+    }
+
+    @Property
+    void matchesExactDecimalRule(@ForAll @LongRange(max = 100_000_000) long amountCents) {
+        assertEquals(exactPoints(amountCents), defaults.points(amountCents));
+    }
+
+    @Property
+    void neverDecreasesAsAmountGrows(@ForAll @LongRange(max = 100_000_000) long amountCents,
+                                     @ForAll @LongRange(max = 10_000) long increase) {
+        assertTrue(defaults.points(amountCents + increase) >= defaults.points(amountCents));
+    }
+
+    @Example
+    void tierBoundaries() {
+        assertEquals(0, defaults.points(5_000));
+        assertEquals(0, defaults.points(5_099));
+        assertEquals(1, defaults.points(5_100));
+        assertEquals(50, defaults.points(10_000));
+        assertEquals(50, defaults.points(10_049));
+        assertEquals(51, defaults.points(10_050));
+        assertEquals(90, defaults.points(12_010));
+    }
+
+    @Example
+    void configuredTiersAreSortedAndMarginal() {
+        RewardPointsTable table = new RewardPointsTable(List.of(
+                new RewardProperties.Tier(new BigDecimal("500"), 3),
+                new RewardProperties.Tier(new BigDecimal("20.50"), 1)));
+
+        assertEquals(0, table.points(2_050));
+        assertEquals(479, table.points(50_000));
+        assertEquals(482, table.points(50_100));
+    }
+
+    @Example
+    void rejectsInvalidTiers() {
+        assertThrows(IllegalArgumentException.class, () -> new RewardPointsTable(List.of(
+                new RewardProperties.Tier(new BigDecimal("50.001"), 1))));
+        assertThrows(IllegalArgumentException.class, () -> new RewardPointsTable(List.of(
+                new RewardProperties.Tier(new BigDecimal("50"), 1), new RewardProperties.Tier(new BigDecimal("50.00"), 2))));
+        assertThrows(IllegalArgumentException.class, () -> new RewardPointsTable(List.of(
+                new RewardProperties.Tier(new BigDecimal("50"), -1))));
+    }
+
+    @Example
+    void sqlExpressionEncodesTheSameTable() {
+        assertEquals("FLOOR((CASE WHEN c > 10000 THEN 5000 + (c - 10000) * 2 WHEN c > 5000 THEN 0 + (c - 5000) * 1"
+                + " ELSE 0 END) / 100)", defaults.sqlPoints("c"));
+        assertEquals("0", new RewardPointsTable(List.of()).sqlPoints("c"));
+    }
+
+    // The rule as first written against Double amounts
+    private static int legacyPoints(double amount) {
+        int points = 0;
+        if (amount > 100) {
+            points += (amount - 100) * 2;
+            amount = 100;
+        }
+        if (amount > 50) {
+            points += (amount - 50);
+        }
+        return points;
+    }
+
+    private static int exactPoints(long amountCents) {
+        BigDecimal amount = BigDecimal.valueOf(amountCents, 2);
+        BigDecimal points = BigDecimal.ZERO;
+        if (amount.compareTo(BigDecimal.valueOf(100)) > 0) {
+            points = amount.subtract(BigDecimal.valueOf(100)).multiply(BigDecimal.valueOf(2)).add(BigDecimal.valueOf(50));
+        } else if (amount.compareTo(BigDecimal.valueOf(50)) > 0) {
+            points = amount.subtract(BigDecimal.valueOf(50));
+        }
+        return points.setScale(0, RoundingMode.FLOOR).intValueExact();
+    }
+}
@@ -1,15 +1,23 @@
 package com.homework.rewards.service;
 
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.cache.HotTransactionTier;
+import com.homework.rewards.config.RewardProperties;
 import com.homework.rewards.dto.RewardResponse;
 import com.homework.rewards.entity.Transaction;
 import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
 import com.homework.rewards.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -21,9 +29,32 @@ import static org.mockito.Mockito.*;
 
 public class RewardServiceTest {
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private RewardLedgerService rewardLedgerService;
+
+    @Spy
+    private RewardPointsTable rewardPointsTable = new RewardPointsTable(new RewardProperties().getPoints().getTiers());
+
+    @Spy
+    private RewardMetrics rewardMetrics = new RewardMetrics(meterRegistry);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ArchivedMonths archivedMonths;
+
+    @Mock
+    private CustomerCacheVersions customerCacheVersions;
+
+    @Mock
+    private ObjectProvider<HotTransactionTier> hotTransactionTier;
+
     @InjectMocks
     private RewardService rewardService;
 
@@ -40,9 +71,9 @@ public class RewardServiceTest {
         LocalDateTime endDate = LocalDateTime.of(2023, 3, 31, 23, 59);
 
         List<Transaction> transactions = Arrays.asList(
-                new Transaction(1L, customerId, 120.0, LocalDateTime.of(2023, 1, 15, 10, 0)),
-                new Transaction(2L, customerId, 80.0, LocalDateTime.of(2023, 2, 20, 14, 30)),
-                new Transaction(3L, customerId, 200.0, LocalDateTime.of(2023, 3, 10, 9, 45))
+                new Transaction(1L, customerId, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0)),
+                new Transaction(2L, customerId, 8000L, LocalDateTime.of(2023, 2, 20, 14, 30)),
+                new Transaction(3L, customerId, 20_000L, LocalDateTime.of(2023, 3, 10, 9, 45))
         );
 
         when(transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate))
@@ -60,6 +91,23 @@ public class RewardServiceTest {
         assertEquals(transactions, response.getTransactions());
     }
 
+    @Test
+    @DisplayName("Record fetch, row count and aggregation meters per endpoint")
+    void calculateRewards_RecordsMetrics() {
+        LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2023, 1, 31, 23, 59);
+        when(transactionRepository.findByCustomerIdAndTimestampBetween(1L, startDate, endDate)).thenReturn(List.of(
+                new Transaction(1L, 1L, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0)),
+                new Transaction(2L, 1L, 8000L, LocalDateTime.of(2023, 1, 20, 14, 30))));
+
+        rewardService.calculateRewards(1L, startDate, endDate);
+
+        assertEquals(1, meterRegistry.get("rewards.fetch").tag("endpoint", RewardMetrics.REWARDS).timer().count());
+        assertEquals(2, meterRegistry.get("rewards.fetch.rows").tag("endpoint", RewardMetrics.REWARDS).summary().totalAmount());
+        assertEquals(1, meterRegistry.get("rewards.aggregation").tag("endpoint", RewardMetrics.REWARDS).timer().count());
+        assertTrue(meterRegistry.find("rewards.fetch").tag("endpoint", RewardMetrics.REWARDS_SUMMARY).timers().isEmpty());
+    }
+
     @Test
     @DisplayName("Throw RewardCalculationException when no transactions are found")
     void calculateRewards_NoTransactions_ThrowsException() {
@@ -136,7 +184,7 @@ public class RewardServiceTest {
         LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
         LocalDateTime endDate = LocalDateTime.of(2023, 1, 31, 23, 59);
 
-        Transaction transaction = new Transaction(1L, customerId, 100.0, LocalDateTime.of(2023, 1, 10, 10, 0));
+        Transaction transaction = new Transaction(1L, customerId, 10_000L, LocalDateTime.of(2023, 1, 10, 10, 0));
 
         when(transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate))
                 .thenReturn(Collections.singletonList(transaction));
@@ -155,7 +203,7 @@ public class RewardServiceTest {
         LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
         LocalDateTime endDate = LocalDateTime.of(2023, 1, 31, 23, 59);
 
-        Transaction transaction = new Transaction(1L, customerId, 50.0, LocalDateTime.of(2023, 1, 10, 10, 0));
+        Transaction transaction = new Transaction(1L, customerId, 5000L, LocalDateTime.of(2023, 1, 10, 10, 0));
 
         when(transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate))
                 .thenReturn(Collections.singletonList(transaction));
@@ -175,8 +223,8 @@ public class RewardServiceTest {
         LocalDateTime endDate = LocalDateTime.of(2023, 1, 31, 23, 59);
 
         List<Transaction> transactions = Arrays.asList(
-                new Transaction(1L, customerId, 50.0, LocalDateTime.of(2023, 1, 10, 10, 0)),
-                new Transaction(2L, customerId, 100.0, LocalDateTime.of(2023, 1, 15, 12, 0))
+                new Transaction(1L, customerId, 5000L, LocalDateTime.of(2023, 1, 10, 10, 0)),
+                new Transaction(2L, customerId, 10_000L, LocalDateTime.of(2023, 1, 15, 12, 0))
         );
 
         when(transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate))
@@ -196,7 +244,7 @@ public class RewardServiceTest {
         LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
         LocalDateTime endDate = LocalDateTime.of(2023, 1, 31, 23, 59);
 
-        Transaction transaction = new Transaction(1L, customerId, 120.0, LocalDateTime.of(2023, 1, 20, 15, 0));
+        Transaction transaction = new Transaction(1L, customerId, 12_000L, LocalDateTime.of(2023, 1, 20, 15, 0));
 
         when(transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate))
                 .thenReturn(Collections.singletonList(transaction));
@@ -216,7 +264,7 @@ public class RewardServiceTest {
         LocalDateTime endDate = LocalDateTime.of(2023, 1, 31, 23, 59);
 
         List<Transaction> transactions = Collections.singletonList(
-                new Transaction(1L, customerId, 50.0, LocalDateTime.of(2023, 1, 1, 0, 0))
+                new Transaction(1L, customerId, 5000L, LocalDateTime.of(2023, 1, 1, 0, 0))
         );
 
         when(transactionRepository.findByCustomerIdAndTimestampBetween(customerId, startDate, endDate))
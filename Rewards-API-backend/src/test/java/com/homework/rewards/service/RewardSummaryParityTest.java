@@ -0,0 +1,93 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.cache.CustomerCacheVersions;
+import com.homework.rewards.config.ClockConfig;
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.RewardResponse;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.metrics.RewardMetrics;
+import com.homework.rewards.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the database-side aggregation behind {@link RewardService#calculateRewardSummary}
+ * produces exactly the points of the in-memory {@link RewardService#calculateRewards} path.
+ */
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, RewardService.class, RewardLedgerService.class, ArchivedMonths.class, RewardMetrics.class,
+        SimpleMeterRegistry.class, CustomerCacheVersions.class, ClockConfig.class})
+public class RewardSummaryParityTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RewardService rewardService;
+
+    @Test
+    @DisplayName("Summary matches full calculation on tier boundaries")
+    void summary_TierBoundaries_MatchesFullCalculation() {
+        long[] amounts = {0, 4_999, 5_000, 5_001, 5_050, 9_999, 10_000, 10_001, 10_050, 12_000, 12_010, 12_050, 20_000, 123_456};
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < amounts.length; i++) {
+            transactions.add(new Transaction(null, 1L, amounts[i], LocalDateTime.of(2023, 1 + i % 12, 1 + i, 12, 0)));
+        }
+        transactionRepository.saveAll(transactions);
+
+        assertParity(1L, LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 23, 59, 59));
+    }
+
+    @Test
+    @DisplayName("Summary matches full calculation on random amounts across years")
+    void summary_RandomAmountsAcrossYears_MatchesFullCalculation() {
+        Random random = new Random(42);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long customerId = 1 + random.nextInt(3);
+            long amount = random.nextInt(30_001);
+            LocalDateTime timestamp = LocalDateTime.of(2022, 1, 1, 0, 0).plusMinutes(random.nextInt(2 * 365 * 24 * 60));
+            transactions.add(new Transaction(null, customerId, amount, timestamp));
+        }
+        transactionRepository.saveAll(transactions);
+
+        for (long customerId = 1; customerId <= 3; customerId++) {
+            assertParity(customerId, LocalDateTime.of(2022, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 23, 59, 59));
+            assertParity(customerId, LocalDateTime.of(2022, 3, 15, 8, 30), LocalDateTime.of(2022, 9, 2, 17, 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Summary throws RewardCalculationException when no transactions are found")
+    void summary_NoTransactions_ThrowsException() {
+        transactionRepository.save(new Transaction(null, 1L, 12_000L, LocalDateTime.of(2023, 1, 15, 10, 0)));
+
+        assertThrows(RewardCalculationException.class, () -> rewardService.calculateRewardSummary(
+                2L, LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 1, 31, 23, 59)));
+    }
+
+    private void assertParity(Long customerId, LocalDateTime startDate, LocalDateTime endDate) {
+        RewardResponse expected = rewardService.calculateRewards(customerId, startDate, endDate);
+        RewardResponse actual = rewardService.calculateRewardSummary(customerId, startDate, endDate);
+
+        assertEquals(expected.getCustomerId(), actual.getCustomerId());
+        assertEquals(expected.getMonthlyPoints(), actual.getMonthlyPoints());
+        assertEquals(expected.getTotalPoints(), actual.getTotalPoints());
+        assertNull(actual.getTransactions());
+    }
+}
@@ -0,0 +1,125 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.MonthlyPoints;
+import com.homework.rewards.dto.StatementExport;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.export.ColumnarReader;
+import com.homework.rewards.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Small frames, so an export of a few hundred transactions spans several of each kind.
+ */
+@DataJpaTest(properties = "rewards.export.block-rows=16")
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, StatementExportService.class, ArchivedMonths.class})
+class StatementExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 3, 31, 23, 59, 59);
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RewardPointsTable rewardPointsTable;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            transactions.add(new Transaction(null, 1L + random.nextInt(7), (long) random.nextInt(25_001),
+                    LocalDateTime.of(2022, 12, 1, 0, 0).plusSeconds(random.nextInt(150 * 24 * 3600))));
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Test
+    @DisplayName("The export holds the period's transactions and the statements summed from them")
+    void export_MatchesDatabase() throws IOException {
+        List<Transaction> expected = transactionRepository.findAll().stream()
+                .filter(t -> !t.getTimestamp().isBefore(START) && !t.getTimestamp().isAfter(END))
+                .sorted(Comparator.comparing(Transaction::getCustomerId).thenComparing(Transaction::getTimestamp)
+                        .thenComparing(Transaction::getId))
+                .toList();
+        Map<String, long[]> expectedStatements = new TreeMap<>();
+        for (Transaction transaction : expected) {
+            long[] statement = expectedStatements.computeIfAbsent(transaction.getCustomerId() + "/"
+                    + transaction.getTimestamp().getYear() + "/" + transaction.getTimestamp().getMonthValue(), key -> new long[2]);
+            statement[0] += rewardPointsTable.points(transaction.getAmountCents());
+            statement[1]++;
+        }
+
+        StatementExport export = statementExportService.export(START, END);
+        List<Transaction> transactions = new ArrayList<>();
+        List<MonthlyPoints> statements = new ArrayList<>();
+        ColumnarReader.readExport(ByteBuffer.wrap(Files.readAllBytes(export.getFile())), transactions::add, statements::add);
+
+        assertEquals(expected, transactions);
+        assertEquals(expected.size(), export.getTransactions());
+        assertEquals(expectedStatements.size(), statements.size());
+        assertEquals(statements.size(), export.getStatements());
+        for (MonthlyPoints statement : statements) {
+            long[] totals = expectedStatements.get(statement.getCustomerId() + "/" + statement.getPeriodYear() + "/" + statement.getPeriodMonth());
+            assertArrayEquals(totals, new long[]{statement.getPoints(), statement.getTransactionCount()});
+        }
+        assertEquals(Files.size(export.getFile()), export.getBytes());
+    }
+
+    @Test
+    @DisplayName("Transferring an export copies it and deletes the file")
+    void transfer_CopiesAndDeletes() throws IOException {
+        StatementExport export = statementExportService.export(START, END);
+        byte[] written = Files.readAllBytes(export.getFile());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        statementExportService.transfer(export, out);
+
+        assertArrayEquals(written, out.toByteArray());
+        assertFalse(Files.exists(export.getFile()));
+    }
+
+    @Test
+    @DisplayName("A period without transactions gives an export with only the end frame")
+    void export_EmptyPeriod() throws IOException {
+        StatementExport export = statementExportService.export(START.plusYears(5), END.plusYears(5));
+
+        assertEquals(0, export.getTransactions());
+        assertEquals(0, export.getStatements());
+        statementExportService.transfer(export, new ByteArrayOutputStream());
+    }
+
+    @Test
+    @DisplayName("Invalid periods are rejected")
+    void export_InvalidPeriod() {
+        assertThrows(RewardCalculationException.class, () -> statementExportService.export(END, START));
+        assertThrows(RewardCalculationException.class, () -> statementExportService.export(null, END));
+    }
+}
@@ -0,0 +1,109 @@
+package com.homework.rewards.service;
+
+import com.homework.rewards.config.RewardPointsConfig;
+import com.homework.rewards.config.RewardProperties;
+import com.homework.rewards.dto.TransactionPage;
+import com.homework.rewards.entity.Transaction;
+import com.homework.rewards.exception.ArchivedPeriodException;
+import com.homework.rewards.exception.RewardCalculationException;
+import com.homework.rewards.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@EnableConfigurationProperties(RewardProperties.class)
+@Import({RewardPointsConfig.class, ArchivedMonths.class})
+public class TransactionDetailServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 1, 31, 23, 59, 59);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ArchivedMonths archivedMonths;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionDetailService transactionDetailService;
+    private List<Transaction> saved;
+
+    @BeforeEach
+    void setUp() {
+        transactionDetailService = new TransactionDetailService(transactionRepository, entityManager, archivedMonths);
+
+        // Several rows share a timestamp so the id tie-breaker is exercised
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            transactions.add(new Transaction(null, 1L, 6_000L + i * 100, LocalDateTime.of(2023, 1, 10 + i / 3, 12, 0)));
+        }
+        transactions.add(new Transaction(null, 2L, 8000L, LocalDateTime.of(2023, 1, 11, 12, 0)));
+        saved = transactionRepository.saveAll(transactions).subList(0, 10);
+    }
+
+    @Test
+    @DisplayName("Keyset pages cover every row exactly once, in timestamp and id order")
+    void findPage_FollowCursor_CoversAllRows() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = transactionDetailService.findPage(1L, START, END, cursor, 4);
+            page.getTransactions().forEach(t -> ids.add(t.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(saved.stream().map(Transaction::getId).toList(), ids);
+    }
+
+    @Test
+    @DisplayName("Periods starting in an archived month are refused instead of listed without its rows")
+    void archivedMonth_Refused() {
+        jdbcTemplate.update("INSERT INTO archived_month (period_year, period_month, marked_at) VALUES (2023, 1, ?)", START);
+        archivedMonths.refresh();
+        try {
+            assertThrows(ArchivedPeriodException.class, () -> transactionDetailService.findPage(1L, START, END, null, 4));
+            assertThrows(ArchivedPeriodException.class, () -> transactionDetailService.streamTransactions(1L, START, END, t -> {
+            }));
+        } finally {
+            // The insert is rolled back with the test, the cached month is not
+            archivedMonths.refresh();
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming returns every row of the customer in order")
+    void streamTransactions_ReturnsAllRowsInOrder() {
+        List<Long> ids = new ArrayList<>();
+        transactionDetailService.streamTransactions(1L, START, END, t -> ids.add(t.getId()));
+
+        assertEquals(saved.stream().map(Transaction::getId).toList(), ids);
+    }
+
+    @Test
+    @DisplayName("Throw RewardCalculationException for a malformed cursor or limit")
+    void findPage_InvalidInput_ThrowsException() {
+        assertThrows(RewardCalculationException.class, () -> transactionDetailService.findPage(1L, START, END, "nonsense", 10));
+        assertThrows(RewardCalculationException.class, () -> transactionDetailService.findPage(1L, START, END, null, 0));
+    }
+}